@@ -1,8 +1,17 @@
 package com.theroom307.jcpm.core.controller;
 
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.model.Item;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.ItemService;
+import org.springframework.web.context.request.WebRequest;
 
 abstract class BaseItemController<T extends Item> {
 
@@ -12,8 +21,120 @@ abstract class BaseItemController<T extends Item> {
 
     protected static final String DEFAULT_PAGE_SIZE = "10";
 
+    protected static final String TOTAL_DESCRIPTION = "Pagination: whether to count the total number of items; " +
+            "set to false to skip the count query and rely on 'hasNext' instead";
+
+    protected static final String CURSOR_DESCRIPTION = "Cursor pagination: the 'next' token from the previous " +
+            "response, or an empty value to start from the first item; when provided, 'page' is ignored";
+
+    protected static final String SORT_DESCRIPTION = "Sorting: 'id', 'name', 'created' or 'modified', " +
+            "optionally followed by ',asc' (default) or ',desc'; items with equal values are ordered by ID. " +
+            "A cursor is only valid for the sort it was returned with";
+
+    protected static final String NOT_MODIFIED_DESCRIPTION = "Not modified since the ETag given in " +
+            "If-None-Match (or since the If-Modified-Since date for a single item)";
+
+    protected static final String SEARCH_QUERY_DESCRIPTION = "The words to search for in the name or description; " +
+            "the case and diacritics are ignored, and only the items containing all the words are returned";
+
+    protected static final String AUTOCOMPLETE_PREFIX_DESCRIPTION = "The text typed so far; each of its words " +
+            "must start a word of the name, the case and diacritics are ignored";
+
+    protected static final String DEFAULT_SUGGESTION_LIMIT = "10";
+
+    protected static final int MAX_SUGGESTION_LIMIT = 50;
+
+    /**
+     * The largest number of items created in one batch request; the same
+     * as the JDBC batch size, so the inserts take one round trip.
+     */
+    protected static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * The largest number of copies of a product created in one request.
+     */
+    protected static final int MAX_CLONE_COUNT = 100;
+
+    protected static final String BATCH_SIZE_MESSAGE = "The batch must contain 1 to " + MAX_BATCH_SIZE + " items";
+
+    protected static final String IF_MATCH_DESCRIPTION = "Optimistic concurrency: the ETag (version) " +
+            "of the resource as previously read, a list of ETags, or '*' for any existing resource; " +
+            "the request fails with 412 if none of them matches, weak ETags never do";
+
     protected BaseItemController(ItemService<T> service, ItemDtoMapper mapper) {
         this.service = service;
         this.mapper = mapper;
     }
+
+    /**
+     * @return the requested sort, or null if neither a sort nor a filter
+     * was requested, i.e. the list can be read in the unspecified order
+     */
+    protected static ItemSort getSort(String sort, ItemFilter filter) {
+        if (sort != null) {
+            return ItemSort.parse(sort);
+        }
+        return filter.isEmpty() ? null : ItemSort.DEFAULT;
+    }
+
+    /**
+     * Reads a page of the sorted and filtered items, or the items after the
+     * cursor if one is given.
+     */
+    protected <D extends IResponseDto> ListResponseWrapper<D> getSortedItems(ItemFilter filter, ItemSort sort,
+                                                                             int page, int size, boolean total,
+                                                                             String after, Class<D> type) {
+        if (after != null) {
+            var items = service.getItems(filter, ItemCursor.decode(after, sort), size, type);
+            return mapper.mapListWithCursor(items);
+        }
+        var items = total
+                ? service.getItems(filter, sort, page, size, type)
+                : service.getItemSlice(filter, sort, page, size, type);
+        return mapper.mapList(items);
+    }
+
+    /**
+     * Evaluates the If-Match request header against the version of the item.
+     *
+     * @return the version the item must still have when it is changed, or
+     * null if it is to be changed unconditionally
+     */
+    protected Long getExpectedVersion(long id, String ifMatch) {
+        return EntityTag.expectedVersion(ifMatch, () -> service.getItemMetadata(id).version());
+    }
+
+    /**
+     * Checks the If-None-Match and If-Modified-Since request headers against
+     * the item metadata. Sets the ETag and Last-Modified response headers,
+     * and the 304 status if the client's copy is up-to-date.
+     *
+     * @return true if the handler should return without a body
+     */
+    protected static boolean isNotModified(WebRequest request, ItemMetadata metadata) {
+        var lastModified = metadata.modified() == null ? -1 : metadata.modified().toInstant().toEpochMilli();
+        return request.checkNotModified(EntityTag.of(metadata.version()), lastModified);
+    }
+
+    /**
+     * Checks the If-None-Match request header against the collection
+     * metadata. Empty collections are always returned in full: they are
+     * cheap to read, and their parent item may not exist, which must result
+     * in 404 rather than 304.
+     *
+     * @return true if the handler should return without a body
+     */
+    protected static boolean isNotModified(WebRequest request, CollectionMetadata metadata) {
+        return !metadata.isEmpty() && request.checkNotModified(EntityTag.of(metadata));
+    }
+
+    /**
+     * Checks the If-None-Match request header against the collection version
+     * counted in memory, so a list request doesn't read the database for it.
+     *
+     * @return true if the handler should return without a body
+     */
+    protected static boolean isNotModified(WebRequest request, CollectionVersion version) {
+        return request.checkNotModified(EntityTag.of(version));
+    }
 }
@@ -0,0 +1,31 @@
+package com.theroom307.jcpm.core.controller;
+
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
+import com.theroom307.jcpm.core.service.cache.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/cache")
+@Tag(name = "Cache API")
+@SuppressWarnings("unused")
+public class CacheController {
+
+    private final CacheRegistry caches;
+
+    protected CacheController(@Autowired CacheRegistry caches) {
+        this.caches = caches;
+    }
+
+    @Operation(summary = "Get the hit/miss/eviction statistics of the in-process caches, by cache name")
+    @GetMapping("/stats")
+    public Map<String, CacheStats> getCacheStats() {
+        return caches.getStats();
+    }
+}
@@ -1,26 +1,36 @@
 package com.theroom307.jcpm.core.controller;
 
-import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.data.dto.ComponentRequestDto;
 import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
 import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
 import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.ItemService;
-import com.theroom307.jcpm.core.service.ProductComponentsService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/component")
@@ -29,21 +39,19 @@ import org.springframework.web.bind.annotation.*;
 @SuppressWarnings("unused")
 public class ComponentController extends BaseItemController<Component> {
 
-    private final ProductComponentsService productComponentsService;
-
     protected ComponentController(@Autowired ItemService<Component> service,
-                                  @Autowired ItemDtoMapper mapper,
-                                  @Autowired ProductComponentsService productComponentsService) {
+                                  @Autowired ItemDtoMapper mapper) {
         super(service, mapper);
-        this.productComponentsService = productComponentsService;
     }
 
-    @Operation(summary = "Get the list of all components (paginated)")
+    @Operation(summary = "Get the list of all components (paginated, optionally sorted and filtered)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", content = @Content(
                     mediaType = "application/json",
                     schema = @Schema(implementation = WrappedListOfComponents.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters", content = @Content)
+            @ApiResponse(responseCode = "304", description = NOT_MODIFIED_DESCRIPTION, content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid pagination, sort or filter parameters, " +
+                    "or cursor", content = @Content)
     })
     @GetMapping
     public ListResponseWrapper<ComponentResponseDto> getComponents(
@@ -53,20 +61,108 @@ public class ComponentController extends BaseItemController<Component> {
             @Min(value = 0, message = "Page must not be negative")
             int page,
 
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE)
+            @Schema(type = "integer", defaultValue = DEFAULT_PAGE_SIZE,
+                    description = "Pagination: the size of the page to be returned, must be greater than 0")
+            @Min(value = 1, message = "Page size must be greater than 0")
+            int size,
+
+            @RequestParam(defaultValue = "true")
+            @Schema(type = "boolean", defaultValue = "true", description = TOTAL_DESCRIPTION)
+            boolean total,
+
+            @RequestParam(required = false)
+            @Schema(type = "string", description = CURSOR_DESCRIPTION)
+            String after,
+
+            @RequestParam(required = false)
+            @Schema(type = "string", description = SORT_DESCRIPTION, example = "name,asc")
+            String sort,
+
+            @ParameterObject
+            ItemFilter filter,
+
+            WebRequest request
+    ) {
+        var itemSort = getSort(sort, filter);
+        if (isNotModified(request, service.getItemsVersion())) {
+            return null;
+        }
+        if (itemSort != null) {
+            return getSortedItems(filter, itemSort, page, size, total, after, ComponentResponseDto.class);
+        }
+        if (after != null) {
+            var components = service.getItems(ItemCursor.decode(after), size, ComponentResponseDto.class);
+            return mapper.mapListWithCursor(components);
+        }
+        var components = total
+                ? service.getItems(page, size, ComponentResponseDto.class)
+                : service.getItemSlice(page, size, ComponentResponseDto.class);
+        return mapper.mapList(components);
+    }
+
+    @Operation(summary = "Search components by the words in their name or description (paginated, best matches first)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = WrappedListOfComponents.class))),
+            @ApiResponse(responseCode = "400", description = "Blank query or invalid pagination parameters",
+                    content = @Content)
+    })
+    @GetMapping("/search")
+    public ListResponseWrapper<ComponentResponseDto> searchComponents(
+            @RequestParam
+            @Schema(type = "string", description = SEARCH_QUERY_DESCRIPTION)
+            @NotBlank(message = "Search query must not be blank")
+            String q,
+
+            @RequestParam(defaultValue = "0")
+            @Schema(type = "integer", defaultValue = "0",
+                    description = "Pagination: zero-based page index, must not be negative")
+            @Min(value = 0, message = "Page must not be negative")
+            int page,
+
             @RequestParam(defaultValue = DEFAULT_PAGE_SIZE)
             @Schema(type = "integer", defaultValue = DEFAULT_PAGE_SIZE,
                     description = "Pagination: the size of the page to be returned, must be greater than 0")
             @Min(value = 1, message = "Page size must be greater than 0")
             int size
     ) {
-        var components = service.getItems(page, size);
-        return mapper.mapComponents(components);
+        var components = service.searchItems(q, page, size, ComponentResponseDto.class);
+        return mapper.mapList(components);
     }
 
-    @Operation(summary = "Get a component by its ID")
+    @Operation(summary = "Suggest components whose name words start with the typed text (type-ahead)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", content = @Content(
-                    mediaType = "application/json", schema = @Schema(implementation = ComponentResponseDto.class))),
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = ItemSuggestion.class)))),
+            @ApiResponse(responseCode = "400", description = "Blank prefix or invalid limit", content = @Content)
+    })
+    @GetMapping("/autocomplete")
+    public List<ItemSuggestion> autocompleteComponents(
+            @RequestParam
+            @Schema(type = "string", description = AUTOCOMPLETE_PREFIX_DESCRIPTION)
+            @NotBlank(message = "Prefix must not be blank")
+            String prefix,
+
+            @RequestParam(defaultValue = DEFAULT_SUGGESTION_LIMIT)
+            @Schema(type = "integer", defaultValue = DEFAULT_SUGGESTION_LIMIT,
+                    description = "The maximum number of suggestions, from 1 to " + MAX_SUGGESTION_LIMIT)
+            @Min(value = 1, message = "Limit must be greater than 0")
+            @Max(value = MAX_SUGGESTION_LIMIT, message = "Limit must not be greater than " + MAX_SUGGESTION_LIMIT)
+            int limit
+    ) {
+        return service.suggestItems(prefix, limit);
+    }
+
+    @Operation(summary = "Get a component by its ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "The component; its version is returned in the ETag header",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ComponentResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = NOT_MODIFIED_DESCRIPTION, content = @Content),
             @ApiResponse(responseCode = "404", description = "Component not found or invalid ID", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid component ID", content = @Content)
     })
@@ -74,10 +170,16 @@ public class ComponentController extends BaseItemController<Component> {
     public IResponseDto getComponentById(
             @PathVariable
             @Min(value = 1, message = "Component ID must be greater than zero")
-            long componentId
+            long componentId,
+
+            WebRequest request
     ) {
-        var component = service.getItem(componentId);
-        return mapper.map(component);
+        // read the metadata first, so the ETag is never newer than the returned data
+        var metadata = service.getItemMetadata(componentId);
+        if (isNotModified(request, metadata)) {
+            return null;
+        }
+        return service.getItem(componentId, ComponentResponseDto.class);
     }
 
     @Operation(summary = "Create a new component")
@@ -95,11 +197,37 @@ public class ComponentController extends BaseItemController<Component> {
         return service.createItem(component);
     }
 
+    @Operation(summary = "Create several components at once",
+            description = "All the components are created in one transaction, or none if any of them is invalid")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201",
+                    description = "The components have been created, see their IDs in the order of the request",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(type = "integer", description = "Component ID", example = "1")))),
+            @ApiResponse(responseCode = "400", description = "Invalid component data, or an empty or too large batch",
+                    content = @Content)
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Long> createNewComponents(
+            @RequestBody
+            @Size(min = 1, max = MAX_BATCH_SIZE, message = BATCH_SIZE_MESSAGE)
+            List<@Valid ComponentRequestDto> componentDtos
+    ) {
+        var components = componentDtos.stream()
+                .map(mapper::map)
+                .toList();
+        return service.createItems(components);
+    }
+
     @Operation(summary = "Edit a component")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Component data successfully updated", content = @Content),
             @ApiResponse(responseCode = "404", description = "Component not found or invalid ID", content = @Content),
-            @ApiResponse(responseCode = "400", description = "Invalid component ID or data", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid component ID or data", content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The component has been modified since the version given in If-Match",
+                    content = @Content)
     })
     @PatchMapping("/{componentId}")
     public void editComponent(
@@ -108,10 +236,14 @@ public class ComponentController extends BaseItemController<Component> {
             long componentId,
 
             @RequestBody
-            ComponentRequestDto componentDto
+            ComponentRequestDto componentDto,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
     ) {
         var component = mapper.map(componentDto);
-        service.editItem(componentId, component);
+        service.editItem(componentId, component, getExpectedVersion(componentId, ifMatch));
     }
 
     @Operation(summary = "Delete a component by its ID")
@@ -120,6 +252,9 @@ public class ComponentController extends BaseItemController<Component> {
                     description = "The component has been deleted or doesn't exist",
                     content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid component ID", content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The component has been modified since the version given in If-Match",
+                    content = @Content),
             @ApiResponse(responseCode = "409",
                     description = "The component is used in some product(s) and cannot be deleted",
                     content = @Content)
@@ -127,19 +262,13 @@ public class ComponentController extends BaseItemController<Component> {
     @DeleteMapping("/{componentId}")
     public void deleteComponentById(
             @PathVariable
-            long componentId
-    ) {
-        if (productComponentsService.isComponentInUse(componentId)) {
-            throwComponentIsInUseException(componentId);
-        }
-        service.deleteItem(componentId);
-    }
+            long componentId,
 
-    private void throwComponentIsInUseException(long componentId) {
-        throw new ConditionFailedException(String.format(
-                "Component '%s' is used in some product(s)",
-                componentId
-        ));
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
+    ) {
+        service.deleteItem(componentId, getExpectedVersion(componentId, ifMatch));
     }
 
     // for Open API Documentation
@@ -0,0 +1,121 @@
+package com.theroom307.jcpm.core.controller;
+
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.controller.exception.NotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Converts entity versions to strong ETag values and evaluates If-Match
+ * headers against them, and converts collection metadata and versions to
+ * weak ETag values.
+ */
+final class EntityTag {
+
+    /**
+     * One element of an If-Match list: an optional entity tag followed by a
+     * comma or the end of the header; empty elements are allowed.
+     */
+    private static final Pattern IF_MATCH_ELEMENT =
+            Pattern.compile("[ \\t]*(?:(W/)?\"([\\x21\\x23-\\x7E\\x80-\\xFF]*)\")?[ \\t]*(?:,|$)");
+
+    private static final Pattern VERSION = Pattern.compile("\\d{1,18}");
+
+    private EntityTag() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * A weak ETag: the aggregated metadata identifies the state of the
+     * collection, not the exact representation of a page of it.
+     */
+    static String of(CollectionMetadata metadata) {
+        return String.format("W/\"%x-%x-%x\"",
+                metadata.count(), metadata.maxId(), metadata.versionSum());
+    }
+
+    /**
+     * A weak ETag of a list, from the changes counted since the start of the
+     * application.
+     */
+    static String of(CollectionVersion version) {
+        return String.format("W/\"%x-%x\"", version.started(), version.changes());
+    }
+
+    /**
+     * Evaluates an If-Match header with the strong comparison of RFC 9110:
+     * weak tags and tags not issued by this application are valid but never
+     * match, {@code *} matches any existing resource, and a list matches if
+     * one of its tags does. The current version is only read when the header
+     * doesn't name a single version; otherwise the caller checks it while
+     * applying the request.
+     *
+     * @param currentVersion reads the current version of the resource,
+     *                       throwing a {@link NotFoundException} if there is none
+     * @return the version the resource must still have when the request is
+     * applied, or null if the request is to be applied unconditionally
+     * @throws BadRequestException if the header is malformed
+     * @throws PreconditionFailedException if no tag matches
+     */
+    static Long expectedVersion(String ifMatch, LongSupplier currentVersion) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            try {
+                currentVersion.getAsLong();
+            } catch (NotFoundException e) {
+                throw new PreconditionFailedException("If-Match '*' requires the resource to exist");
+            }
+            return null;
+        }
+
+        var versions = parseIfMatch(ifMatch);
+        if (versions.size() == 1) {
+            return versions.iterator().next();
+        }
+        if (!versions.isEmpty()) {
+            var current = currentVersion.getAsLong();
+            if (versions.contains(current)) {
+                return current;
+            }
+        }
+        throw new PreconditionFailedException("None of the entity tags in If-Match matches the current version");
+    }
+
+    /**
+     * @return the versions of the strong tags issued by this application
+     */
+    private static Set<Long> parseIfMatch(String ifMatch) {
+        var versions = new HashSet<Long>();
+        var tags = 0;
+        var matcher = IF_MATCH_ELEMENT.matcher(ifMatch);
+        var position = 0;
+        while (position < ifMatch.length()) {
+            if (!matcher.region(position, ifMatch.length()).lookingAt()) {
+                throw new BadRequestException("Invalid If-Match header");
+            }
+            var opaqueTag = matcher.group(2);
+            if (opaqueTag != null) {
+                tags++;
+                if (matcher.group(1) == null && VERSION.matcher(opaqueTag).matches()) {
+                    versions.add(Long.parseLong(opaqueTag));
+                }
+            }
+            position = matcher.end();
+        }
+        if (tags == 0) {
+            throw new BadRequestException("Invalid If-Match header");
+        }
+        return versions;
+    }
+}
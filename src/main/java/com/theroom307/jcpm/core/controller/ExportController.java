@@ -0,0 +1,58 @@
+package com.theroom307.jcpm.core.controller;
+
+import com.theroom307.jcpm.core.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The exports are written while they are read from the database, on an
+ * async request thread, so their size isn't limited by the memory.
+ */
+@RestController
+@RequestMapping("/api/v1/export")
+@Tag(name = "Export API")
+@SuppressWarnings("unused")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    protected ExportController(@Autowired ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(summary = "Export all products as NDJSON, one product per line, ordered by ID")
+    @GetMapping(value = "/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        return ndjson("products", exportService::exportProducts);
+    }
+
+    @Operation(summary = "Export all components as NDJSON, one component per line, ordered by ID")
+    @GetMapping(value = "/components", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportComponents() {
+        return ndjson("components", exportService::exportComponents);
+    }
+
+    @Operation(summary = "Export the bills of materials of all products as NDJSON, " +
+                         "one product component per line, ordered by product and component")
+    @GetMapping(value = "/product-components", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProductComponents() {
+        return ndjson("product-components", exportService::exportProductComponents);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(String name, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(name + ".ndjson").build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,105 @@
+package com.theroom307.jcpm.core.controller;
+
+import com.theroom307.jcpm.core.data.dto.ImportResult;
+import com.theroom307.jcpm.core.service.ImportFormat;
+import com.theroom307.jcpm.core.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The request bodies are read as they arrive, row by row, so their size
+ * isn't limited by the memory.
+ */
+@RestController
+@RequestMapping("/api/v1/import")
+@Tag(name = "Import API")
+@SuppressWarnings("unused")
+public class ImportController {
+
+    private static final String IMPORT_DESCRIPTION = "Rows as NDJSON (one create request body per line) " +
+            "or as CSV with a header line naming the columns, e.g. 'name,description'. " +
+            "The invalid rows are skipped and reported with their line numbers";
+
+    private final ImportService importService;
+
+    protected ImportController(@Autowired ImportService importService) {
+        this.importService = importService;
+    }
+
+    @Operation(summary = "Create products in bulk", description = IMPORT_DESCRIPTION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The numbers of created and rejected rows",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "The CSV header has no 'name' column",
+                    content = @Content),
+            @ApiResponse(responseCode = "415", description = "Neither NDJSON nor CSV", content = @Content)
+    })
+    @PostMapping(value = "/products", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportFormat.CSV_MEDIA_TYPE_VALUE})
+    public ImportResult importProducts(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+
+            InputStream body
+    ) throws IOException {
+        return importService.importProducts(body, ImportFormat.of(MediaType.parseMediaType(contentType)));
+    }
+
+    @Operation(summary = "Create components in bulk", description = IMPORT_DESCRIPTION)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The numbers of created and rejected rows",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "The CSV header has no 'name' column",
+                    content = @Content),
+            @ApiResponse(responseCode = "415", description = "Neither NDJSON nor CSV", content = @Content)
+    })
+    @PostMapping(value = "/components", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportFormat.CSV_MEDIA_TYPE_VALUE})
+    public ImportResult importComponents(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+
+            InputStream body
+    ) throws IOException {
+        return importService.importComponents(body, ImportFormat.of(MediaType.parseMediaType(contentType)));
+    }
+
+    @Operation(summary = "Add components to products in bulk",
+            description = "Rows as NDJSON in the format of the export, e.g. " +
+                    "'{\"product_id\":1,\"component_id\":2,\"quantity\":3}', " +
+                    "or as CSV with the header 'product_id,component_id,quantity'. " +
+                    "Rows referencing unknown items, entries already in the bill of materials " +
+                    "and repeated rows are skipped and reported with their line numbers")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The numbers of added and rejected rows",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ImportResult.class))),
+            @ApiResponse(responseCode = "400", description = "The CSV header has no 'product_id' or 'component_id' column",
+                    content = @Content),
+            @ApiResponse(responseCode = "415", description = "Neither NDJSON nor CSV", content = @Content)
+    })
+    @PostMapping(value = "/product-components", consumes = {MediaType.APPLICATION_NDJSON_VALUE, ImportFormat.CSV_MEDIA_TYPE_VALUE})
+    public ImportResult importProductComponents(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+
+            InputStream body
+    ) throws IOException {
+        return importService.importProductComponents(body, ImportFormat.of(MediaType.parseMediaType(contentType)));
+    }
+}
@@ -1,6 +1,10 @@
 package com.theroom307.jcpm.core.controller;
 
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.controller.exception.NotFoundException;
 import com.theroom307.jcpm.core.data.dto.*;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
 import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
@@ -14,16 +18,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
-
 @RestController
 @RequestMapping("/api/v1/product")
 @Validated
@@ -40,12 +50,14 @@ public class ProductController extends BaseItemController<Product> {
         this.productComponentsService = productComponentsService;
     }
 
-    @Operation(summary = "Get the list of all products (paginated)")
+    @Operation(summary = "Get the list of all products (paginated, optionally sorted and filtered)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", content = @Content(
                     mediaType = "application/json",
                     schema = @Schema(implementation = WrappedListOfProducts.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid pagination parameters", content = @Content)
+            @ApiResponse(responseCode = "304", description = NOT_MODIFIED_DESCRIPTION, content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid pagination, sort or filter parameters, " +
+                    "or cursor", content = @Content)
     })
     @GetMapping
     public ListResponseWrapper<ProductResponseDto> getProducts(
@@ -64,18 +76,119 @@ public class ProductController extends BaseItemController<Product> {
             @RequestParam(required = false)
             @Schema(type = "integer", description = "Optional component ID to filter products by")
             @Min(value = 1, message = "Component ID must be greater than zero")
-            Long componentId
+            Long componentId,
+
+            @RequestParam(defaultValue = "true")
+            @Schema(type = "boolean", defaultValue = "true", description = TOTAL_DESCRIPTION)
+            boolean total,
+
+            @RequestParam(required = false)
+            @Schema(type = "string", description = CURSOR_DESCRIPTION)
+            String after,
+
+            @RequestParam(required = false)
+            @Schema(type = "string", description = SORT_DESCRIPTION, example = "name,asc")
+            String sort,
+
+            @ParameterObject
+            ItemFilter filter,
+
+            WebRequest request
     ) {
+        var itemSort = getSort(sort, filter);
+        if (itemSort != null && componentId != null) {
+            throw new BadRequestException("Sorting and filtering are not supported together with 'componentId'");
+        }
+        var version = componentId != null
+                ? productComponentsService.getProductsByComponentVersion(componentId)
+                : service.getItemsVersion();
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        if (itemSort != null) {
+            return getSortedItems(filter, itemSort, page, size, total, after, ProductResponseDto.class);
+        }
+        if (after != null) {
+            var cursor = ItemCursor.decode(after);
+            var products = componentId != null
+                    ? productComponentsService.getProductsByComponent(componentId, cursor, size)
+                    : service.getItems(cursor, size, ProductResponseDto.class);
+            return mapper.mapListWithCursor(products);
+        }
+        if (!total) {
+            var products = componentId != null
+                    ? productComponentsService.getProductSliceByComponent(componentId, page, size)
+                    : service.getItemSlice(page, size, ProductResponseDto.class);
+            return mapper.mapList(products);
+        }
         var products = componentId != null 
                 ? productComponentsService.getProductsByComponent(componentId, page, size)
-                : service.getItems(page, size);
-        return mapper.mapProducts(products);
+                : service.getItems(page, size, ProductResponseDto.class);
+        return mapper.mapList(products);
     }
 
-    @Operation(summary = "Get a product by its ID")
+    @Operation(summary = "Search products by the words in their name or description (paginated, best matches first)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = WrappedListOfProducts.class))),
+            @ApiResponse(responseCode = "400", description = "Blank query or invalid pagination parameters",
+                    content = @Content)
+    })
+    @GetMapping("/search")
+    public ListResponseWrapper<ProductResponseDto> searchProducts(
+            @RequestParam
+            @Schema(type = "string", description = SEARCH_QUERY_DESCRIPTION)
+            @NotBlank(message = "Search query must not be blank")
+            String q,
+
+            @RequestParam(defaultValue = "0")
+            @Schema(type = "integer", defaultValue = "0",
+                    description = "Pagination: zero-based page index, must not be negative")
+            @Min(value = 0, message = "Page must not be negative")
+            int page,
+
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE)
+            @Schema(type = "integer", defaultValue = DEFAULT_PAGE_SIZE,
+                    description = "Pagination: the size of the page to be returned, must be greater than 0")
+            @Min(value = 1, message = "Page size must be greater than 0")
+            int size
+    ) {
+        var products = service.searchItems(q, page, size, ProductResponseDto.class);
+        return mapper.mapList(products);
+    }
+
+    @Operation(summary = "Suggest products whose name words start with the typed text (type-ahead)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", content = @Content(
-                    mediaType = "application/json", schema = @Schema(implementation = ProductResponseDto.class))),
+                    mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = ItemSuggestion.class)))),
+            @ApiResponse(responseCode = "400", description = "Blank prefix or invalid limit", content = @Content)
+    })
+    @GetMapping("/autocomplete")
+    public List<ItemSuggestion> autocompleteProducts(
+            @RequestParam
+            @Schema(type = "string", description = AUTOCOMPLETE_PREFIX_DESCRIPTION)
+            @NotBlank(message = "Prefix must not be blank")
+            String prefix,
+
+            @RequestParam(defaultValue = DEFAULT_SUGGESTION_LIMIT)
+            @Schema(type = "integer", defaultValue = DEFAULT_SUGGESTION_LIMIT,
+                    description = "The maximum number of suggestions, from 1 to " + MAX_SUGGESTION_LIMIT)
+            @Min(value = 1, message = "Limit must be greater than 0")
+            @Max(value = MAX_SUGGESTION_LIMIT, message = "Limit must not be greater than " + MAX_SUGGESTION_LIMIT)
+            int limit
+    ) {
+        return service.suggestItems(prefix, limit);
+    }
+
+    @Operation(summary = "Get a product by its ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "The product; its version is returned in the ETag header",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ProductResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = NOT_MODIFIED_DESCRIPTION, content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found or invalid ID", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid product ID", content = @Content)
     })
@@ -83,32 +196,74 @@ public class ProductController extends BaseItemController<Product> {
     public IResponseDto getProductById(
             @PathVariable
             @Min(value = 1, message = "Product ID must be greater than zero")
-            long productId
+            long productId,
+
+            WebRequest request
     ) {
-        var product = service.getItem(productId);
-        return mapper.map(product);
+        // read the metadata first, so the ETag is never newer than the returned data
+        var metadata = service.getItemMetadata(productId);
+        if (isNotModified(request, metadata)) {
+            return null;
+        }
+        return service.getItem(productId, ProductResponseDto.class);
     }
 
-    @Operation(summary = "Create a new product")
-    @ApiResponse(responseCode = "201",
-            description = "The product has been created, see the product ID in the response",
-            content = @Content(schema = @Schema(type = "integer", description = "Product ID", example = "1")))
+    @Operation(summary = "Create a new product",
+            description = "The optional 'components' are added to the product in the same transaction")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201",
+                    description = "The product has been created, see the product ID in the response",
+                    content = @Content(schema = @Schema(type = "integer", description = "Product ID", example = "1"))),
+            @ApiResponse(responseCode = "400", description = "Invalid product data, quantity, " +
+                    "or a component listed more than once", content = @Content),
+            @ApiResponse(responseCode = "404", description = "A component was not found; the product " +
+                    "is not created then", content = @Content)
+    })
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public long createNewProduct(
             @RequestBody
             @Valid
-            ProductRequestDto productDto
+            ProductCreationRequestDto productDto
     ) {
-        var product = mapper.map(productDto);
+        var product = mapper.map(productDto.product());
+        if (productDto.hasComponents()) {
+            return productComponentsService.createProductWithComponents(product, productDto.components());
+        }
         return service.createItem(product);
     }
 
+    @Operation(summary = "Create several products at once",
+            description = "All the products are created in one transaction, or none if any of them is invalid")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201",
+                    description = "The products have been created, see their IDs in the order of the request",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(type = "integer", description = "Product ID", example = "1")))),
+            @ApiResponse(responseCode = "400", description = "Invalid product data, or an empty or too large batch",
+                    content = @Content)
+    })
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Long> createNewProducts(
+            @RequestBody
+            @Size(min = 1, max = MAX_BATCH_SIZE, message = BATCH_SIZE_MESSAGE)
+            List<@Valid ProductRequestDto> productDtos
+    ) {
+        var products = productDtos.stream()
+                .map(mapper::map)
+                .toList();
+        return service.createItems(products);
+    }
+
     @Operation(summary = "Edit a product")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product data successfully updated", content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found or invalid ID", content = @Content),
-            @ApiResponse(responseCode = "400", description = "Invalid product ID or data", content = @Content)
+            @ApiResponse(responseCode = "400", description = "Invalid product ID or data", content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The product has been modified since the version given in If-Match",
+                    content = @Content)
     })
     @PatchMapping("/{productId}")
     public void editProduct(
@@ -117,25 +272,118 @@ public class ProductController extends BaseItemController<Product> {
             long productId,
 
             @RequestBody
-            ProductRequestDto productDto
+            ProductRequestDto productDto,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
     ) {
         var product = mapper.map(productDto);
-        service.editItem(productId, product);
+        service.editItem(productId, product, getExpectedVersion(productId, ifMatch));
     }
 
-    @Operation(summary = "Delete a product by its ID")
+    @Operation(summary = "Delete a product by its ID",
+            description = "The product is deleted together with all its component entries")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
-                    description = "The product has been deleted or doesn't exist",
-                    content = @Content),
-            @ApiResponse(responseCode = "400", description = "Invalid product ID", content = @Content)
+                    description = "The product has been deleted or doesn't exist, see the numbers of deleted rows",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeletionCounts.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid product ID", content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The product has been modified since the version given in If-Match",
+                    content = @Content)
     })
     @DeleteMapping("/{productId}")
-    public void deleteProductById(
+    public DeletionCounts deleteProductById(
+            @PathVariable
+            long productId,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
+    ) {
+        return productComponentsService.deleteProduct(productId, getExpectedVersion(productId, ifMatch));
+    }
+
+    @Operation(summary = "Delete several products at once",
+            description = "The products are deleted together with all their component entries in one " +
+                    "transaction; the IDs of products that don't exist are ignored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The numbers of deleted rows",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = DeletionCounts.class))),
+            @ApiResponse(responseCode = "400", description = "No or too many product IDs", content = @Content)
+    })
+    @DeleteMapping("/batch")
+    public DeletionCounts deleteProducts(
+            @RequestParam
+            @Schema(description = "The IDs of the products to delete", example = "[1, 2]")
+            @Size(min = 1, max = MAX_BATCH_SIZE, message = BATCH_SIZE_MESSAGE)
+            List<Long> ids
+    ) {
+        return productComponentsService.deleteProducts(ids);
+    }
+
+    @Operation(summary = "Copy a product with all its components",
+            description = "Creates 'count' copies with the same description and components, " +
+                    "and the given name or the name of the product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "The IDs of the copies",
+                    content = @Content(array = @ArraySchema(
+                            schema = @Schema(type = "integer", description = "Product ID", example = "2")))),
+            @ApiResponse(responseCode = "400", description = "Invalid product ID, count or name", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product not found", content = @Content)
+    })
+    @PostMapping("/{productId}/clone")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<Long> cloneProduct(
             @PathVariable
-            long productId
+            @Min(value = 1, message = "Product ID must be greater than zero")
+            long productId,
+
+            @RequestParam(defaultValue = "1")
+            @Schema(type = "integer", defaultValue = "1", description = "The number of copies to create")
+            @Min(value = 1, message = "Count must be greater than zero")
+            @Max(value = MAX_CLONE_COUNT, message = "Count must not be greater than " + MAX_CLONE_COUNT)
+            int count,
+
+            @RequestParam(required = false)
+            @Schema(type = "string", description = "The name of the copies; the name of the product if not given")
+            @Pattern(regexp = ".*\\S.*", message = "Name must not be blank")
+            String name
     ) {
-        service.deleteItem(productId);
+        return productComponentsService.cloneProduct(productId, count, name);
+    }
+
+    @Operation(summary = "Replace all components of a product",
+            description = "Only the differences to the current components are written: the missing " +
+                    "components are added, the changed quantities updated, and the components not listed removed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The applied changes",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BomDiff.class))),
+            @ApiResponse(responseCode = "400",
+                    description = "Bad Request - Invalid product ID, component ID or quantity, " +
+                            "or a component listed more than once",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product or component not found; nothing is changed then",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "A component has been added by another request",
+                    content = @Content),
+            @ApiResponse(responseCode = "412", description = "An entry has been modified by another request",
+                    content = @Content)
+    })
+    @PutMapping("/{productId}/components")
+    public BomDiff replaceComponents(
+            @PathVariable
+            @Min(value = 1, message = "Product ID must be greater than zero")
+            long productId,
+
+            @RequestBody
+            List<@NotNull(message = "A component entry must not be null") @Valid ComponentAddDto> components
+    ) {
+        return productComponentsService.replaceComponents(productId, components);
     }
 
     @Operation(summary = "Add a component to a product")
@@ -180,6 +428,9 @@ public class ProductController extends BaseItemController<Product> {
                     content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Product not found or component not found in product",
+                    content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The entry has been modified since the version given in If-Match",
                     content = @Content)
     })
     @DeleteMapping("/{productId}/components/{componentId}")
@@ -190,21 +441,35 @@ public class ProductController extends BaseItemController<Product> {
 
             @PathVariable
             @Min(value = 1, message = "Component ID must be greater than zero")
-            long componentId
+            long componentId,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
     ) {
-        productComponentsService.removeComponentFromProduct(productId, componentId);
+        productComponentsService.removeComponentFromProduct(productId, componentId,
+                getExpectedEntryVersion(productId, componentId, ifMatch));
     }
 
-    @Operation(summary = "Update the quantity of a component in a product")
+    @Operation(summary = "Update the quantity of a component in a product",
+            description = "Either sets the 'quantity', or changes it by the 'delta' in a single atomic update, " +
+                    "so that concurrent adjustments add up")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Component quantity successfully updated",
                     content = @Content),
             @ApiResponse(responseCode = "400",
-                    description = "Bad Request - Invalid product/component ID or quantity",
+                    description = "Bad Request - Invalid product/component ID or quantity, " +
+                            "not exactly one of 'quantity' and 'delta', or a zero or out-of-range 'delta'",
                     content = @Content),
             @ApiResponse(responseCode = "404",
                     description = "Product not found, component not found, or component not in product",
+                    content = @Content),
+            @ApiResponse(responseCode = "409",
+                    description = "The quantity would not stay greater than zero or would overflow after the delta",
+                    content = @Content),
+            @ApiResponse(responseCode = "412",
+                    description = "The entry has been modified since the version given in If-Match",
                     content = @Content)
     })
     @PatchMapping("/{productId}/components/{componentId}")
@@ -219,12 +484,26 @@ public class ProductController extends BaseItemController<Product> {
 
             @RequestBody
             @Valid
-            ComponentQuantityDto quantityDto
+            ComponentQuantityDto quantityDto,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Schema(description = IF_MATCH_DESCRIPTION)
+            String ifMatch
     ) {
+        var expectedVersion = getExpectedEntryVersion(productId, componentId, ifMatch);
+        if (quantityDto.isDelta()) {
+            productComponentsService.adjustComponentQuantity(
+                    productId,
+                    componentId,
+                    quantityDto.getDelta(),
+                    expectedVersion);
+            return;
+        }
         productComponentsService.updateComponentQuantity(
                 productId,
                 componentId,
-                quantityDto.getQuantity());
+                quantityDto.getQuantity(),
+                expectedVersion);
     }
 
     @Operation(summary = "Get all components for a product with quantities")
@@ -234,6 +513,7 @@ public class ProductController extends BaseItemController<Product> {
                     content = @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = ProductComponentDto.class)))),
+            @ApiResponse(responseCode = "304", description = NOT_MODIFIED_DESCRIPTION, content = @Content),
             @ApiResponse(responseCode = "404", description = "Product not found", content = @Content),
             @ApiResponse(responseCode = "400", description = "Invalid product ID", content = @Content)
     })
@@ -241,11 +521,28 @@ public class ProductController extends BaseItemController<Product> {
     public List<ProductComponentDto> getComponentsForProduct(
             @PathVariable
             @Min(value = 1, message = "Product ID must be greater than zero")
-            long productId
+            long productId,
+
+            WebRequest request
     ) {
-        return productComponentsService.getComponentsForProduct(productId).entrySet().stream()
-                .map(entry -> ProductComponentDto.from(entry.getKey(), entry.getValue()))
-                .collect(toList());
+        if (isNotModified(request, productComponentsService.getComponentsForProductMetadata(productId))) {
+            return null;
+        }
+        return productComponentsService.getComponentsForProduct(productId);
+    }
+
+    /**
+     * Evaluates the If-Match request header against the version of the
+     * product component entry, taken from the bill of materials.
+     */
+    private Long getExpectedEntryVersion(long productId, long componentId, String ifMatch) {
+        return EntityTag.expectedVersion(ifMatch, () -> productComponentsService.getComponentsForProduct(productId)
+                .stream()
+                .filter(entry -> entry.component().id() == componentId)
+                .findFirst()
+                .map(ProductComponentDto::version)
+                .orElseThrow(() -> new NotFoundException(String.format(
+                        "Product '%s' does not contain component '%s'", productId, componentId))));
     }
 
     // for Open API Documentation
@@ -4,13 +4,13 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.lang.Nullable;
-import org.springframework.validation.FieldError;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -45,8 +45,9 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
 
     /**
      * Handle the MethodArgumentNotValidException which is thrown
-     * when an input object's validation has failed. Override the
-     * corresponding method from the parent class.
+     * when an input object's validation or binding (e.g., of a query
+     * parameter object) has failed. Override the corresponding method
+     * from the parent class.
      */
     @Override
     public ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
@@ -56,7 +57,9 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
         return createResponseEntity(HttpStatus.BAD_REQUEST,
                 ex.getFieldErrors()
                         .stream()
-                        .map(FieldError::getDefaultMessage)
+                        .map(error -> error.isBindingFailure()
+                                ? String.format("'%s' has an invalid value", error.getField())
+                                : error.getDefaultMessage())
                         .collect(Collectors.joining("\n")));
     }
 
@@ -95,6 +98,22 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
         return createResponseEntity(HttpStatus.CONFLICT, e.getMessage());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException e) {
+        return createResponseEntity(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+    }
+
+    /**
+     * Handle the OptimisticLockingFailureException which is thrown by JPA
+     * when a versioned entity has been modified by a concurrent request
+     * between reading and writing it.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return createResponseEntity(HttpStatus.PRECONDITION_FAILED,
+                "The resource has been modified by another request, please re-read it and retry");
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleUnexpectedException(Exception e) {
         log.warn("Unexpected exception: " + e.getMessage());
@@ -0,0 +1,14 @@
+package com.theroom307.jcpm.core.controller.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * This exception is thrown when the version provided by the client in the
+     * If-Match header doesn't match the current version of the resource, i.e.
+     * the resource has been modified since the client has read it.
+     * @param message should describe which resource has been modified.
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,40 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import com.theroom307.jcpm.core.data.model.Component;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A component as shown in a bill of materials. Unlike
+ * {@link ComponentResponseDto} it has no usage count, so adding a component
+ * to a product or removing it doesn't change the bills of materials of the
+ * other products containing it.
+ */
+@Schema(name = "Bill of Materials Component")
+public record BomComponentDto(
+        @Schema(example = "1")
+        Long id,
+
+        @Schema(example = "Component Name")
+        String name,
+
+        @Schema(example = "Component description.")
+        String description,
+
+        @Schema(example = "2023-03-19T12:31:16Z")
+        String created,
+
+        @Schema(example = "2023-03-19T12:31:16Z")
+        String modified
+) {
+
+    public BomComponentDto(Long id, String name, String description, ZonedDateTime created, ZonedDateTime modified) {
+        this(id, name, description, IResponseDto.dateTimeToString(created), IResponseDto.dateTimeToString(modified));
+    }
+
+    public static BomComponentDto fromEntity(Component entity) {
+        return new BomComponentDto(entity.getId(), entity.getName(), entity.getDescription(),
+                entity.getCreated(), entity.getModified());
+    }
+}
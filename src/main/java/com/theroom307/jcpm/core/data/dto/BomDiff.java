@@ -0,0 +1,37 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * The changes applied to a bill of materials when it was replaced as a
+ * whole. Entries whose quantity didn't change are not listed.
+ */
+@Schema(name = "Bill of Materials Changes")
+public record BomDiff(
+        @Schema(description = "The components added to the product")
+        List<Entry> added,
+
+        @Schema(description = "The components whose quantity has changed, with the new quantity")
+        List<Entry> updated,
+
+        @Schema(description = "The IDs of the components removed from the product", example = "[3]")
+        List<Long> removed
+) {
+
+    public record Entry(
+            @JsonProperty("component_id")
+            @Schema(example = "2")
+            Long componentId,
+
+            @Schema(example = "1")
+            Integer quantity
+    ) {
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+}
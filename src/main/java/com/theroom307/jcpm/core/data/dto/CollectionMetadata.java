@@ -0,0 +1,23 @@
+package com.theroom307.jcpm.core.data.dto;
+
+/**
+ * Aggregated change markers of a collection of entities, read with a single
+ * aggregate query to answer conditional requests for lists.
+ * <p>
+ * Any change to the collection changes at least one of the values: creating
+ * an entity increases the maximum ID (IDs are never reused), deleting one
+ * decreases the count, and updating one increments its version.
+ *
+ * @param count      the number of entities
+ * @param maxId      the highest entity ID, null if the collection is empty
+ * @param versionSum the sum of the entity versions, null if the collection is empty
+ */
+public record CollectionMetadata(
+        Long count,
+        Long maxId,
+        Long versionSum
+) {
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.theroom307.jcpm.core.data.dto;
+
+/**
+ * The version of a collection counted in memory by its service, to answer
+ * conditional requests for lists without reading the database.
+ * <p>
+ * The services count every committed change of their items, so any change
+ * increases the number of changes. The start of the counting tells apart
+ * the numbers counted before and after a restart of the application.
+ *
+ * @param started the start of the counting, in milliseconds since the epoch
+ * @param changes the number of changes since the start
+ */
+public record CollectionVersion(
+        long started,
+        long changes
+) {
+}
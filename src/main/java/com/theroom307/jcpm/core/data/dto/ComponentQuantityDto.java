@@ -1,15 +1,50 @@
 package com.theroom307.jcpm.core.data.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
 @Data
 public class ComponentQuantityDto {
 
+    public static final int MAX_DELTA = 1_000_000;
+
     @JsonProperty("quantity")
-    @NotNull(message = "'quantity' is required")
+    @Schema(example = "3", description = "The new quantity; either this or 'delta' must be given")
     @Min(value = 1, message = "Quantity must be greater than zero")
     private Integer quantity;
-}
\ No newline at end of file
+
+    @JsonProperty("delta")
+    @Schema(example = "2", description = "The change of the current quantity, e.g. 2 or -1; " +
+            "applied atomically, the resulting quantity must stay greater than zero")
+    @Min(value = -MAX_DELTA, message = "Delta must not be less than " + -MAX_DELTA)
+    @Max(value = MAX_DELTA, message = "Delta must not be greater than " + MAX_DELTA)
+    private Integer delta;
+
+    @JsonIgnore
+    @AssertTrue(message = "Either 'quantity' or 'delta' is required")
+    public boolean isQuantityOrDeltaGiven() {
+        return quantity != null || delta != null;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Only one of 'quantity' and 'delta' can be given")
+    public boolean isNotBothGiven() {
+        return quantity == null || delta == null;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Delta must not be zero")
+    public boolean isDeltaNotZero() {
+        return delta == null || delta != 0;
+    }
+
+    @JsonIgnore
+    public boolean isDelta() {
+        return delta != null;
+    }
+}
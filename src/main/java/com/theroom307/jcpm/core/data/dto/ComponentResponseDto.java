@@ -1,8 +1,11 @@
 package com.theroom307.jcpm.core.data.dto;
 
-import com.theroom307.jcpm.core.data.model.Item;
+import com.theroom307.jcpm.core.data.model.Component;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.With;
+import org.springframework.data.annotation.PersistenceCreator;
+
+import java.time.ZonedDateTime;
 
 @Schema(name = "Get Component Response Body")
 @With
@@ -20,16 +23,32 @@ public record ComponentResponseDto(
         String created,
 
         @Schema(example = "2023-03-19T12:31:16Z")
-        String modified
+        String modified,
+
+        @Schema(example = "2", description = "Number of products containing this component, " +
+                "not reflected in the version and the modification time")
+        Integer usageCount
 ) implements IResponseDto {
 
-    public static ComponentResponseDto fromEntity(Item entity) {
+    /**
+     * Used by JPQL constructor expressions and repository projections
+     * to build the response without loading the entity.
+     */
+    @PersistenceCreator
+    public ComponentResponseDto(Long id, String name, String description,
+                                ZonedDateTime created, ZonedDateTime modified, Integer usageCount) {
+        this(id, name, description, IResponseDto.dateTimeToString(created), IResponseDto.dateTimeToString(modified),
+                usageCount);
+    }
+
+    public static ComponentResponseDto fromEntity(Component entity) {
         return new ComponentResponseDto(
                 entity.getId(),
                 entity.getName(),
                 entity.getDescription(),
                 IResponseDto.dateTimeToString(entity.getCreated()),
-                IResponseDto.dateTimeToString(entity.getModified())
+                IResponseDto.dateTimeToString(entity.getModified()),
+                entity.getUsageCount()
         );
     }
 }
@@ -0,0 +1,19 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * The numbers of rows removed when deleting products with their bills of
+ * materials.
+ */
+@Schema(name = "Deletion Counts")
+public record DeletionCounts(
+        @Schema(description = "The number of deleted products", example = "1")
+        int products,
+
+        @JsonProperty("product_components")
+        @Schema(description = "The number of deleted bill of materials entries", example = "3")
+        int productComponents
+) {
+}
@@ -1,7 +1,7 @@
 package com.theroom307.jcpm.core.data.dto;
 
+import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Item;
-import com.theroom307.jcpm.core.data.model.Product;
 
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -11,6 +11,8 @@ public interface IResponseDto {
 
     DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ISO_INSTANT.withZone(ZoneOffset.UTC);
 
+    Long id();
+
     static String dateTimeToString(ZonedDateTime dateTime) {
         return dateTime == null
                 ? null
@@ -18,9 +20,9 @@ public interface IResponseDto {
     }
 
     static IResponseDto fromEntity(Item entity) {
-        return entity instanceof Product
-                ? ProductResponseDto.fromEntity(entity)
-                : ComponentResponseDto.fromEntity(entity);
+        return entity instanceof Component component
+                ? ComponentResponseDto.fromEntity(component)
+                : ProductResponseDto.fromEntity(entity);
     }
 
 }
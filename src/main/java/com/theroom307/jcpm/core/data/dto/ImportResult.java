@@ -0,0 +1,35 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "Import Result")
+public record ImportResult(
+        @Schema(description = "The number of created items", example = "998")
+        long imported,
+
+        @Schema(description = "The number of rejected rows", example = "2")
+        long failed,
+
+        @Schema(description = "The reasons of the rejected rows, up to the first " + MAX_REPORTED_ERRORS)
+        List<RowError> errors,
+
+        @Schema(description = "The duration of the import in milliseconds", example = "420")
+        long durationMillis,
+
+        @Schema(description = "The number of processed rows per second", example = "2380")
+        long rowsPerSecond
+) {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    public record RowError(
+            @Schema(description = "The line of the row in the input, starting from 1", example = "42")
+            long line,
+
+            @Schema(example = "Component name is required")
+            String message
+    ) {
+    }
+}
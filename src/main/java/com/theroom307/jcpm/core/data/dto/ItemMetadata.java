@@ -0,0 +1,13 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The version and the modification time of an item, read without loading
+ * the item itself to answer conditional requests.
+ */
+public record ItemMetadata(
+        Long version,
+        ZonedDateTime modified
+) {
+}
@@ -0,0 +1,13 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "Item Suggestion")
+public record ItemSuggestion(
+        @Schema(example = "1")
+        Long id,
+
+        @Schema(example = "Gold ring")
+        String name
+) {
+}
@@ -1,19 +1,28 @@
 package com.theroom307.jcpm.core.data.dto;
 
-import com.theroom307.jcpm.core.data.model.Component;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.With;
 
+import java.time.ZonedDateTime;
+
 @Schema(name = "Product Component Response")
 @With
 public record ProductComponentDto(
         @Schema(description = "Component details")
-        ComponentResponseDto component,
+        BomComponentDto component,
 
         @Schema(example = "2", description = "Quantity of this component in the product")
-        Integer quantity
+        Integer quantity,
+
+        @Schema(example = "0", description = "Version of this entry, to be sent in the If-Match header " +
+                "when updating or removing the component")
+        Long version
 ) {
-        public static ProductComponentDto from(Component component, Integer quantity) {
-                return new ProductComponentDto(ComponentResponseDto.fromEntity(component), quantity);
+        /**
+         * Used by JPQL constructor expressions to read a bill of materials in a single query.
+         */
+        public ProductComponentDto(Long componentId, String name, String description,
+                                   ZonedDateTime created, ZonedDateTime modified, Integer quantity, Long version) {
+                this(new BomComponentDto(componentId, name, description, created, modified), quantity, version);
         }
 }
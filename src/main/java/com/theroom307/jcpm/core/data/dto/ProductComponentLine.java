@@ -0,0 +1,32 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * One entry of a bill of materials, identified by the product and component
+ * IDs, as exported and imported in bulk.
+ */
+@Schema(name = "Product Component Line")
+public record ProductComponentLine(
+        @JsonProperty("product_id")
+        @Schema(example = "1")
+        @NotNull(message = "'product_id' is required")
+        Long productId,
+
+        @JsonProperty("component_id")
+        @Schema(example = "2")
+        @NotNull(message = "'component_id' is required")
+        Long componentId,
+
+        @Schema(example = "3", description = "1 if not given")
+        @Min(value = 1, message = "Quantity must be greater than zero")
+        Integer quantity
+) {
+
+    public int quantityOrDefault() {
+        return quantity == null ? 1 : quantity;
+    }
+}
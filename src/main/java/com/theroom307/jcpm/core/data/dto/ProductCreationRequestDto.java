@@ -0,0 +1,35 @@
+package com.theroom307.jcpm.core.data.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * The body of the single product creation, the only request that can add
+ * components along with the product. The batch creation, the edit and the
+ * import take a {@link ProductRequestDto}, which has no components to drop.
+ */
+@Schema(name = "Create Product With Components Request Body")
+public record ProductCreationRequestDto(
+        @Schema(example = "Product Name")
+        @NotBlank(message = "Product name is required")
+        String name,
+
+        @Schema(example = "Product description.")
+        String description,
+
+        @Schema(description = "Optional: the components to add to the new product in the same transaction")
+        List<@NotNull(message = "A component entry must not be null") @Valid ComponentAddDto> components
+) {
+
+    public boolean hasComponents() {
+        return components != null && !components.isEmpty();
+    }
+
+    public ProductRequestDto product() {
+        return new ProductRequestDto(name, description);
+    }
+}
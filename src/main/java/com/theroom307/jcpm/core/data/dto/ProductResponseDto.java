@@ -3,6 +3,9 @@ package com.theroom307.jcpm.core.data.dto;
 import com.theroom307.jcpm.core.data.model.Item;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.With;
+import org.springframework.data.annotation.PersistenceCreator;
+
+import java.time.ZonedDateTime;
 
 @Schema(name = "Get Product Response Body")
 @With
@@ -23,6 +26,16 @@ public record ProductResponseDto (
         String modified
 ) implements IResponseDto {
 
+    /**
+     * Used by JPQL constructor expressions and repository projections
+     * to build the response without loading the entity.
+     */
+    @PersistenceCreator
+    public ProductResponseDto(Long id, String name, String description,
+                              ZonedDateTime created, ZonedDateTime modified) {
+        this(id, name, description, IResponseDto.dateTimeToString(created), IResponseDto.dateTimeToString(modified));
+    }
+
     public static ProductResponseDto fromEntity(Item entity) {
         return new ProductResponseDto(
                 entity.getId(),
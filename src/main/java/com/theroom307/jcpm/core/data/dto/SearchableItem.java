@@ -0,0 +1,7 @@
+package com.theroom307.jcpm.core.data.dto;
+
+/**
+ * The text of an item to be indexed for search, read without loading the entity.
+ */
+public record SearchableItem(Long id, String name, String description) {
+}
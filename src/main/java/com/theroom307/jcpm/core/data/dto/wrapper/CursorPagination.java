@@ -0,0 +1,33 @@
+package com.theroom307.jcpm.core.data.dto.wrapper;
+
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Slice;
+
+public record CursorPagination(
+        @Schema(description = "The size of the returned page", example = "10")
+        long size,
+
+        @Schema(description = "The number of items in the response", example = "1")
+        long count,
+
+        @Schema(description = "The cursor to pass as 'after' to get the next page; null on the last page",
+                example = "MTA")
+        String next
+) {
+
+    public static CursorPagination from(Slice<? extends IResponseDto> slice) {
+        var items = slice.getContent();
+        String next = null;
+        if (slice instanceof KeysetSlice<?> keysetSlice) {
+            next = keysetSlice.getNext() != null ? keysetSlice.getNext().encode() : null;
+        } else if (slice.hasNext() && !items.isEmpty()) {
+            next = ItemCursor.of(items.getLast()).encode();
+        }
+        return new CursorPagination(
+                slice.getSize(),
+                slice.getNumberOfElements(),
+                next
+        );
+    }
+}
@@ -0,0 +1,122 @@
+package com.theroom307.jcpm.core.data.dto.wrapper;
+
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last item returned by a cursor-paginated list request.
+ * Clients receive it as an opaque token and send it back in the {@code after}
+ * parameter to continue reading from the next item, which lets the database
+ * seek by an index instead of skipping over an offset.
+ * <p>
+ * In a list sorted by another field than the ID, the cursor also holds the
+ * sort and the sort value of the last item, which is compared before the ID.
+ * The token of the ID order is just the ID, so the tokens issued before
+ * sorting was supported remain valid. The token of an item without a sort
+ * value leaves the value out, so it differs from the one of an empty name.
+ *
+ * @param key the sort value of the last item: a {@link String} name or a
+ *            {@link ZonedDateTime}; null in the ID order or if the item has
+ *            no value
+ */
+public record ItemCursor(long id, ItemSort sort, Object key) {
+
+    public ItemCursor(long id) {
+        this(id, ItemSort.DEFAULT, null);
+    }
+
+    /**
+     * The cursor pointing before the first item of the given sort.
+     */
+    public static ItemCursor start(ItemSort sort) {
+        return new ItemCursor(0, sort, null);
+    }
+
+    public static ItemCursor of(IResponseDto item) {
+        return new ItemCursor(item.id());
+    }
+
+    /**
+     * @return true if the cursor points before the first item of its sort
+     */
+    public boolean isStart() {
+        return id == 0;
+    }
+
+    public String encode() {
+        String value;
+        if (sort.field() == ItemSort.Field.ID) {
+            value = Long.toString(id);
+        } else if (key == null) {
+            value = id + ":" + sort.encode();
+        } else {
+            value = id + ":" + sort.encode() + ":" + encodeKey();
+        }
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String encodeKey() {
+        return key instanceof ZonedDateTime dateTime
+                ? dateTime.toInstant().toString()
+                : key.toString();
+    }
+
+    /**
+     * @param token the token returned in a previous response, or a blank
+     *              string to start from the first item
+     * @throws BadRequestException if the token is malformed
+     */
+    public static ItemCursor decode(String token) {
+        return decode(token, ItemSort.DEFAULT);
+    }
+
+    /**
+     * @param sort the sort of the requested list, which the token must have
+     *             been issued for
+     * @throws BadRequestException if the token is malformed or was issued
+     *                             for another sort
+     */
+    public static ItemCursor decode(String token, ItemSort sort) {
+        if (token.isBlank()) {
+            return start(sort);
+        }
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            var parts = decoded.split(":", 3);
+            var id = Long.parseLong(parts[0]);
+            if (id < 0) {
+                throw new IllegalArgumentException();
+            }
+            if (parts.length == 1 && sort.field() == ItemSort.Field.ID) {
+                return new ItemCursor(id, sort, null);
+            }
+            if (parts.length == 1 || !ItemSort.parse(parts[1]).equals(sort)) {
+                throw new IllegalArgumentException();
+            }
+            var key = parts.length == 3 ? decodeKey(sort.field(), parts[2]) : null;
+            if (key == null && sort.field() == ItemSort.Field.ID) {
+                throw new IllegalArgumentException();
+            }
+            return new ItemCursor(id, sort, key);
+        } catch (IllegalArgumentException | DateTimeParseException | BadRequestException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private static Object decodeKey(ItemSort.Field field, String key) {
+        return switch (field) {
+            case NAME -> key;
+            case CREATED, MODIFIED -> Instant.parse(key).atZone(ZoneOffset.UTC);
+            case ID -> throw new IllegalArgumentException();
+        };
+    }
+}
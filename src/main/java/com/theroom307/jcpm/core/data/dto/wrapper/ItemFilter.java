@@ -0,0 +1,38 @@
+package com.theroom307.jcpm.core.data.dto.wrapper;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.ZonedDateTime;
+
+/**
+ * The conditions of a filtered item list, bound from the query parameters
+ * of the same names; null values don't restrict the list.
+ */
+public record ItemFilter(
+        @Schema(description = "Filter: the start of the name, case-sensitive", example = "Gold")
+        String namePrefix,
+
+        @Schema(description = "Filter: the earliest creation time, inclusive", example = "2023-03-19T00:00:00Z")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        ZonedDateTime createdFrom,
+
+        @Schema(description = "Filter: the latest creation time, exclusive", example = "2023-03-20T00:00:00Z")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        ZonedDateTime createdTo,
+
+        @Schema(description = "Filter: the earliest modification time, inclusive", example = "2023-03-19T00:00:00Z")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        ZonedDateTime modifiedFrom,
+
+        @Schema(description = "Filter: the latest modification time, exclusive", example = "2023-03-20T00:00:00Z")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        ZonedDateTime modifiedTo
+) {
+
+    public static final ItemFilter NONE = new ItemFilter(null, null, null, null, null);
+
+    public boolean isEmpty() {
+        return NONE.equals(this);
+    }
+}
@@ -0,0 +1,70 @@
+package com.theroom307.jcpm.core.data.dto.wrapper;
+
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The order of a sorted item list, given by clients as {@code field[,asc|desc]},
+ * e.g. {@code name} or {@code created,desc}. Items with equal values are
+ * ordered by ID in the same direction, so the order is total and can be
+ * continued with an {@link ItemCursor}. Items without a value are sorted as
+ * if it were the lowest one: first in the ascending order, last in the
+ * descending one.
+ */
+public record ItemSort(Field field, Sort.Direction direction) {
+
+    public enum Field {
+        ID("id"),
+        NAME("name"),
+        CREATED("created"),
+        MODIFIED("modified");
+
+        private final String property;
+
+        Field(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+    }
+
+    /**
+     * The order of the cursor-paginated lists when no sort is requested.
+     */
+    public static final ItemSort DEFAULT = new ItemSort(Field.ID, Sort.Direction.ASC);
+
+    public String encode() {
+        return field.getProperty() + "," + direction.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws BadRequestException if the field or the direction is unknown
+     */
+    public static ItemSort parse(String value) {
+        var parts = value.split(",", -1);
+        if (parts.length > 2) {
+            throw invalidSort(value);
+        }
+        var field = Arrays.stream(Field.values())
+                .filter(f -> f.getProperty().equalsIgnoreCase(parts[0].strip()))
+                .findFirst()
+                .orElseThrow(() -> invalidSort(value));
+        if (parts.length == 1) {
+            return new ItemSort(field, Sort.Direction.ASC);
+        }
+        return Sort.Direction.fromOptionalString(parts[1].strip())
+                .map(direction -> new ItemSort(field, direction))
+                .orElseThrow(() -> invalidSort(value));
+    }
+
+    private static BadRequestException invalidSort(String value) {
+        return new BadRequestException(String.format(
+                "Invalid sort '%s', expected one of id, name, created, modified, optionally followed by ',asc' or ',desc'",
+                value));
+    }
+}
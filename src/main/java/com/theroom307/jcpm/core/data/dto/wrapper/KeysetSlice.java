@@ -0,0 +1,28 @@
+package com.theroom307.jcpm.core.data.dto.wrapper;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * A slice of a sorted list read after a cursor. It carries the cursor of its
+ * last item, built from the sort value as stored, since the response DTOs
+ * only have the times truncated to seconds.
+ */
+public class KeysetSlice<T> extends SliceImpl<T> {
+
+    private final transient ItemCursor next;
+
+    /**
+     * @param next the cursor to continue after this slice, or null on the last slice
+     */
+    public KeysetSlice(List<T> content, int size, ItemCursor next) {
+        super(content, PageRequest.ofSize(size), next != null);
+        this.next = next;
+    }
+
+    public ItemCursor getNext() {
+        return next;
+    }
+}
@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.data.dto.wrapper;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.theroom307.jcpm.core.data.dto.IResponseDto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
@@ -12,7 +13,9 @@ import java.util.List;
 @EqualsAndHashCode
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ListResponseWrapper<T extends IResponseDto> {
     private List<T> data;
     private Pagination pagination;
+    private CursorPagination cursor;
 }
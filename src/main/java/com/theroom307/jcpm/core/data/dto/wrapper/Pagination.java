@@ -1,8 +1,11 @@
 package com.theroom307.jcpm.core.data.dto.wrapper;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record Pagination(
         @Schema(description = "Page index", example = "0")
         long page,
@@ -13,17 +16,26 @@ public record Pagination(
         @Schema(description = "The number of items in the response", example = "1")
         long count,
 
-        @Schema(description = "Total number of items", example = "1")
-        long total
+        @Schema(description = "Total number of items; omitted when the total was not requested", example = "1")
+        Long total,
+
+        @Schema(description = "Whether there are more items after this page", example = "false")
+        boolean hasNext
 ) {
 
-    public static Pagination from(Page<?> page) {
-        var pageable = page.getPageable();
+    /**
+     * Creates the pagination info for the given page or slice. The total
+     * is only available for a {@link Page}, since a plain {@link Slice} is
+     * fetched without the count query.
+     */
+    public static Pagination from(Slice<?> slice) {
+        var pageable = slice.getPageable();
         return new Pagination(
                 pageable.getPageNumber(),
                 pageable.getPageSize(),
-                page.getNumberOfElements(),
-                page.getTotalElements()
+                slice.getNumberOfElements(),
+                slice instanceof Page<?> page ? page.getTotalElements() : null,
+                slice.hasNext()
         );
     }
 }
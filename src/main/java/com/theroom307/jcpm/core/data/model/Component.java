@@ -1,7 +1,31 @@
 package com.theroom307.jcpm.core.data.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
+/**
+ * The indexes serve the sorted and filtered component lists, as for {@link Product}.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_component_name_id", columnList = "name, id"),
+        @Index(name = "idx_component_created_id", columnList = "created, id"),
+        @Index(name = "idx_component_modified_id", columnList = "modified, id")
+})
+@Getter
+@Setter
+@ToString(callSuper = true)
 public class Component extends Item {
+
+    /**
+     * The number of products containing this component, maintained by the
+     * statements adding and removing the product components.
+     */
+    @ColumnDefault("0")
+    private Integer usageCount = 0;
 }
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -32,6 +33,13 @@ public abstract class Item {
     @UpdateTimestamp
     protected ZonedDateTime modified;
 
+    /**
+     * Optimistic locking version, exposed to the clients as the ETag.
+     */
+    @Version
+    @ColumnDefault("0")
+    protected Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
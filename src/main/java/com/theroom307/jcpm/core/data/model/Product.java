@@ -1,7 +1,18 @@
 package com.theroom307.jcpm.core.data.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
+/**
+ * The indexes serve the sorted and filtered product lists: each one ends
+ * with the ID, which breaks the ties of the sort and continues the cursor.
+ */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        @Index(name = "idx_product_created_id", columnList = "created, id"),
+        @Index(name = "idx_product_modified_id", columnList = "modified, id")
+})
 public class Product extends Item {
 }
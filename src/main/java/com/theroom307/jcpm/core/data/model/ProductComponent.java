@@ -3,6 +3,7 @@ package com.theroom307.jcpm.core.data.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.Objects;
 
@@ -10,11 +11,21 @@ import java.util.Objects;
 @Setter
 @Builder
 @Entity
-@Table(name = "product_components")
+@Table(name = "product_components",
+        uniqueConstraints = @UniqueConstraint(
+                name = ProductComponent.PRODUCT_COMPONENT_UNIQUE_CONSTRAINT,
+                columnNames = {"product_id", "component_id"}))
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
 public class ProductComponent {
+
+    /**
+     * A product can contain a component only once. The constraint's index
+     * also serves the lookups of an entry by product and component.
+     */
+    public static final String PRODUCT_COMPONENT_UNIQUE_CONSTRAINT = "uk_product_components_product_component";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_components_seq")
     @SequenceGenerator(name = "product_components_seq")
@@ -29,6 +40,10 @@ public class ProductComponent {
     @Builder.Default
     private Integer quantity = 1;
 
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
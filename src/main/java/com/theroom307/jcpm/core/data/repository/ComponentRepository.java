@@ -1,6 +1,82 @@
 package com.theroom307.jcpm.core.data.repository;
 
 import com.theroom307.jcpm.core.data.model.Component;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 public interface ComponentRepository extends ItemRepository<Component> {
+
+    /**
+     * Deletes the component in one statement unless some product contains it.
+     * A concurrent insert of a product component referencing it is rejected
+     * by the foreign key, so no lock is needed.
+     *
+     * @param expectedVersion when not null, the component is only deleted if
+     *                        it still has this version
+     * @return the number of deleted rows, i.e. 0 if the component doesn't
+     * exist, is in use, or its version doesn't match
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Component c where c.id = :id " +
+           "and (:version is null or c.version = :version) " +
+           "and not exists (select p.id from ProductComponent p where p.component.id = :id)")
+    int deleteUnusedById(@Param("id") @NonNull Long id, @Param("version") Long expectedVersion);
+
+    /**
+     * Counts one more product containing the component. The usage count is
+     * derived from the product components, so neither the modification time
+     * nor the version of the component are updated; otherwise every product
+     * containing it would see a changed component in its bill of materials
+     * and clients holding its tag would fail their next update.
+     *
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update Component c set c.usageCount = c.usageCount + 1 where c.id = :id")
+    int incrementUsageCount(@Param("id") @NonNull Long id);
+
+    /**
+     * Counts one product less containing the component.
+     *
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update Component c set c.usageCount = c.usageCount - 1 where c.id = :id and c.usageCount > 0")
+    int decrementUsageCount(@Param("id") @NonNull Long id);
+
+    /**
+     * Recounts the usage of the components whose counter doesn't match
+     * their product components, e.g. for data written before the counter
+     * existed.
+     *
+     * @return the number of corrected components
+     */
+    @Transactional
+    @Modifying
+    @Query("update Component c set " +
+           "c.usageCount = (select count(p) from ProductComponent p where p.component.id = c.id), " +
+           "where c.usageCount is null " +
+           "or c.usageCount <> (select count(p) from ProductComponent p where p.component.id = c.id)")
+    int recountUsage();
+
+    /**
+     * Recounts the usage of the given components, after product components
+     * have been added or removed in bulk.
+     *
+     * @return the number of updated components
+     */
+    @Transactional
+    @Modifying
+    @Query("update Component c set " +
+           "c.usageCount = (select count(p) from ProductComponent p where p.component.id = c.id), " +
+           "where c.id in :ids")
+    int recountUsageByIdIn(@Param("ids") @NonNull Collection<Long> ids);
 }
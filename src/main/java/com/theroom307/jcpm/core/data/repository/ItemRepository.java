@@ -1,22 +1,141 @@
 package com.theroom307.jcpm.core.data.repository;
 
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
 import com.theroom307.jcpm.core.data.model.Item;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.lang.NonNull;
 import org.springframework.transaction.annotation.Transactional;
 
-public interface ItemRepository<T extends Item> extends JpaRepository<T, Long> {
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * The {@code find*Projected*} methods select the item columns straight into
+ * the given DTO type (e.g. a response record) via its
+ * {@link org.springframework.data.annotation.PersistenceCreator} constructor,
+ * so no managed entities are created for read-only requests.
+ */
+public interface ItemRepository<T extends Item> extends JpaRepository<T, Long>, SortedItemRepository {
+
+    /**
+     * The number of rows the JDBC driver fetches at a time for the streaming queries.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    @Transactional(readOnly = true)
+    <D> Optional<D> findProjectedById(@NonNull Long id, Class<D> type);
+
+    @Transactional(readOnly = true)
+    <D> Page<D> findProjectedBy(Pageable pageable, Class<D> type);
+
+    /**
+     * Returns the requested page without issuing the count query.
+     */
+    @Transactional(readOnly = true)
+    <D> Slice<D> findSliceProjectedBy(Pageable pageable, Class<D> type);
+
+    /**
+     * Keyset pagination: returns the items with IDs greater than the given one,
+     * ordered by ID. The slice is fetched without a count query.
+     */
+    @Transactional(readOnly = true)
+    <D> Slice<D> findProjectedByIdGreaterThanOrderByIdAsc(long afterId, Pageable pageable, Class<D> type);
+
+    /**
+     * Streams all items ordered by ID, for exports. The stream must be read
+     * and closed within a read-only transaction. The rows are fetched in
+     * batches of {@link #STREAM_FETCH_SIZE} and the projections aren't
+     * managed, so neither the memory use nor the persistence context grows
+     * with the number of items.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    <D> Stream<D> streamProjectedByOrderByIdAsc(Class<D> type);
+
+    /**
+     * Returns those of the given IDs that exist, for checking references in bulk.
+     */
+    @Transactional(readOnly = true)
+    @Query("select t.id from #{#entityName} t where t.id in ?1")
+    List<Long> findExistingIds(@NonNull Collection<Long> ids);
+
+    /**
+     * Reads the given items in no particular order.
+     */
+    @Transactional(readOnly = true)
+    <D> List<D> findProjectedByIdIn(@NonNull Collection<Long> ids, Class<D> type);
+
+    /**
+     * Finds the items containing the text in their name or description,
+     * for searching while the search index is not ready yet.
+     */
+    @Transactional(readOnly = true)
+    <D> Page<D> findProjectedByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+            String name, String description, Pageable pageable, Class<D> type);
+
+    /**
+     * Finds the items whose name starts with the text, for suggestions while
+     * the search index is not ready yet.
+     */
+    @Transactional(readOnly = true)
+    <D> List<D> findProjectedByNameStartingWithIgnoreCaseOrderByNameAsc(String name, Pageable pageable, Class<D> type);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.theroom307.jcpm.core.data.dto.ItemMetadata(t.version, t.modified) " +
+           "from #{#entityName} t where t.id = ?1")
+    Optional<ItemMetadata> findMetadataById(@NonNull Long id);
+
+    /**
+     * Applies a partial update in one statement: null values keep the current
+     * name or description. Bulk updates bypass {@code @UpdateTimestamp} and
+     * {@code @Version}, so the modification time is passed explicitly and
+     * the version is incremented by the statement itself.
+     *
+     * @param expectedVersion when not null, the item is only updated if it
+     *                        still has this version
+     * @return the number of updated rows, i.e. 0 if the item doesn't exist
+     * or its version doesn't match
+     */
+    @Transactional
+    @Modifying
+    @Query("update #{#entityName} t set t.name = coalesce(?1, t.name), " +
+           "t.description = coalesce(?2, t.description), t.modified = ?3, t.version = t.version + 1 " +
+           "where t.id = ?4 and (?5 is null or t.version = ?5)")
+    int updateById(String name, String description, ZonedDateTime modified, @NonNull Long itemId,
+                   Long expectedVersion);
+
+    /**
+     * Deletes the item in one statement, without loading it.
+     *
+     * @param expectedVersion when not null, the item is only deleted if it
+     *                        still has this version
+     * @return the number of deleted rows, i.e. 0 if the item doesn't exist
+     * or its version doesn't match
+     */
     @Transactional
     @Modifying
-    @Query("update #{#entityName} t set t.name = ?1 where t.id = ?2")
-    void updateNameById(String name, @NonNull Long itemId);
+    @Query("delete from #{#entityName} t where t.id = ?1 and (?2 is null or t.version = ?2)")
+    int deleteByIdAndVersion(@NonNull Long itemId, Long expectedVersion);
 
+    /**
+     * Deletes the items in one statement, without loading them.
+     *
+     * @return the number of deleted rows
+     */
     @Transactional
     @Modifying
-    @Query("update #{#entityName} t set t.description = ?1 where t.id = ?2")
-    void updateDescriptionById(String description, @NonNull Long itemId);
+    @Query("delete from #{#entityName} t where t.id in ?1")
+    int deleteByIdIn(@NonNull Collection<Long> ids);
 
 }
@@ -1,25 +1,132 @@
 package com.theroom307.jcpm.core.data.repository;
 
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
 import com.theroom307.jcpm.core.data.model.ProductComponent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductComponentRepository extends JpaRepository<ProductComponent, Long> {
 
     @Query("select p from ProductComponent p where p.product.id = ?1 and p.component.id = ?2")
     Optional<ProductComponent> findProductComponent(@NonNull Long productId, @NonNull Long componentId);
 
-    @Query("select count(p) from ProductComponent p where p.component.id = :id")
-    long countComponentUsage(@Param("id") @NonNull Long id);
+    /**
+     * Adds the delta to the quantity of an entry in one statement, so that
+     * concurrent adjustments add up instead of overwriting each other. The
+     * version is incremented by the statement itself. The sum is computed
+     * as a long, so that an overflowing quantity fails the condition instead
+     * of the statement.
+     *
+     * @param expectedVersion when not null, the entry is only updated if it
+     *                        still has this version
+     * @return the number of updated rows, i.e. 0 if there is no such entry,
+     * its version doesn't match, or the quantity wouldn't stay between 1 and
+     * {@link Integer#MAX_VALUE}
+     */
+    @Transactional
+    @Modifying
+    @Query("update ProductComponent p set p.quantity = p.quantity + ?3, p.version = p.version + 1 " +
+           "where p.product.id = ?1 and p.component.id = ?2 " +
+           "and cast(p.quantity as Long) + ?3 between 1 and 2147483647 " +
+           "and (?4 is null or p.version = ?4)")
+    int adjustQuantity(@NonNull Long productId, @NonNull Long componentId, int delta, Long expectedVersion);
 
-    @Query("select p from ProductComponent p where p.product.id = :productId")
-    List<ProductComponent> findAllByProductId(@Param("productId") @NonNull Long productId);
+    /**
+     * Copies the entries of a product to each of the given products with a
+     * single INSERT ... SELECT, without loading them. The IDs of the copies
+     * are generated by Hibernate, and their version starts at 0.
+     *
+     * @return the number of inserted entries
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into ProductComponent (product, component, quantity, version) " +
+           "select clone, p.component, p.quantity, 0L " +
+           "from ProductComponent p, Product clone " +
+           "where p.product.id = :sourceId and clone.id in :cloneIds")
+    int copyEntries(@Param("sourceId") @NonNull Long sourceId, @Param("cloneIds") @NonNull Collection<Long> cloneIds);
 
-    @Query("select p from ProductComponent p where p.component.id = :componentId")
-    List<ProductComponent> findAllByComponentId(@Param("componentId") @NonNull Long componentId);
+    /**
+     * Deletes all entries of the products in one statement, without loading
+     * them.
+     *
+     * @return the number of deleted entries
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ProductComponent p where p.product.id in ?1")
+    int deleteByProductIdIn(@NonNull Collection<Long> productIds);
+
+    @Query("select p.product.id, p.component.id from ProductComponent p where p.product.id in :productIds")
+    List<Object[]> findProductAndComponentIdsByProductIdIn(@Param("productIds") @NonNull Collection<Long> productIds);
+
+    /**
+     * Reads the entries of a product with their components in one query,
+     * instead of one more query per eagerly loaded component.
+     */
+    @Query("select p from ProductComponent p join fetch p.component join fetch p.product " +
+           "where p.product.id = :productId")
+    List<ProductComponent> findAllWithComponentsByProductId(@Param("productId") @NonNull Long productId);
+
+    /**
+     * Reads the bill of materials of a product in a single query, selecting
+     * the component columns straight into the response records.
+     */
+    @Query("select new com.theroom307.jcpm.core.data.dto.ProductComponentDto(" +
+           "c.id, c.name, c.description, c.created, c.modified, p.quantity, p.version) " +
+           "from ProductComponent p join p.component c where p.product.id = :productId order by p.id")
+    List<ProductComponentDto> findComponentDtosByProductId(@Param("productId") @NonNull Long productId);
+
+    /**
+     * Aggregates the versions of the bill of materials entries of a product
+     * and of their components, so that a change to either is detected.
+     */
+    @Query("select new com.theroom307.jcpm.core.data.dto.CollectionMetadata(" +
+           "count(p), max(p.id), sum(p.version) + sum(c.version)) " +
+           "from ProductComponent p join p.component c where p.product.id = :productId")
+    CollectionMetadata findBomMetadataByProductId(@Param("productId") @NonNull Long productId);
+
+    /**
+     * Reads the component and product IDs of all entries, as {@code Long}
+     * pairs ordered by component and product, for building the where-used index.
+     */
+    @Query("select p.component.id, p.product.id from ProductComponent p order by p.component.id, p.product.id")
+    List<Object[]> findAllComponentAndProductIds();
+
+    /**
+     * Streams all entries ordered by product and component, for exports;
+     * see {@link ItemRepository#streamProjectedByOrderByIdAsc(Class)}.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = ItemRepository.STREAM_FETCH_SIZE))
+    @Query("select new com.theroom307.jcpm.core.data.dto.ProductComponentLine(" +
+           "p.product.id, p.component.id, p.quantity) " +
+           "from ProductComponent p order by p.product.id, p.component.id")
+    Stream<ProductComponentLine> streamAllLines();
+
+    /**
+     * Reads the product and component IDs of the entries of the given
+     * products containing any of the given components, as {@code Long} pairs.
+     */
+    @Query("select p.product.id, p.component.id from ProductComponent p " +
+           "where p.product.id in :productIds and p.component.id in :componentIds")
+    List<Object[]> findProductAndComponentIds(@Param("productIds") @NonNull Collection<Long> productIds,
+                                              @Param("componentIds") @NonNull Collection<Long> componentIds);
+
+    @Query("select p.product.id from ProductComponent p where p.component.id = :componentId")
+    List<Long> findProductIdsByComponentId(@Param("componentId") @NonNull Long componentId);
 }
@@ -1,14 +1,46 @@
 package com.theroom307.jcpm.core.data.repository;
 
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
 import com.theroom307.jcpm.core.data.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ProductRepository extends ItemRepository<Product> {
-    
-    @Query("SELECT DISTINCT p FROM Product p JOIN ProductComponent pc ON p.id = pc.product.id WHERE pc.component.id = :componentId")
-    Page<Product> findDistinctByComponentId(@Param("componentId") @NonNull Long componentId, Pageable pageable);
+
+    String PRODUCT_RESPONSE = "new com.theroom307.jcpm.core.data.dto.ProductResponseDto(" +
+                              "p.id, p.name, p.description, p.created, p.modified)";
+
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT DISTINCT " + PRODUCT_RESPONSE + " FROM Product p " +
+                   "JOIN ProductComponent pc ON p.id = pc.product.id WHERE pc.component.id = :componentId",
+           countQuery = "SELECT COUNT(DISTINCT p) FROM Product p " +
+                        "JOIN ProductComponent pc ON p.id = pc.product.id WHERE pc.component.id = :componentId")
+    Page<ProductResponseDto> findDistinctByComponentId(@Param("componentId") @NonNull Long componentId,
+                                                       Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT DISTINCT " + PRODUCT_RESPONSE + " FROM Product p " +
+           "JOIN ProductComponent pc ON p.id = pc.product.id WHERE pc.component.id = :componentId")
+    Slice<ProductResponseDto> findDistinctSliceByComponentId(@Param("componentId") @NonNull Long componentId,
+                                                             Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT DISTINCT " + PRODUCT_RESPONSE + " FROM Product p " +
+           "JOIN ProductComponent pc ON p.id = pc.product.id " +
+           "WHERE pc.component.id = :componentId AND p.id > :afterId ORDER BY p.id")
+    Slice<ProductResponseDto> findDistinctByComponentIdAfter(@Param("componentId") @NonNull Long componentId,
+                                                             @Param("afterId") long afterId,
+                                                             Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT " + PRODUCT_RESPONSE + " FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductResponseDto> findAllByIdInOrderById(@Param("ids") @NonNull Collection<Long> ids);
 }
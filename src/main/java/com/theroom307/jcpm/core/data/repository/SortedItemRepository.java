@@ -0,0 +1,33 @@
+package com.theroom307.jcpm.core.data.repository;
+
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import com.theroom307.jcpm.core.data.model.Item;
+
+import java.util.List;
+
+/**
+ * Sorted and filtered item lists, built from the conditions actually given,
+ * so that each query only has the predicates an index can serve.
+ * <p>
+ * Only the IDs and sort values are selected; the items are then read by
+ * their IDs with {@link ItemRepository#findProjectedByIdIn}.
+ */
+public interface SortedItemRepository {
+
+    /**
+     * @param sortKey the value of the sort field, or the ID in the ID order
+     */
+    record ItemKey(long id, Object sortKey) {
+    }
+
+    /**
+     * Returns the keys of the matching items in the given order, starting
+     * after the cursor (if it isn't at the start) and skipping the offset.
+     */
+    List<ItemKey> findKeys(Class<? extends Item> entityType, ItemFilter filter, ItemSort sort,
+                           ItemCursor after, long offset, int limit);
+
+    long countFiltered(Class<? extends Item> entityType, ItemFilter filter);
+}
@@ -0,0 +1,139 @@
+package com.theroom307.jcpm.core.data.repository;
+
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import com.theroom307.jcpm.core.data.model.Item;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@SuppressWarnings("unused")
+public class SortedItemRepositoryImpl implements SortedItemRepository {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ItemKey> findKeys(Class<? extends Item> entityType, ItemFilter filter, ItemSort sort,
+                                  ItemCursor after, long offset, int limit) {
+        // the Hibernate builder can place the null keys explicitly, whatever the database default is
+        var cb = entityManager.unwrap(Session.class).getCriteriaBuilder();
+        var query = cb.createQuery(Object[].class);
+        var root = query.from(entityType);
+
+        Expression<Long> id = root.get("id");
+        var key = root.get(sort.field().getProperty());
+        var ascending = sort.direction().isAscending();
+
+        var predicates = filterPredicates(cb, root, filter);
+        if (!after.isStart()) {
+            predicates.add(sort.field() == ItemSort.Field.ID
+                    ? compare(cb, id, after.id(), ascending, false)
+                    : afterKey(cb, key, id, after, ascending));
+        }
+
+        var idOrder = ascending ? cb.asc(id) : cb.desc(id);
+        query.multiselect(id, key)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(sort.field() == ItemSort.Field.ID
+                        ? List.of(idOrder)
+                        : List.of(ascending ? cb.asc(key, true) : cb.desc(key, false), idOrder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(row -> new ItemKey((Long) row[0], row[1]))
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countFiltered(Class<? extends Item> entityType, ItemFilter filter) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Long.class);
+        var root = query.from(entityType);
+
+        query.select(cb.count(root))
+                .where(filterPredicates(cb, root, filter).toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Predicate> filterPredicates(CriteriaBuilder cb, Root<? extends Item> root, ItemFilter filter) {
+        var predicates = new ArrayList<Predicate>();
+        if (filter.namePrefix() != null) {
+            // a case-sensitive prefix without leading wildcard is a range of the name index
+            predicates.add(cb.like(root.get("name"), escapeLike(filter.namePrefix()) + "%", LIKE_ESCAPE));
+        }
+        Expression<ZonedDateTime> created = root.get("created");
+        if (filter.createdFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(created, filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            predicates.add(cb.lessThan(created, filter.createdTo()));
+        }
+        Expression<ZonedDateTime> modified = root.get("modified");
+        if (filter.modifiedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(modified, filter.modifiedFrom()));
+        }
+        if (filter.modifiedTo() != null) {
+            predicates.add(cb.lessThan(modified, filter.modifiedTo()));
+        }
+        return predicates;
+    }
+
+    /**
+     * The rows after the cursor in the (key, id) order. The redundant
+     * {@code key >= cursor key} bound lets the database start a range scan
+     * of the key index at the cursor rather than filter the whole index.
+     * The null keys are the lowest, matching the order by clause; they can't
+     * be compared, so they are checked with {@code is null}.
+     */
+    private static Predicate afterKey(CriteriaBuilder cb, Expression<?> key, Expression<Long> id,
+                                      ItemCursor after, boolean ascending) {
+        if (after.key() == null) {
+            var afterInNulls = cb.and(cb.isNull(key), compare(cb, id, after.id(), ascending, false));
+            return ascending ? cb.or(afterInNulls, cb.isNotNull(key)) : afterInNulls;
+        }
+        var afterValue = cb.and(
+                compare(cb, key, after.key(), ascending, true),
+                cb.or(compare(cb, key, after.key(), ascending, false),
+                        cb.and(cb.equal(key, after.key()), compare(cb, id, after.id(), ascending, false))));
+        return ascending ? afterValue : cb.or(afterValue, cb.isNull(key));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate compare(CriteriaBuilder cb, Expression expression, Object value,
+                                     boolean ascending, boolean inclusive) {
+        var comparable = (Comparable) value;
+        if (ascending) {
+            return inclusive
+                    ? cb.greaterThanOrEqualTo(expression, comparable)
+                    : cb.greaterThan(expression, comparable);
+        }
+        return inclusive
+                ? cb.lessThanOrEqualTo(expression, comparable)
+                : cb.lessThan(expression, comparable);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,24 @@
+package com.theroom307.jcpm.core.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the whole catalog as NDJSON: one JSON object per line, in the
+ * format of the corresponding API responses. Each export reads a single
+ * forward-only query within one read-only transaction, and writes the rows
+ * as they are fetched.
+ * <p>
+ * The methods return the number of written lines and don't close the stream.
+ */
+public interface ExportService {
+
+    long exportProducts(OutputStream out) throws IOException;
+
+    long exportComponents(OutputStream out) throws IOException;
+
+    /**
+     * Writes the entries of all bills of materials, ordered by product and component.
+     */
+    long exportProductComponents(OutputStream out) throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.theroom307.jcpm.core.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * The formats of bulk imports: NDJSON with one request body per line, or
+ * CSV with a header line naming the request body fields (e.g. {@code name,description}).
+ */
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static final String CSV_MEDIA_TYPE_VALUE = "text/csv";
+
+    public static ImportFormat of(MediaType mediaType) {
+        return mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON) ? NDJSON : CSV;
+    }
+}
@@ -0,0 +1,35 @@
+package com.theroom307.jcpm.core.service;
+
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.data.dto.ImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Creates items and bills of materials in bulk from an input read row by row. Each row is
+ * validated as the corresponding create request body; the valid rows are
+ * created in batches, each in its own transaction, and the invalid ones
+ * are reported with their line numbers.
+ */
+public interface ImportService {
+
+    /**
+     * @throws BadRequestException if the CSV header has no 'name' column
+     */
+    ImportResult importProducts(InputStream in, ImportFormat format) throws IOException;
+
+    /**
+     * @throws BadRequestException if the CSV header has no 'name' column
+     */
+    ImportResult importComponents(InputStream in, ImportFormat format) throws IOException;
+
+    /**
+     * Adds components to products in bulk. The rows of a batch are checked
+     * together against the existing products, components and bills of
+     * materials; see {@link ProductComponentsService#addComponentsToProducts}.
+     *
+     * @throws BadRequestException if the CSV header has no 'product_id' or 'component_id' column
+     */
+    ImportResult importProductComponents(InputStream in, ImportFormat format) throws IOException;
+}
@@ -0,0 +1,17 @@
+package com.theroom307.jcpm.core.service;
+
+import com.theroom307.jcpm.core.data.model.Item;
+
+/**
+ * Published by the item services after an item has been edited or deleted,
+ * so that other services can drop the cached data containing the item.
+ *
+ * @param type the entity type of the item
+ * @param id   the ID of the item
+ */
+public record ItemChangedEvent(Class<? extends Item> type, long id) {
+
+    public boolean isAbout(Class<? extends Item> type) {
+        return this.type.equals(type);
+    }
+}
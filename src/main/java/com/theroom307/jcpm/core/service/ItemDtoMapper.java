@@ -2,12 +2,13 @@ package com.theroom307.jcpm.core.service;
 
 import com.theroom307.jcpm.core.data.dto.ComponentRequestDto;
 import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
 import com.theroom307.jcpm.core.data.dto.ProductRequestDto;
 import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
 import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Product;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public interface ItemDtoMapper {
 
@@ -19,8 +20,8 @@ public interface ItemDtoMapper {
 
     ComponentResponseDto map(Component component);
 
-    ListResponseWrapper<ProductResponseDto> mapProducts(Page<Product> items);
+    <D extends IResponseDto> ListResponseWrapper<D> mapList(Slice<D> items);
 
-    ListResponseWrapper<ComponentResponseDto> mapComponents(Page<Component> items);
+    <D extends IResponseDto> ListResponseWrapper<D> mapListWithCursor(Slice<D> items);
 
 }
@@ -1,17 +1,106 @@
 package com.theroom307.jcpm.core.service;
 
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
 import com.theroom307.jcpm.core.data.model.Item;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The read methods taking a {@code type} return the items projected into
+ * that type (a response DTO) directly by the repository. The metadata
+ * methods only read the change markers, for answering conditional requests.
+ * <p>
+ * The write methods taking an {@code expectedVersion} only apply the change
+ * if the item still has that version, and throw
+ * {@link com.theroom307.jcpm.core.controller.exception.PreconditionFailedException}
+ * otherwise; pass {@code null} to apply the change unconditionally.
+ */
 public interface ItemService<T extends Item> {
 
-    Page<T> getItems(int page, int size);
+    <D> Page<D> getItems(int page, int size, Class<D> type);
+
+    <D> Slice<D> getItemSlice(int page, int size, Class<D> type);
+
+    <D> Slice<D> getItems(ItemCursor after, int size, Class<D> type);
+
+    /**
+     * Returns a page of the items matching the filter, in the given order.
+     */
+    <D extends IResponseDto> Page<D> getItems(ItemFilter filter, ItemSort sort, int page, int size, Class<D> type);
+
+    <D extends IResponseDto> Slice<D> getItemSlice(ItemFilter filter, ItemSort sort, int page, int size,
+                                                   Class<D> type);
+
+    /**
+     * Continues the list of the items matching the filter, in the order of
+     * the cursor, after its item. The next cursor is returned in the
+     * {@link com.theroom307.jcpm.core.data.dto.wrapper.KeysetSlice}.
+     */
+    <D extends IResponseDto> Slice<D> getItems(ItemFilter filter, ItemCursor after, int size, Class<D> type);
+
+    <D> D getItem(long id, Class<D> type);
+
+    /**
+     * Finds the items containing all words of the query in their name or
+     * description, the best matches first.
+     */
+    <D extends IResponseDto> Page<D> searchItems(String query, int page, int size, Class<D> type);
+
+    /**
+     * Suggests up to {@code limit} items having a name word starting with
+     * each word of the text, for type-ahead.
+     */
+    List<ItemSuggestion> suggestItems(String text, int limit);
 
     T getItem(long id);
 
+    ItemMetadata getItemMetadata(long id);
+
+    /**
+     * Gets the version of the item list counted in memory, without reading
+     * the items.
+     */
+    CollectionVersion getItemsVersion();
+
     long createItem(T item);
 
-    void editItem(long id, T updatedItem);
+    /**
+     * Creates the items in one transaction, inserting them in JDBC batches.
+     *
+     * @return the IDs of the created items, in the order of the given items
+     */
+    List<Long> createItems(List<T> items);
+
+    void editItem(long id, T updatedItem, Long expectedVersion);
+
+    /**
+     * Deletes the item in one statement, without loading it.
+     *
+     * @return whether the item has been deleted, i.e. false if it didn't exist
+     */
+    boolean deleteItem(long id, Long expectedVersion);
+
+    /**
+     * Deletes the items in one statement, without loading them. The IDs of
+     * items that don't exist are ignored.
+     *
+     * @return the number of deleted items
+     */
+    int deleteItems(Collection<Long> ids);
 
-    void deleteItem(long id);
+    /**
+     * Drops the entity returned by {@link #getItem(long)} from the cache and
+     * counts a change of the list, for statements of other services that
+     * change the item.
+     */
+    void evictItem(long id);
 }
@@ -3,10 +3,22 @@ package com.theroom307.jcpm.core.service;
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
-import com.theroom307.jcpm.core.data.model.Component;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.BomDiff;
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.ComponentAddDto;
+import com.theroom307.jcpm.core.data.dto.DeletionCounts;
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
 import com.theroom307.jcpm.core.data.model.Product;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public interface ProductComponentsService {
@@ -23,14 +35,90 @@ public interface ProductComponentsService {
      */
     void addComponentToProduct(long productId, long componentId, int quantity);
 
+    /**
+     * Creates a product together with its bill of materials in one
+     * transaction. The component IDs are checked with one query, and the
+     * entries are inserted in batches.
+     *
+     * @param product The product to create
+     * @param components The components to add, each at most once
+     * @return the ID of the created product
+     * @throws ItemNotFoundException if a component doesn't exist; nothing is created then
+     * @throws BadRequestException if a component is listed more than once or a quantity is invalid
+     */
+    long createProductWithComponents(Product product, List<ComponentAddDto> components);
+
+    /**
+     * Creates copies of a product with its bill of materials. The products
+     * are inserted in one batch, and the entries of all copies with one
+     * INSERT ... SELECT, so the number of statements doesn't depend on the
+     * size of the bill of materials.
+     *
+     * @param productId The ID of the product to copy
+     * @param count The number of copies
+     * @param name The name of the copies, or null to keep the name of the product
+     * @return the IDs of the copies
+     * @throws ItemNotFoundException if the product doesn't exist
+     */
+    List<Long> cloneProduct(long productId, int count, String name);
+
+    /**
+     * Deletes a product with its bill of materials: the entries and then the
+     * product are removed with one DELETE statement each, in one
+     * transaction, and the usage of the components is recounted.
+     *
+     * @param expectedVersion when not null, nothing is deleted unless the
+     *                        product still has this version
+     * @return the numbers of deleted products (0 if the product didn't exist) and entries
+     * @throws PreconditionFailedException if the product doesn't have the expected version
+     */
+    DeletionCounts deleteProduct(long productId, Long expectedVersion);
+
+    /**
+     * Deletes products with their bills of materials, like
+     * {@link #deleteProduct(long, Long)} but with the same number of
+     * statements for any number of products. The IDs of products that don't
+     * exist are ignored.
+     *
+     * @return the numbers of deleted products and entries
+     */
+    DeletionCounts deleteProducts(Collection<Long> productIds);
+
+    /**
+     * Replaces the bill of materials of a product. The differences to the
+     * current entries are computed in memory, and only those are written,
+     * in batches and in one transaction.
+     *
+     * @param productId The ID of the product
+     * @param components The complete list of components the product should contain, each at most once
+     * @return the added, updated and removed entries
+     * @throws ItemNotFoundException if the product or a component to add doesn't exist; nothing is changed then
+     * @throws BadRequestException if a component is listed more than once or a quantity is invalid
+     * @throws ConditionFailedException if a component has been added by a concurrent request
+     */
+    BomDiff replaceComponents(long productId, List<ComponentAddDto> components);
+
+    /**
+     * Adds many components to products in one transaction. The lines are
+     * checked together: lines referencing unknown products or components,
+     * entries the product already contains and repetitions of an earlier
+     * line are rejected, and the remaining ones are inserted in batches.
+     *
+     * @param lines The validated lines to add
+     * @return the reasons of the rejected lines, by their index in the list
+     */
+    Map<Integer, String> addComponentsToProducts(List<ProductComponentLine> lines);
+
     /**
      * Removes a component from a product.
      *
      * @param productId The ID of the product
      * @param componentId The ID of the component to remove
+     * @param expectedVersion The version the product-component entry must have, or null to remove it unconditionally
      * @throws ItemNotFoundException if product or component not found or if product does not contain the component
+     * @throws PreconditionFailedException if the entry doesn't have the expected version
      */
-    void removeComponentFromProduct(long productId, long componentId);
+    void removeComponentFromProduct(long productId, long componentId, Long expectedVersion);
 
     /**
      * Updates the quantity of an existing component in a product.
@@ -38,27 +126,47 @@ public interface ProductComponentsService {
      * @param productId   The ID of the product
      * @param componentId The ID of the component to modify
      * @param quantity    The new quantity of the component
+     * @param expectedVersion The version the product-component entry must have, or null to update it unconditionally
      * @throws ItemNotFoundException if product or component not found or if product does not contain the component
      * @throws BadRequestException   if quantity is invalid
+     * @throws PreconditionFailedException if the entry doesn't have the expected version
      */
-    void updateComponentQuantity(long productId, long componentId, int quantity);
+    void updateComponentQuantity(long productId, long componentId, int quantity, Long expectedVersion);
 
     /**
-     * Checks if a component is used in any product.
+     * Changes the quantity of a component in a product by the given delta
+     * with a single update, without reading the entry, the product or the
+     * component first.
      *
-     * @param componentId The ID of the component to check
-     * @return true if the component is used in at least one product, false otherwise
+     * @param productId   The ID of the product
+     * @param componentId The ID of the component to modify
+     * @param delta       The change of the quantity, negative to decrease it
+     * @param expectedVersion The version the product-component entry must have, or null to update it unconditionally
+     * @throws ItemNotFoundException if the product is not found or does not contain the component
+     * @throws BadRequestException if the delta is zero or out of range
+     * @throws ConditionFailedException if the quantity would not stay greater than zero or would overflow
+     * @throws PreconditionFailedException if the entry doesn't have the expected version
      */
-    boolean isComponentInUse(long componentId);
+    void adjustComponentQuantity(long productId, long componentId, int delta, Long expectedVersion);
 
     /**
      * Gets all components with their quantities for a specific product.
      *
      * @param productId The ID of the product
-     * @return Map of components and their quantities
+     * @return List of components and their quantities, in the order they were added
+     * @throws ItemNotFoundException if the product doesn't exist
+     */
+    List<ProductComponentDto> getComponentsForProduct(long productId);
+
+    /**
+     * Gets the change markers of the bill of materials of a product
+     * without reading the components.
+     *
+     * @param productId The ID of the product
+     * @return the metadata; empty if the product has no components
      * @throws ItemNotFoundException if the product doesn't exist
      */
-    Map<Component, Integer> getComponentsForProduct(long productId);
+    CollectionMetadata getComponentsForProductMetadata(long productId);
 
     /**
      * Gets all products that contain a specific component.
@@ -69,5 +177,39 @@ public interface ProductComponentsService {
      * @return Page of products containing the component
      * @throws ItemNotFoundException if the component doesn't exist
      */
-    Page<Product> getProductsByComponent(long componentId, int page, int size);
+    Page<ProductResponseDto> getProductsByComponent(long componentId, int page, int size);
+
+    /**
+     * Gets products that contain a specific component without counting the total.
+     *
+     * @param componentId The ID of the component
+     * @param page The page number for pagination
+     * @param size The page size for pagination
+     * @return Slice of products containing the component
+     * @throws ItemNotFoundException if the component doesn't exist
+     */
+    Slice<ProductResponseDto> getProductSliceByComponent(long componentId, int page, int size);
+
+    /**
+     * Gets products that contain a specific component using keyset pagination.
+     *
+     * @param componentId The ID of the component
+     * @param after The position of the last product returned by the previous request
+     * @param size The page size for pagination
+     * @return Slice of products containing the component, ordered by ID
+     * @throws ItemNotFoundException if the component doesn't exist
+     */
+    Slice<ProductResponseDto> getProductsByComponent(long componentId, ItemCursor after, int size);
+
+    /**
+     * Gets the version of the list of products that contain a component,
+     * without reading the products. Adding or removing a component counts as
+     * a change of the component, so the versions of the product and the
+     * component lists together cover every change of the list.
+     *
+     * @param componentId The ID of the component
+     * @throws ItemNotFoundException if the component doesn't exist, so that
+     * no version is given for a list that can't be read
+     */
+    CollectionVersion getProductsByComponentVersion(long componentId);
 }
@@ -0,0 +1,93 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The names of the items of one type, for suggesting items while a name is
+ * being typed.
+ * <p>
+ * The words of the names (see {@link SearchIndex#tokenize(String)}) are kept
+ * in a sorted map, so the words starting with a prefix are a contiguous
+ * range of it. A suggestion lookup walks that range in word order and stops
+ * as soon as enough items have been found, so its cost depends on the limit
+ * rather than on the number of items.
+ */
+public class AutocompleteIndex {
+
+    private record Entry(String name, List<String> words) {
+    }
+
+    private final ConcurrentNavigableMap<String, Set<Long>> idsByWord = new ConcurrentSkipListMap<>();
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public synchronized void put(long id, String name) {
+        remove(id);
+
+        var words = SearchIndex.tokenize(name);
+        entries.put(id, new Entry(name, words));
+        words.forEach(word -> idsByWord.computeIfAbsent(word, w -> new ConcurrentSkipListSet<>()).add(id));
+    }
+
+    public synchronized void remove(long id) {
+        var entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        entry.words().forEach(word -> idsByWord.computeIfPresent(word, (w, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Suggests the items having a name word starting with each word of the
+     * text, e.g. "go ri" suggests "Gold ring" and "Rose gold ring".
+     *
+     * @return up to {@code limit} items, ordered by the name word matching
+     * the longest word of the text
+     */
+    public List<ItemSuggestion> suggest(String text, int limit) {
+        var prefixes = SearchIndex.tokenize(text);
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        // the longest prefix matches the fewest words, the others are checked per item
+        var longest = prefixes.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+
+        var suggestions = new LinkedHashMap<Long, ItemSuggestion>();
+        for (var ids : idsByWord.subMap(longest, true, longest + Character.MAX_VALUE, false).values()) {
+            for (var id : ids) {
+                var entry = entries.get(id);
+                if (entry == null || suggestions.containsKey(id) || !matchesAll(entry.words(), prefixes)) {
+                    continue;
+                }
+                suggestions.put(id, new ItemSuggestion(id, entry.name()));
+                if (suggestions.size() == limit) {
+                    return List.copyOf(suggestions.values());
+                }
+            }
+        }
+        return List.copyOf(suggestions.values());
+    }
+
+    private static boolean matchesAll(List<String> words, List<String> prefixes) {
+        return prefixes.stream().allMatch(prefix -> words.stream().anyMatch(word -> word.startsWith(prefix)));
+    }
+}
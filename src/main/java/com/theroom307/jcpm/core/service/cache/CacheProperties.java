@@ -0,0 +1,28 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings shared by the in-process caches, bound from the {@code jcpm.cache.*} properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "jcpm.cache")
+@Getter
+@Setter
+public class CacheProperties {
+
+    /**
+     * Maximum number of entries kept by each cache; 0 disables caching.
+     */
+    private int maxSize = 1000;
+
+    /**
+     * How long an entry is served after it has been loaded.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+}
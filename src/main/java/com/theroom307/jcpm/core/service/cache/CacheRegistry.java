@@ -0,0 +1,36 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the in-process caches with the configured settings and keeps track
+ * of them, so that their statistics can be inspected in one place.
+ */
+@Component
+public class CacheRegistry {
+
+    private final CacheProperties properties;
+
+    private final Map<String, LruCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public CacheRegistry(@Autowired CacheProperties properties) {
+        this.properties = properties;
+    }
+
+    public <K, V> LruCache<K, V> create(String name) {
+        var cache = new LruCache<K, V>(properties.getMaxSize(), properties.getTtl());
+        caches.put(name, cache);
+        return cache;
+    }
+
+    public Map<String, CacheStats> getStats() {
+        var stats = new TreeMap<String, CacheStats>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+}
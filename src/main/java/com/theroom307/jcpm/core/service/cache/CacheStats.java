@@ -0,0 +1,19 @@
+package com.theroom307.jcpm.core.service.cache;
+
+/**
+ * A snapshot of the counters of an {@link LruCache}.
+ *
+ * @param hits          lookups served from the cache
+ * @param misses        lookups that went to the loader
+ * @param evictions     entries dropped because the cache was full or the entry had expired
+ * @param invalidations entries dropped because the underlying data has changed
+ * @param size          the current number of entries
+ * @param maxSize       the maximum number of entries
+ */
+public record CacheStats(long hits,
+                         long misses,
+                         long evictions,
+                         long invalidations,
+                         int size,
+                         int maxSize) {
+}
@@ -0,0 +1,24 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the committed changes of a collection, for the list ETags. The
+ * counter only sees the changes made through the services of this process.
+ */
+public class ChangeCounter {
+
+    private static final long STARTED = System.currentTimeMillis();
+
+    private final AtomicLong changes = new AtomicLong();
+
+    public void increment() {
+        changes.incrementAndGet();
+    }
+
+    public CollectionVersion getVersion() {
+        return new CollectionVersion(STARTED, changes.get());
+    }
+}
@@ -0,0 +1,105 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded least-recently-used cache with a time-to-live for each entry.
+ * <p>
+ * Values are loaded outside the lock. A value loaded while the cache was being
+ * invalidated is returned to the caller but not stored, so an invalidation
+ * cannot be overwritten by a load that has read the data before the change.
+ */
+public class LruCache<K, V> {
+
+    private record Entry<V>(V value, long loadedAt) {
+    }
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier ticker;
+
+    private final Map<K, Entry<V>> entries;
+
+    private long generation;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private long invalidations;
+
+    public LruCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    public LruCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        this.maxSize = Math.max(maxSize, 0);
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value for the key or loads it with the loader.
+     * Exceptions of the loader are propagated and nothing is cached then.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            var entry = entries.get(key);
+            if (entry != null) {
+                if (ticker.getAsLong() - entry.loadedAt() < ttlNanos) {
+                    hits++;
+                    return entry.value();
+                }
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+
+        synchronized (this) {
+            if (maxSize > 0 && value != null && loadGeneration == generation) {
+                entries.put(key, new Entry<>(value, ticker.getAsLong()));
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits, misses, evictions, invalidations, entries.size(), maxSize);
+    }
+}
@@ -0,0 +1,138 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index over the names and descriptions of the items of one type.
+ * <p>
+ * The texts are split into lowercase words without diacritics. Each word
+ * maps to the IDs of the items containing it, with a weight counting its
+ * occurrences (words in the name count twice). A search returns the items
+ * containing all the words of the query, ranked by the weights multiplied
+ * by the inverse document frequency of the words.
+ * <p>
+ * Changes are serialized; searches run concurrently with them and see
+ * each item either before or after a change.
+ */
+public class SearchIndex {
+
+    private static final int NAME_WEIGHT = 2;
+
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Item IDs with their weights by word; sorted by word for prefix lookups.
+     */
+    private final ConcurrentNavigableMap<String, Map<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+
+    /**
+     * The weighted words of each item, for removing the item from the postings.
+     */
+    private final Map<Long, Map<String, Integer>> documents = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        var normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(WORD_SEPARATOR.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+
+    public synchronized void put(long id, String name, String description) {
+        remove(id);
+
+        var weights = new HashMap<String, Integer>();
+        tokenize(name).forEach(word -> weights.merge(word, NAME_WEIGHT, Integer::sum));
+        tokenize(description).forEach(word -> weights.merge(word, DESCRIPTION_WEIGHT, Integer::sum));
+
+        documents.put(id, weights);
+        weights.forEach((word, weight) ->
+                postings.computeIfAbsent(word, w -> new ConcurrentHashMap<>()).put(id, weight));
+    }
+
+    public synchronized void remove(long id) {
+        var weights = documents.remove(id);
+        if (weights == null) {
+            return;
+        }
+        weights.keySet().forEach(word -> postings.computeIfPresent(word, (w, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    /**
+     * Marks the index as complete, after all items have been put into it.
+     */
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * @return the IDs of the items containing all words of the query, the
+     * best matches first; empty if the query contains no words
+     */
+    public List<Long> search(String query) {
+        var words = tokenize(query).stream().distinct().toList();
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        var matches = new ArrayList<Map<Long, Integer>>(words.size());
+        for (var word : words) {
+            var ids = postings.get(word);
+            if (ids == null) {
+                return List.of();
+            }
+            matches.add(ids);
+        }
+        // iterate over the rarest word and look the others up
+        matches.sort(Comparator.comparingInt(Map::size));
+
+        double documentCount = documents.size();
+        var idf = matches.stream()
+                .mapToDouble(ids -> Math.log(1 + documentCount / ids.size()))
+                .toArray();
+
+        var hits = new ArrayList<Hit>();
+        candidates:
+        for (var candidate : matches.get(0).entrySet()) {
+            double score = candidate.getValue() * idf[0];
+            for (int i = 1; i < matches.size(); i++) {
+                var weight = matches.get(i).get(candidate.getKey());
+                if (weight == null) {
+                    continue candidates;
+                }
+                score += weight * idf[i];
+            }
+            hits.add(new Hit(candidate.getKey(), score));
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::id));
+        return hits.stream().map(Hit::id).toList();
+    }
+
+    private record Hit(long id, double score) {
+    }
+}
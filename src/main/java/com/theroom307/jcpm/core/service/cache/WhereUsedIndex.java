@@ -0,0 +1,116 @@
+package com.theroom307.jcpm.core.service.cache;
+
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The IDs of the products containing each component, as sorted arrays.
+ * <p>
+ * The index is built from the product components at startup and then kept
+ * current by the service adding and removing them. Until it has been built,
+ * {@link #isReady()} returns false and the lookups must go to the database.
+ * The arrays are replaced instead of being modified, so a returned array
+ * is a consistent snapshot; callers must not modify it either.
+ */
+@Component
+@Slf4j
+public class WhereUsedIndex {
+
+    private static final long[] NONE = new long[0];
+
+    private final ProductComponentRepository repository;
+
+    private volatile Map<Long, long[]> productIdsByComponent;
+
+    public WhereUsedIndex(@Autowired ProductComponentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Reads all product components and replaces the index. The changes made
+     * while reading are applied afterwards, as they wait for the lock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        var index = new ConcurrentHashMap<Long, long[]>();
+        var rows = repository.findAllComponentAndProductIds();
+
+        int from = 0;
+        while (from < rows.size()) {
+            var componentId = (Long) rows.get(from)[0];
+            int to = from;
+            while (to < rows.size() && componentId.equals(rows.get(to)[0])) {
+                to++;
+            }
+            var productIds = new long[to - from];
+            for (int i = from; i < to; i++) {
+                productIds[i - from] = (Long) rows.get(i)[1];
+            }
+            index.put(componentId, productIds);
+            from = to;
+        }
+
+        productIdsByComponent = index;
+        log.info("Built the where-used index of {} component(s) from {} product component(s)",
+                index.size(), rows.size());
+    }
+
+    public boolean isReady() {
+        return productIdsByComponent != null;
+    }
+
+    /**
+     * @return the IDs of the products containing the component in ascending
+     * order; empty if the component is not used or the index isn't ready
+     */
+    public long[] getProductIds(long componentId) {
+        var index = productIdsByComponent;
+        return index == null ? NONE : index.getOrDefault(componentId, NONE);
+    }
+
+    public synchronized void add(long componentId, long productId) {
+        if (productIdsByComponent == null) {
+            return;
+        }
+        productIdsByComponent.compute(componentId, (id, productIds) -> {
+            var current = productIds == null ? NONE : productIds;
+            var position = Arrays.binarySearch(current, productId);
+            if (position >= 0) {
+                return current;
+            }
+            var insertAt = -position - 1;
+            var updated = new long[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = productId;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            return updated;
+        });
+    }
+
+    public synchronized void remove(long componentId, long productId) {
+        if (productIdsByComponent == null) {
+            return;
+        }
+        productIdsByComponent.computeIfPresent(componentId, (id, current) -> {
+            var position = Arrays.binarySearch(current, productId);
+            if (position < 0) {
+                return current;
+            }
+            if (current.length == 1) {
+                return null;
+            }
+            var updated = new long[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+            return updated;
+        });
+    }
+}
@@ -1,13 +1,70 @@
 package com.theroom307.jcpm.core.service.impl;
 
+import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+
 @Service
+@Slf4j
 public class ComponentServiceImpl extends ItemServiceImpl<Component> {
-    protected ComponentServiceImpl(@Autowired ComponentRepository repository) {
-        super(repository, "Component");
+
+    private final ComponentRepository componentRepository;
+
+    protected ComponentServiceImpl(@Autowired ComponentRepository repository,
+                                   @Autowired CacheRegistry caches,
+                                   @Autowired ApplicationEventPublisher eventPublisher) {
+        super(repository, Component.class, caches, eventPublisher);
+        this.componentRepository = repository;
+    }
+
+    /**
+     * Deletes the component unless it is used in some product. The check and
+     * the deletion are a single statement, so the component cannot be added
+     * to a product in between; the reason of a failed deletion is only looked
+     * up when nothing has been deleted.
+     */
+    @Override
+    public boolean deleteItem(long id, Long expectedVersion) {
+        log.info("Handling a request to delete a Component with ID={} (expected version: {})", id, expectedVersion);
+
+        var deletedRows = componentRepository.deleteUnusedById(id, expectedVersion);
+        if (deletedRows > 0) {
+            itemDeleted(id);
+            return true;
+        }
+
+        var metadata = componentRepository.findMetadataById(id);
+        if (metadata.isEmpty()) {
+            // nothing to delete
+            return false;
+        }
+        if (expectedVersion != null && !expectedVersion.equals(metadata.get().version())) {
+            throw versionMismatch(id, expectedVersion);
+        }
+
+        log.info("The Component with ID={} is used in some product(s)", id);
+        throw new ConditionFailedException(String.format("Component '%s' is used in some product(s)", id));
+    }
+
+    /**
+     * Brings the usage counters in line with the product components once at
+     * startup; afterwards they are maintained by adding and removing
+     * components.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recountUsage() {
+        var correctedComponents = componentRepository.recountUsage();
+        if (correctedComponents > 0) {
+            log.warn("Corrected the usage count of {} Component(s)", correctedComponents);
+            evictAll();
+        }
     }
 }
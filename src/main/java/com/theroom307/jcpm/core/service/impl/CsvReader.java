@@ -0,0 +1,85 @@
+package com.theroom307.jcpm.core.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV records one at a time (RFC 4180): the fields are separated by
+ * commas and may be enclosed in double quotes, in which case they may
+ * contain commas, line breaks and doubled double quotes.
+ */
+class CsvReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+
+    private long lineNumber;
+
+    private long recordLine;
+
+    CsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the input
+     */
+    List<String> readRecord() throws IOException {
+        var line = readLine();
+        if (line == null) {
+            return null;
+        }
+        recordLine = lineNumber;
+
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                var c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted || (line = readLine()) == null) {
+                // an unterminated quoted field ends with the input
+                break;
+            }
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return the line number, starting from 1, where the last read record starts
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    private String readLine() throws IOException {
+        var line = reader.readLine();
+        if (line != null && ++lineNumber == 1 && !line.isEmpty() && line.charAt(0) == BYTE_ORDER_MARK) {
+            return line.substring(1);
+        }
+        return line;
+    }
+}
@@ -0,0 +1,87 @@
+package com.theroom307.jcpm.core.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ItemRepository;
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+public class ExportServiceImpl implements ExportService {
+
+    /**
+     * The number of lines after which the output is flushed, matching the
+     * fetch size of the streaming queries.
+     */
+    private static final int FLUSH_INTERVAL = Integer.parseInt(
+            ItemRepository.STREAM_FETCH_SIZE);
+
+    private final ProductRepository productRepository;
+
+    private final ComponentRepository componentRepository;
+
+    private final ProductComponentRepository productComponentRepository;
+
+    private final ObjectWriter writer;
+
+    public ExportServiceImpl(ProductRepository productRepository,
+                             ComponentRepository componentRepository,
+                             ProductComponentRepository productComponentRepository,
+                             ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.componentRepository = componentRepository;
+        this.productComponentRepository = productComponentRepository;
+        this.writer = objectMapper.writer();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        try (var products = productRepository.streamProjectedByOrderByIdAsc(ProductResponseDto.class)) {
+            return writeLines("products", products, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportComponents(OutputStream out) throws IOException {
+        try (var components = componentRepository.streamProjectedByOrderByIdAsc(ComponentResponseDto.class)) {
+            return writeLines("components", components, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProductComponents(OutputStream out) throws IOException {
+        try (var lines = productComponentRepository.streamAllLines()) {
+            return writeLines("product components", lines, out);
+        }
+    }
+
+    private long writeLines(String what, Stream<?> items, OutputStream out) throws IOException {
+        log.info("Exporting {}", what);
+        long count = 0;
+        for (var iterator = items.iterator(); iterator.hasNext(); ) {
+            out.write(writer.writeValueAsBytes(iterator.next()));
+            out.write('\n');
+            if (++count % FLUSH_INTERVAL == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+        log.info("Exported {} {}", count, what);
+        return count;
+    }
+}
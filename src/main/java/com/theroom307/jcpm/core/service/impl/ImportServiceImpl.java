@@ -0,0 +1,264 @@
+package com.theroom307.jcpm.core.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.data.dto.ComponentRequestDto;
+import com.theroom307.jcpm.core.data.dto.IRequestDto;
+import com.theroom307.jcpm.core.data.dto.ImportResult;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.dto.ProductRequestDto;
+import com.theroom307.jcpm.core.data.model.Component;
+import com.theroom307.jcpm.core.data.model.Item;
+import com.theroom307.jcpm.core.data.model.Product;
+import com.theroom307.jcpm.core.service.ImportFormat;
+import com.theroom307.jcpm.core.service.ImportService;
+import com.theroom307.jcpm.core.service.ItemService;
+import com.theroom307.jcpm.core.service.ProductComponentsService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class ImportServiceImpl implements ImportService {
+
+    /**
+     * The number of rows created per transaction; the same as the JDBC batch
+     * size, so each batch is inserted in one round trip per table.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final ItemService<Product> productService;
+
+    private final ItemService<Component> componentService;
+
+    private final ProductComponentsService productComponentsService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final EntityManager entityManager;
+
+    public ImportServiceImpl(ItemService<Product> productService,
+                             ItemService<Component> componentService,
+                             ProductComponentsService productComponentsService,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             EntityManager entityManager) {
+        this.productService = productService;
+        this.componentService = componentService;
+        this.productComponentsService = productComponentsService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public ImportResult importProducts(InputStream in, ImportFormat format) throws IOException {
+        return importItems(in, format, ProductRequestDto.class, productService);
+    }
+
+    @Override
+    public ImportResult importComponents(InputStream in, ImportFormat format) throws IOException {
+        return importItems(in, format, ComponentRequestDto.class, componentService);
+    }
+
+    @Override
+    public ImportResult importProductComponents(InputStream in, ImportFormat format) throws IOException {
+        return importRows(in, format, ProductComponentLine.class,
+                List.of("product_id", "component_id"),
+                productComponentsService::addComponentsToProducts);
+    }
+
+    private <T extends Item> ImportResult importItems(InputStream in, ImportFormat format,
+                                                      Class<? extends IRequestDto<T>> dtoType,
+                                                      ItemService<T> service) throws IOException {
+        return this.<IRequestDto<T>>importRows(in, format, dtoType, List.of("name"), dtos -> {
+            service.createItems(dtos.stream().map(IRequestDto::toEntity).toList());
+            return Map.of();
+        });
+    }
+
+    private <R> ImportResult importRows(InputStream in, ImportFormat format, Class<? extends R> rowType,
+                                        List<String> requiredColumns, BatchWriter<R> writer) throws IOException {
+        log.info("Importing {} rows of {}", format, rowType.getSimpleName());
+        var batches = new Batches<>(writer);
+        var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        switch (format) {
+            case NDJSON -> readNdjson(reader, rowType, batches);
+            case CSV -> readCsv(reader, rowType, requiredColumns, batches);
+        }
+        var result = batches.finish();
+        log.info("Imported {} rows of {}, rejected {}, in {} ms",
+                result.imported(), rowType.getSimpleName(), result.failed(), result.durationMillis());
+        return result;
+    }
+
+    private <R> void readNdjson(BufferedReader reader, Class<? extends R> rowType,
+                                Batches<R> batches) throws IOException {
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batches.add(lineNumber, objectMapper.readValue(line, rowType));
+            } catch (JsonProcessingException e) {
+                batches.reject(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private <R> void readCsv(BufferedReader reader, Class<? extends R> rowType, List<String> requiredColumns,
+                             Batches<R> batches) throws IOException {
+        var csv = new CsvReader(reader);
+        var header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        var columns = header.stream()
+                .map(column -> column.strip().toLowerCase(Locale.ROOT))
+                .toList();
+        for (var column : requiredColumns) {
+            if (!columns.contains(column)) {
+                throw new BadRequestException(String.format("The CSV header must contain a '%s' column", column));
+            }
+        }
+
+        List<String> fields;
+        while ((fields = csv.readRecord()) != null) {
+            var lineNumber = csv.getRecordLine();
+            if (fields.size() == 1 && fields.getFirst().isBlank()) {
+                continue;
+            }
+            if (fields.size() != columns.size()) {
+                batches.reject(lineNumber, String.format("Expected %d fields, found %d", columns.size(), fields.size()));
+                continue;
+            }
+            var values = new LinkedHashMap<String, String>();
+            for (int i = 0; i < columns.size(); i++) {
+                // an empty field is a missing value, as an absent JSON property
+                values.put(columns.get(i), fields.get(i).isEmpty() ? null : fields.get(i));
+            }
+            try {
+                batches.add(lineNumber, objectMapper.convertValue(values, rowType));
+            } catch (IllegalArgumentException e) {
+                batches.reject(lineNumber, "Invalid row: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Saves one batch of valid rows in one transaction.
+     */
+    @FunctionalInterface
+    private interface BatchWriter<R> {
+
+        /**
+         * @return the reasons of the rows rejected while saving, by their index in the batch
+         */
+        Map<Integer, String> write(List<R> rows);
+    }
+
+    /**
+     * Collects the valid rows and saves them a batch at a time, counting
+     * the saved and the rejected rows.
+     */
+    private class Batches<R> {
+
+        private final BatchWriter<R> writer;
+
+        private final long started = System.nanoTime();
+
+        private final List<R> rows = new ArrayList<>(BATCH_SIZE);
+
+        private final List<Long> lineNumbers = new ArrayList<>(BATCH_SIZE);
+
+        private final List<ImportResult.RowError> errors = new ArrayList<>();
+
+        private long imported;
+
+        private long failed;
+
+        Batches(BatchWriter<R> writer) {
+            this.writer = writer;
+        }
+
+        void add(long lineNumber, R row) {
+            if (row == null) {
+                reject(lineNumber, "The row is empty");
+                return;
+            }
+            var violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                reject(lineNumber, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            rows.add(row);
+            lineNumbers.add(lineNumber);
+            if (rows.size() == BATCH_SIZE) {
+                write();
+            }
+        }
+
+        void reject(long lineNumber, String message) {
+            failed++;
+            if (errors.size() < ImportResult.MAX_REPORTED_ERRORS) {
+                errors.add(new ImportResult.RowError(lineNumber, message));
+            }
+        }
+
+        private void write() {
+            try {
+                var rejected = writer.write(List.copyOf(rows));
+                imported += rows.size() - rejected.size();
+                rejected.forEach((index, message) -> reject(lineNumbers.get(index), message));
+            } catch (RuntimeException e) {
+                log.warn("Failed to save a batch of {} rows: {}", rows.size(), e.getMessage());
+                lineNumbers.forEach(lineNumber -> reject(lineNumber, "The batch of this row could not be saved"));
+            } finally {
+                rows.clear();
+                lineNumbers.clear();
+                // the created entities aren't needed anymore, also when the
+                // persistence context spans the whole request
+                entityManager.clear();
+            }
+        }
+
+        ImportResult finish() {
+            if (!rows.isEmpty()) {
+                write();
+            }
+            var durationNanos = Math.max(System.nanoTime() - started, 1);
+            var rows = imported + failed;
+            return new ImportResult(
+                    imported,
+                    failed,
+                    List.copyOf(errors),
+                    TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                    rows * TimeUnit.SECONDS.toNanos(1) / durationNanos);
+        }
+    }
+}
@@ -2,14 +2,16 @@ package com.theroom307.jcpm.core.service.impl;
 
 import com.theroom307.jcpm.core.data.dto.ComponentRequestDto;
 import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
 import com.theroom307.jcpm.core.data.dto.ProductRequestDto;
 import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.CursorPagination;
 import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.dto.wrapper.Pagination;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -35,22 +37,18 @@ public class ItemDtoMapperImpl implements ItemDtoMapper {
     }
 
     @Override
-    public ListResponseWrapper<ProductResponseDto> mapProducts(Page<Product> items) {
-        var pagination = Pagination.from(items);
-        var data = items.stream().map(ProductResponseDto::fromEntity).toList();
-        return ListResponseWrapper.<ProductResponseDto>builder()
-                .pagination(pagination)
-                .data(data)
+    public <D extends IResponseDto> ListResponseWrapper<D> mapList(Slice<D> items) {
+        return ListResponseWrapper.<D>builder()
+                .pagination(Pagination.from(items))
+                .data(items.getContent())
                 .build();
     }
 
     @Override
-    public ListResponseWrapper<ComponentResponseDto> mapComponents(Page<Component> items) {
-        var pagination = Pagination.from(items);
-        var data = items.stream().map(ComponentResponseDto::fromEntity).toList();
-        return ListResponseWrapper.<ComponentResponseDto>builder()
-                .pagination(pagination)
-                .data(data)
+    public <D extends IResponseDto> ListResponseWrapper<D> mapListWithCursor(Slice<D> items) {
+        return ListResponseWrapper.<D>builder()
+                .cursor(CursorPagination.from(items))
+                .data(items.getContent())
                 .build();
     }
 }
@@ -2,31 +2,108 @@ package com.theroom307.jcpm.core.service.impl;
 
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.data.dto.SearchableItem;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import com.theroom307.jcpm.core.data.dto.wrapper.KeysetSlice;
 import com.theroom307.jcpm.core.data.model.Item;
 import com.theroom307.jcpm.core.data.repository.ItemRepository;
+import com.theroom307.jcpm.core.data.repository.SortedItemRepository.ItemKey;
+import com.theroom307.jcpm.core.service.ItemChangedEvent;
 import com.theroom307.jcpm.core.service.ItemService;
+import com.theroom307.jcpm.core.service.cache.AutocompleteIndex;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
+import com.theroom307.jcpm.core.service.cache.ChangeCounter;
+import com.theroom307.jcpm.core.service.cache.LruCache;
+import com.theroom307.jcpm.core.service.cache.SearchIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 public abstract class ItemServiceImpl<T extends Item> implements ItemService<T> {
 
     protected final ItemRepository<T> repository;
 
+    private final Class<T> entityType;
+
     private final String itemType; // for logging purposes
 
-    protected ItemServiceImpl(ItemRepository<T> repository, String itemType) {
+    /**
+     * Entities by ID, filled by {@link #getItem(long)}; every statement that
+     * changes or deletes an item must evict it. The cache holds detached
+     * copies and hands out a new copy on every hit, so neither a persistence
+     * context nor a caller changing the returned entity can alter a cached one.
+     */
+    private final LruCache<Long, T> cache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Counts the changes of the items for the list ETags; every eviction is
+     * counted, as every change evicts the item once it is committed.
+     */
+    private final ChangeCounter changes = new ChangeCounter();
+
+    /**
+     * Names and descriptions of the items, kept current by every statement
+     * that creates, changes or deletes an item.
+     */
+    private final SearchIndex searchIndex = new SearchIndex();
+
+    /**
+     * Item names for type-ahead suggestions, maintained together with the search index.
+     */
+    private final AutocompleteIndex autocompleteIndex = new AutocompleteIndex();
+
+    /**
+     * Serializes the changes of the search and autocomplete indexes with the
+     * batches of {@link #buildSearchIndex()}, so that a batch read before a
+     * change cannot be put into the indexes after it.
+     */
+    private final Object indexLock = new Object();
+
+    private static final int SEARCH_INDEX_BATCH_SIZE = 1000;
+
+    protected ItemServiceImpl(ItemRepository<T> repository, Class<T> entityType, CacheRegistry caches,
+                              ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
-        this.itemType = itemType;
+        this.entityType = entityType;
+        this.itemType = entityType.getSimpleName();
+        this.cache = caches.create(itemType.toLowerCase() + "s");
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
-    public Page<T> getItems(int page, int size) {
+    public <D> Page<D> getItems(int page, int size, Class<D> type) {
         log.info("Looking for {}s with page={}, size={}", itemType, page, size);
 
         var pageable = PageRequest.of(page, size);
-        var items = repository.findAll(pageable);
+        var items = repository.findProjectedBy(pageable, type);
 
         //noinspection ConstantConditions
         if (items == null) {
@@ -39,50 +116,269 @@ public abstract class ItemServiceImpl<T extends Item> implements ItemService<T>
         return items;
     }
 
+    @Override
+    public <D> Slice<D> getItemSlice(int page, int size, Class<D> type) {
+        log.info("Looking for {}s with page={}, size={} (without total)", itemType, page, size);
+
+        var items = repository.findSliceProjectedBy(PageRequest.of(page, size), type);
+
+        log.info("Returning {} {}s", items.getNumberOfElements(), itemType);
+        return items;
+    }
+
+    @Override
+    public <D> Slice<D> getItems(ItemCursor after, int size, Class<D> type) {
+        log.info("Looking for {}s with after={}, size={}", itemType, after.id(), size);
+
+        var items = repository.findProjectedByIdGreaterThanOrderByIdAsc(after.id(), PageRequest.ofSize(size), type);
+
+        log.info("Returning {} {}s", items.getNumberOfElements(), itemType);
+        return items;
+    }
+
+    @Override
+    public <D extends IResponseDto> Page<D> getItems(ItemFilter filter, ItemSort sort, int page, int size,
+                                                     Class<D> type) {
+        log.info("Looking for {}s with {}, sort={}, page={}, size={}", itemType, filter, sort.encode(), page, size);
+
+        var pageable = PageRequest.of(page, size);
+        var keys = repository.findKeys(entityType, filter, sort, ItemCursor.start(sort), pageable.getOffset(), size);
+        var items = findInOrder(keys.stream().map(ItemKey::id).toList(), type);
+
+        log.info("Returning {} {}s", items.size(), itemType);
+        return PageableExecutionUtils.getPage(items, pageable, () -> repository.countFiltered(entityType, filter));
+    }
+
+    @Override
+    public <D extends IResponseDto> Slice<D> getItemSlice(ItemFilter filter, ItemSort sort, int page, int size,
+                                                          Class<D> type) {
+        log.info("Looking for {}s with {}, sort={}, page={}, size={} (without total)",
+                itemType, filter, sort.encode(), page, size);
+
+        var pageable = PageRequest.of(page, size);
+        // one more item tells whether there is a next slice
+        var keys = repository.findKeys(entityType, filter, sort, ItemCursor.start(sort), pageable.getOffset(),
+                size + 1);
+        var hasNext = keys.size() > size;
+        var items = findInOrder(keys.stream().limit(size).map(ItemKey::id).toList(), type);
+
+        log.info("Returning {} {}s", items.size(), itemType);
+        return new SliceImpl<>(items, pageable, hasNext);
+    }
+
+    @Override
+    public <D extends IResponseDto> Slice<D> getItems(ItemFilter filter, ItemCursor after, int size, Class<D> type) {
+        log.info("Looking for {}s with {}, sort={}, after={}, size={}",
+                itemType, filter, after.sort().encode(), after.id(), size);
+
+        var keys = repository.findKeys(entityType, filter, after.sort(), after, 0, size + 1);
+        var pageKeys = keys.subList(0, Math.min(size, keys.size()));
+        var items = findInOrder(pageKeys.stream().map(ItemKey::id).toList(), type);
+
+        ItemCursor next = null;
+        if (keys.size() > size) {
+            var last = pageKeys.getLast();
+            next = after.sort().field() == ItemSort.Field.ID
+                    ? new ItemCursor(last.id(), after.sort(), null)
+                    : new ItemCursor(last.id(), after.sort(), last.sortKey());
+        }
+
+        log.info("Returning {} {}s", items.size(), itemType);
+        return new KeysetSlice<>(items, size, next);
+    }
+
+    /**
+     * Reads the given items, keeping the order of the IDs; the items
+     * deleted in the meantime are left out.
+     */
+    private <D extends IResponseDto> List<D> findInOrder(List<Long> ids, Class<D> type) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // the items are read in no particular order, so the given order is restored
+        var itemsById = repository.findProjectedByIdIn(ids, type).stream()
+                .collect(Collectors.toMap(IResponseDto::id, Function.identity()));
+        return ids.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public <D> D getItem(long itemId, Class<D> type) {
+        log.info("Looking for a {} with ID={}", itemType, itemId);
+        return repository.findProjectedById(itemId, type)
+                .orElseThrow(() -> {
+                    log.info("Couldn't find a {} by ID={} in the repository", itemType, itemId);
+                    return new ItemNotFoundException(itemType, itemId);
+                });
+    }
+
+    @Override
+    public <D extends IResponseDto> Page<D> searchItems(String query, int page, int size, Class<D> type) {
+        log.info("Searching for {}s with query='{}', page={}, size={}", itemType, query, page, size);
+
+        var pageable = PageRequest.of(page, size);
+        if (!searchIndex.isReady()) {
+            log.warn("The {} search index is not ready yet, searching the repository", itemType);
+            return repository.findProjectedByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+                    query, query, pageable, type);
+        }
+
+        var rankedIds = searchIndex.search(query);
+        var from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        var pageIds = rankedIds.subList(from, Math.min(from + size, rankedIds.size()));
+        var items = findInOrder(pageIds, type);
+
+        log.info("Returning {} of {} {}s found", items.size(), rankedIds.size(), itemType);
+        return new PageImpl<>(items, pageable, rankedIds.size());
+    }
+
+    /**
+     * Fills the search index once the application has started, reading the
+     * item texts in batches. Each batch is read and indexed under the index
+     * lock, so the changes committed in the meantime, which are applied
+     * after their commit, either are seen by the batch or wait for it and
+     * overwrite it; until the index is complete, searches go to the repository.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildSearchIndex() {
+        var after = 0L;
+        Slice<SearchableItem> batch;
+        do {
+            synchronized (indexLock) {
+                batch = repository.findProjectedByIdGreaterThanOrderByIdAsc(
+                        after, PageRequest.ofSize(SEARCH_INDEX_BATCH_SIZE), SearchableItem.class);
+                for (var item : batch) {
+                    index(item);
+                    after = item.id();
+                }
+            }
+        } while (batch.hasNext());
+
+        searchIndex.markReady();
+        autocompleteIndex.markReady();
+        log.info("Built the {} search index of {} item(s)", itemType, searchIndex.size());
+    }
+
+    @Override
+    public List<ItemSuggestion> suggestItems(String text, int limit) {
+        if (!autocompleteIndex.isReady()) {
+            log.warn("The {} search index is not ready yet, searching the repository", itemType);
+            return repository.findProjectedByNameStartingWithIgnoreCaseOrderByNameAsc(
+                    text, PageRequest.ofSize(limit), ItemSuggestion.class);
+        }
+        return autocompleteIndex.suggest(text, limit);
+    }
+
+    private void index(SearchableItem item) {
+        synchronized (indexLock) {
+            searchIndex.put(item.id(), item.name(), item.description());
+            autocompleteIndex.put(item.id(), item.name());
+        }
+    }
+
+    private void unindex(long id) {
+        synchronized (indexLock) {
+            searchIndex.remove(id);
+            autocompleteIndex.remove(id);
+        }
+    }
+
     @Override
     public T getItem(long itemId) {
         log.info("Looking for a {} with ID={}", itemType, itemId);
-        var item = repository.findById(itemId);
-        if (item.isPresent()) {
-            log.info("Found a {} in the repository: {}", itemType, item.get());
-            return item.get();
+        var cached = cache.get(itemId, id -> repository.findById(id).map(this::copy).orElse(null));
+        if (cached != null) {
+            var item = copy(cached);
+            log.info("Found a {}: {}", itemType, item);
+            return item;
         } else {
             log.info("Couldn't find a {} by ID={} in the repository", itemType, itemId);
             throw new ItemNotFoundException(itemType, itemId);
         }
     }
 
+    /**
+     * Copies the entity into a new instance outside any persistence context.
+     * The copy keeps the ID and the version, so new entities can still
+     * reference it.
+     */
+    private T copy(T entity) {
+        var copy = BeanUtils.instantiateClass(entityType);
+        BeanUtils.copyProperties(entity, copy);
+        return copy;
+    }
+
+    @Override
+    public ItemMetadata getItemMetadata(long itemId) {
+        return repository.findMetadataById(itemId)
+                .orElseThrow(() -> {
+                    log.info("Couldn't find a {} by ID={} in the repository", itemType, itemId);
+                    return new ItemNotFoundException(itemType, itemId);
+                });
+    }
+
+    @Override
+    public CollectionVersion getItemsVersion() {
+        return changes.getVersion();
+    }
+
     @Override
     public long createItem(T entity) {
         log.info("Handling the Create {} request for {}", itemType, entity);
         var savedEntity = repository.save(entity);
         log.info("Created a {} in the repository: {}", itemType, savedEntity);
+        afterCommit(() -> {
+            index(new SearchableItem(savedEntity.getId(), savedEntity.getName(), savedEntity.getDescription()));
+            changes.increment();
+        });
 
         return savedEntity.getId();
     }
 
     @Override
-    public void editItem(long id, T updatedItem) {
+    @Transactional
+    public List<Long> createItems(List<T> entities) {
+        log.info("Handling the Create request for {} {}s", entities.size(), itemType);
+        var savedEntities = repository.saveAll(entities);
+        // the inserts are sent in JDBC batches when the session is flushed
+        repository.flush();
+        log.info("Created {} {}s in the repository", savedEntities.size(), itemType);
+        var created = savedEntities.stream()
+                .map(saved -> new SearchableItem(saved.getId(), saved.getName(), saved.getDescription()))
+                .toList();
+        afterCommit(() -> {
+            created.forEach(this::index);
+            changes.increment();
+        });
+
+        return savedEntities.stream()
+                .map(Item::getId)
+                .toList();
+    }
+
+    @Override
+    public void editItem(long id, T updatedItem, Long expectedVersion) {
         var newName = updatedItem.getName();
         var newDescription = updatedItem.getDescription();
 
-        log.info("Handling a request to edit a {} with ID={}. New name: '{}'; new description: '{}'",
-                itemType, id, newName, newDescription);
+        log.info("Handling a request to edit a {} with ID={} (expected version: {}). " +
+                 "New name: '{}'; new description: '{}'",
+                itemType, id, expectedVersion, newName, newDescription);
 
         checkThatItemCanBeUpdated(newName, newDescription);
 
-        var item = repository.findById(id)
-                .orElseThrow(() -> new ItemNotFoundException(itemType, id));
-
-        if (newName != null && !item.getName().equals(newName)) {
-            log.info("Setting the {} name for {} to '{}'", itemType, id, newName);
-            repository.updateNameById(newName, id);
-        }
+        var updatedRows = repository.updateById(newName, newDescription, ZonedDateTime.now(), id, expectedVersion);
 
-        if (newDescription != null && !item.getDescription().equals(newDescription)) {
-            log.info("Setting the {} description for {} to '{}'", itemType, id, newDescription);
-            repository.updateDescriptionById(newDescription, id);
+        if (updatedRows == 0) {
+            if (expectedVersion != null && repository.existsById(id)) {
+                throw versionMismatch(id, expectedVersion);
+            }
+            log.info("Couldn't find a {} by ID={} in the repository", itemType, id);
+            throw new ItemNotFoundException(itemType, id);
         }
+        itemEdited(id, newName, newDescription);
     }
 
     private void checkThatItemCanBeUpdated(String newName, String newDescription) {
@@ -97,8 +393,94 @@ public abstract class ItemServiceImpl<T extends Item> implements ItemService<T>
     }
 
     @Override
-    public void deleteItem(long id) {
-        log.info("Handling a request to delete a {} with ID={}", itemType, id);
-        repository.deleteById(id);
+    public boolean deleteItem(long id, Long expectedVersion) {
+        log.info("Handling a request to delete a {} with ID={} (expected version: {})", itemType, id, expectedVersion);
+
+        var deletedRows = repository.deleteByIdAndVersion(id, expectedVersion);
+        if (deletedRows > 0) {
+            itemDeleted(id);
+        }
+
+        if (deletedRows == 0 && expectedVersion != null && repository.existsById(id)) {
+            throw versionMismatch(id, expectedVersion);
+        }
+        return deletedRows > 0;
+    }
+
+    @Override
+    public int deleteItems(Collection<Long> ids) {
+        log.info("Handling a request to delete {} {}(s)", ids.size(), itemType);
+
+        var deletedRows = repository.deleteByIdIn(ids);
+        itemsDeleted(ids);
+        return deletedRows;
+    }
+
+    @Override
+    public void evictItem(long id) {
+        cache.invalidate(id);
+        changes.increment();
+    }
+
+    /**
+     * Evicts the edited item and lets the other services evict the data
+     * containing it. The search index is updated from the new values; only
+     * when one of them is kept, the current text is read back.
+     */
+    private void itemEdited(long id, String newName, String newDescription) {
+        evictItem(id);
+        if (newName != null && newDescription != null) {
+            index(new SearchableItem(id, newName, newDescription));
+        } else {
+            repository.findProjectedById(id, SearchableItem.class).ifPresent(this::index);
+        }
+        eventPublisher.publishEvent(new ItemChangedEvent(entityType, id));
+    }
+
+    protected void itemDeleted(long id) {
+        itemsDeleted(List.of(id));
+    }
+
+    /**
+     * Evicts the deleted items, removes them from the search index and lets
+     * the other services evict the data containing them, once the deletion
+     * is committed; a rolled back deletion leaves them all in place.
+     */
+    private void itemsDeleted(Collection<Long> ids) {
+        var deletedIds = List.copyOf(ids);
+        afterCommit(() -> deletedIds.forEach(id -> {
+            evictItem(id);
+            unindex(id);
+            eventPublisher.publishEvent(new ItemChangedEvent(entityType, id));
+        }));
+    }
+
+    /**
+     * Runs the update of the cache and the search index after the transaction
+     * of the caller has been committed, so that a rolled back change is never
+     * seen; without a transaction, the change is already committed.
+     */
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    protected void evictAll() {
+        cache.invalidateAll();
+        changes.increment();
+    }
+
+    protected PreconditionFailedException versionMismatch(long id, long expectedVersion) {
+        log.info("The {} with ID={} doesn't have the expected version {}", itemType, id, expectedVersion);
+        return new PreconditionFailedException(String.format(
+                "%s '%s' does not match the expected version %s", itemType, id, expectedVersion));
     }
 }
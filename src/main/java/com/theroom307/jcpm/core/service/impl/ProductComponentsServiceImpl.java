@@ -2,67 +2,406 @@ package com.theroom307.jcpm.core.service.impl;
 
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
+import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
 import com.theroom307.jcpm.core.controller.exception.NotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.BomDiff;
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.ComponentAddDto;
+import com.theroom307.jcpm.core.data.dto.ComponentQuantityDto;
+import com.theroom307.jcpm.core.data.dto.DeletionCounts;
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.data.model.ProductComponent;
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ItemChangedEvent;
 import com.theroom307.jcpm.core.service.ItemService;
 import com.theroom307.jcpm.core.service.ProductComponentsService;
-import lombok.AllArgsConstructor;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
+import com.theroom307.jcpm.core.service.cache.LruCache;
+import com.theroom307.jcpm.core.service.cache.WhereUsedIndex;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-
-import static java.util.stream.Collectors.toMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
-@AllArgsConstructor
 public class ProductComponentsServiceImpl implements ProductComponentsService {
 
-    private ItemService<Product> productService;
+    /**
+     * A bill of materials with its change markers, read together so that
+     * conditional requests can be answered from the cache as well.
+     */
+    private record CachedBom(CollectionMetadata metadata, List<ProductComponentDto> components) {
+    }
+
+    private record EntryKey(long productId, long componentId) {
+
+        /**
+         * Reads the IDs from the references, which doesn't load the items.
+         */
+        static EntryKey of(ProductComponent entry) {
+            return new EntryKey(entry.getProduct().getId(), entry.getComponent().getId());
+        }
+    }
+
+    private final ItemService<Product> productService;
+
+    private final ItemService<Component> componentService;
 
-    private ItemService<Component> componentService;
+    private final ProductComponentRepository productComponentRepository;
 
-    private ProductComponentRepository productComponentRepository;
+    private final ProductRepository productRepository;
 
-    private ProductRepository productRepository;
+    private final ComponentRepository componentRepository;
+
+    /**
+     * Bills of materials by product ID. The entries also contain the
+     * component details, so they are evicted for every product containing
+     * a component when the component changes.
+     */
+    private final LruCache<Long, CachedBom> bomCache;
+
+    private final WhereUsedIndex whereUsedIndex;
+
+    public ProductComponentsServiceImpl(ItemService<Product> productService,
+                                        ItemService<Component> componentService,
+                                        ProductComponentRepository productComponentRepository,
+                                        ProductRepository productRepository,
+                                        ComponentRepository componentRepository,
+                                        CacheRegistry caches,
+                                        WhereUsedIndex whereUsedIndex) {
+        this.productService = productService;
+        this.componentService = componentService;
+        this.productComponentRepository = productComponentRepository;
+        this.productRepository = productRepository;
+        this.componentRepository = componentRepository;
+        this.bomCache = caches.create("boms");
+        this.whereUsedIndex = whereUsedIndex;
+    }
 
     @Override
+    @Transactional
     public void addComponentToProduct(long productId, long componentId, int quantity) {
         validateQuantity(quantity);
 
         var product = productService.getItem(productId);
         var component = componentService.getItem(componentId);
 
-        if (productComponentRepository
-                .findProductComponent(product.getId(), component.getId())
-                .isPresent()) {
-            throw new ConditionFailedException(
-                    String.format("Product '%s' already contains component '%s'", productId, componentId)
-            );
-        }
-
         var productComponent = ProductComponent.builder()
                 .product(product)
                 .component(component)
                 .quantity(quantity)
                 .build();
-        productComponentRepository.save(productComponent);
+
+        // The unique constraint rejects a duplicate atomically, also for concurrent requests
+        try {
+            productComponentRepository.saveAndFlush(productComponent);
+        } catch (DataIntegrityViolationException e) {
+            if (isProductComponentUniqueConstraintViolation(e)) {
+                throw new ConditionFailedException(
+                        String.format("Product '%s' already contains component '%s'", productId, componentId)
+                );
+            }
+            throw e;
+        }
+
+        // The inserted entry references the component, so it cannot have been deleted in between
+        componentRepository.incrementUsageCount(componentId);
+        // Indexed before the bill of materials is evicted, so that a component change evicts any copy cached later
+        afterCommit(() -> whereUsedIndex.add(componentId, productId));
+        componentUsageChanged(productId, componentId);
+    }
+
+    @Override
+    @Transactional
+    public long createProductWithComponents(Product product, List<ComponentAddDto> components) {
+        var quantities = getQuantitiesByComponentId(components);
+        // Checked before the product is created, so nothing is written for an unknown component
+        checkComponentsExist(quantities.keySet());
+
+        var productId = productService.createItem(product);
+        var entries = newEntries(product, quantities);
+        productComponentRepository.saveAll(entries);
+        productComponentRepository.flush();
+        usageChanged(entries.stream().map(EntryKey::of).toList(), List.of());
+        return productId;
+    }
+
+    @Override
+    @Transactional
+    public BomDiff replaceComponents(long productId, List<ComponentAddDto> components) {
+        var quantities = getQuantitiesByComponentId(components);
+        var product = productService.getItem(productId);
+
+        // The diff is computed in memory; what remains in the map afterwards is to be added
+        var removedEntries = new ArrayList<ProductComponent>();
+        var updated = new ArrayList<BomDiff.Entry>();
+        for (var entry : productComponentRepository.findAllWithComponentsByProductId(productId)) {
+            var componentId = entry.getComponent().getId();
+            var quantity = quantities.remove(componentId);
+            if (quantity == null) {
+                removedEntries.add(entry);
+            } else if (!quantity.equals(entry.getQuantity())) {
+                // Updated with a version check when the session is flushed
+                entry.setQuantity(quantity);
+                updated.add(new BomDiff.Entry(componentId, quantity));
+            }
+        }
+        checkComponentsExist(quantities.keySet());
+        var addedEntries = newEntries(product, quantities);
+
+        // The deletes, updates and inserts are each sent in JDBC batches
+        productComponentRepository.deleteAll(removedEntries);
+        productComponentRepository.saveAll(addedEntries);
+        try {
+            productComponentRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            if (isProductComponentUniqueConstraintViolation(e)) {
+                throw new ConditionFailedException(String.format(
+                        "The components of product '%s' have been modified by another request", productId));
+            }
+            throw e;
+        }
+
+        var diff = new BomDiff(
+                addedEntries.stream()
+                        .map(entry -> new BomDiff.Entry(entry.getComponent().getId(), entry.getQuantity()))
+                        .toList(),
+                List.copyOf(updated),
+                removedEntries.stream().map(entry -> entry.getComponent().getId()).toList());
+        if (!addedEntries.isEmpty() || !removedEntries.isEmpty()) {
+            usageChanged(addedEntries.stream().map(EntryKey::of).toList(),
+                    removedEntries.stream().map(EntryKey::of).toList());
+        } else if (!diff.isEmpty()) {
+            afterCommit(() -> bomCache.invalidate(productId));
+        }
+        return diff;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> cloneProduct(long productId, int count, String name) {
+        var source = productService.getItem(productId);
+        var clones = IntStream.range(0, count)
+                .mapToObj(i -> {
+                    var clone = new Product();
+                    clone.setName(name == null ? source.getName() : name);
+                    clone.setDescription(source.getDescription());
+                    return clone;
+                })
+                .toList();
+        var cloneIds = productService.createItems(clones);
+
+        if (productComponentRepository.copyEntries(productId, cloneIds) > 0) {
+            // Read back what was copied, for the usage counters and the where-used index
+            usageChanged(findEntryKeys(cloneIds), List.of());
+        }
+        return cloneIds;
+    }
+
+    @Override
+    @Transactional
+    public DeletionCounts deleteProduct(long productId, Long expectedVersion) {
+        var productIds = List.of(productId);
+        var removed = findEntryKeys(productIds);
+        var deletedEntries = productComponentRepository.deleteByProductIdIn(productIds);
+        // Throws if the product has been modified, which rolls back the deletion of its entries
+        var deletedProducts = productService.deleteItem(productId, expectedVersion) ? 1 : 0;
+        usageChanged(List.of(), removed);
+        return new DeletionCounts(deletedProducts, deletedEntries);
+    }
+
+    @Override
+    @Transactional
+    public DeletionCounts deleteProducts(Collection<Long> productIds) {
+        var removed = findEntryKeys(productIds);
+        var deletedEntries = productComponentRepository.deleteByProductIdIn(productIds);
+        var deletedProducts = productService.deleteItems(productIds);
+        usageChanged(List.of(), removed);
+        return new DeletionCounts(deletedProducts, deletedEntries);
+    }
+
+    /**
+     * Reads the keys of the entries of the products, without loading the entries.
+     */
+    private List<EntryKey> findEntryKeys(Collection<Long> productIds) {
+        return productComponentRepository.findProductAndComponentIdsByProductIdIn(productIds).stream()
+                .map(row -> new EntryKey((Long) row[0], (Long) row[1]))
+                .toList();
+    }
+
+    /**
+     * @throws BadRequestException if a component is listed more than once or a quantity is invalid
+     */
+    private LinkedHashMap<Long, Integer> getQuantitiesByComponentId(List<ComponentAddDto> components) {
+        var quantities = new LinkedHashMap<Long, Integer>();
+        for (var component : components) {
+            validateQuantity(component.getQuantity());
+            if (quantities.putIfAbsent(component.getComponentId(), component.getQuantity()) != null) {
+                throw new BadRequestException(
+                        String.format("Component '%s' is listed more than once", component.getComponentId()));
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Checks all the components with one query.
+     *
+     * @throws ItemNotFoundException for the first component that doesn't exist
+     */
+    private void checkComponentsExist(Collection<Long> componentIds) {
+        if (componentIds.isEmpty()) {
+            return;
+        }
+        var knownComponentIds = Set.copyOf(componentRepository.findExistingIds(componentIds));
+        componentIds.stream()
+                .filter(componentId -> !knownComponentIds.contains(componentId))
+                .findFirst()
+                .ifPresent(componentId -> {
+                    throw new ItemNotFoundException(Component.class.getSimpleName(), componentId);
+                });
+    }
+
+    /**
+     * Builds the entries on component references, so the components aren't loaded.
+     */
+    private List<ProductComponent> newEntries(Product product, Map<Long, Integer> quantities) {
+        return quantities.entrySet().stream()
+                .map(quantity -> ProductComponent.builder()
+                        .product(product)
+                        .component(componentRepository.getReferenceById(quantity.getKey()))
+                        .quantity(quantity.getValue())
+                        .build())
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public Map<Integer, String> addComponentsToProducts(List<ProductComponentLine> lines) {
+        var productIds = lines.stream().map(ProductComponentLine::productId).collect(Collectors.toSet());
+        var componentIds = lines.stream().map(ProductComponentLine::componentId).collect(Collectors.toSet());
+
+        // Three IN-queries resolve the whole chunk instead of three lookups per line
+        var knownProductIds = Set.copyOf(productRepository.findExistingIds(productIds));
+        var knownComponentIds = Set.copyOf(componentRepository.findExistingIds(componentIds));
+        var existingEntries = productComponentRepository.findProductAndComponentIds(productIds, componentIds).stream()
+                .map(row -> new EntryKey((Long) row[0], (Long) row[1]))
+                .collect(Collectors.toSet());
+
+        var rejected = new TreeMap<Integer, String>();
+        var added = new LinkedHashSet<EntryKey>();
+        var entries = new ArrayList<ProductComponent>();
+        for (var i = 0; i < lines.size(); i++) {
+            var line = lines.get(i);
+            var key = new EntryKey(line.productId(), line.componentId());
+            if (!knownProductIds.contains(line.productId())) {
+                rejected.put(i, String.format("Product '%s' not found", line.productId()));
+            } else if (!knownComponentIds.contains(line.componentId())) {
+                rejected.put(i, String.format("Component '%s' not found", line.componentId()));
+            } else if (existingEntries.contains(key)) {
+                rejected.put(i, String.format("Product '%s' already contains component '%s'",
+                        line.productId(), line.componentId()));
+            } else if (!added.add(key)) {
+                rejected.put(i, String.format("Product '%s' and component '%s' are repeated",
+                        line.productId(), line.componentId()));
+            } else {
+                entries.add(ProductComponent.builder()
+                        .product(productRepository.getReferenceById(line.productId()))
+                        .component(componentRepository.getReferenceById(line.componentId()))
+                        .quantity(line.quantityOrDefault())
+                        .build());
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            // A concurrently inserted duplicate violates the unique constraint and fails the whole chunk
+            productComponentRepository.saveAll(entries);
+            productComponentRepository.flush();
+            usageChanged(List.copyOf(added), List.of());
+        }
+        return rejected;
+    }
+
+    /**
+     * Recounts the usage of the components of the added and removed entries
+     * with one update. After commit, evicts the components and the changed
+     * bills of materials, and updates the where-used index.
+     */
+    private void usageChanged(List<EntryKey> added, List<EntryKey> removed) {
+        var componentIds = Stream.concat(added.stream(), removed.stream())
+                .map(EntryKey::componentId)
+                .collect(Collectors.toSet());
+        if (componentIds.isEmpty()) {
+            return;
+        }
+        componentRepository.recountUsageByIdIn(componentIds);
+        afterCommit(() -> {
+            componentIds.forEach(componentService::evictItem);
+            removed.forEach(key -> {
+                bomCache.invalidate(key.productId());
+                whereUsedIndex.remove(key.componentId(), key.productId());
+            });
+            added.forEach(key -> {
+                whereUsedIndex.add(key.componentId(), key.productId());
+                bomCache.invalidate(key.productId());
+            });
+        });
+    }
+
+    private boolean isProductComponentUniqueConstraintViolation(DataIntegrityViolationException e) {
+        return e.getCause() instanceof ConstraintViolationException violation
+               && violation.getConstraintName() != null
+               && violation.getConstraintName().toLowerCase()
+                       .contains(ProductComponent.PRODUCT_COMPONENT_UNIQUE_CONSTRAINT);
     }
 
     @Override
-    public void removeComponentFromProduct(long productId, long componentId) {
+    @Transactional
+    public void removeComponentFromProduct(long productId, long componentId, Long expectedVersion) {
         // Verify product exists
         productService.getItem(productId);
 
         productComponentRepository
                 .findProductComponent(productId, componentId)
                 .ifPresentOrElse(
-                        productComponentRepository::delete,
+                        productComponent -> {
+                            checkVersion(productComponent, expectedVersion);
+                            // JPA deletes the versioned entity only if it hasn't been modified since it was read
+                            productComponentRepository.delete(productComponent);
+                            componentRepository.decrementUsageCount(componentId);
+                            componentUsageChanged(productId, componentId);
+                            afterCommit(() -> whereUsedIndex.remove(componentId, productId));
+                        },
                         () -> {
                             throw new NotFoundException(
                                     String.format("Product '%s' does not contain component '%s'", productId, componentId)
@@ -72,7 +411,8 @@ public class ProductComponentsServiceImpl implements ProductComponentsService {
     }
 
     @Override
-    public void updateComponentQuantity(long productId, long componentId, int quantity) {
+    @Transactional
+    public void updateComponentQuantity(long productId, long componentId, int quantity, Long expectedVersion) {
         validateQuantity(quantity);
 
         // Verify product exists
@@ -90,32 +430,202 @@ public class ProductComponentsServiceImpl implements ProductComponentsService {
             );
         }
 
-        // Update the quantity
         var productComponent = productComponentOpt.get();
+        checkVersion(productComponent, expectedVersion);
+
+        // Update the quantity; the save fails if the entry has been modified since it was read
         productComponent.setQuantity(quantity);
         productComponentRepository.save(productComponent);
+        afterCommit(() -> bomCache.invalidate(productId));
     }
 
     @Override
-    public boolean isComponentInUse(long componentId) {
-        return productComponentRepository.countComponentUsage(componentId) > 0;
+    @Transactional
+    public void adjustComponentQuantity(long productId, long componentId, int delta, Long expectedVersion) {
+        validateDelta(delta);
+        var updatedRows = productComponentRepository.adjustQuantity(productId, componentId, delta, expectedVersion);
+        if (updatedRows == 0) {
+            throw adjustmentFailure(productId, componentId, delta, expectedVersion);
+        }
+        afterCommit(() -> bomCache.invalidate(productId));
+    }
+
+    /**
+     * Finds out why an adjustment didn't update the entry; the entry is
+     * only read in this case.
+     */
+    private RuntimeException adjustmentFailure(long productId, long componentId, int delta, Long expectedVersion) {
+        var productComponent = productComponentRepository.findProductComponent(productId, componentId);
+        if (productComponent.isEmpty()) {
+            // Verify product exists
+            productService.getItem(productId);
+            return new NotFoundException(
+                    String.format("Product '%s' does not contain component '%s'", productId, componentId));
+        }
+        checkVersion(productComponent.get(), expectedVersion);
+        var quantity = productComponent.get().getQuantity();
+        return new ConditionFailedException(String.format(
+                "The quantity %s of component '%s' in product '%s' cannot be changed by %s, %s",
+                quantity, componentId, productId, delta,
+                (long) quantity + delta > 0
+                        ? "it must not exceed " + Integer.MAX_VALUE
+                        : "it must stay greater than zero"));
     }
 
     @Override
-    public Map<Component, Integer> getComponentsForProduct(long productId) {
-        // Verify product exists
-        productService.getItem(productId);
+    public List<ProductComponentDto> getComponentsForProduct(long productId) {
+        return getBom(productId).components();
+    }
 
-        return productComponentRepository.findAllByProductId(productId).stream()
-                .collect(toMap(ProductComponent::getComponent, ProductComponent::getQuantity));
+    @Override
+    public CollectionMetadata getComponentsForProductMetadata(long productId) {
+        return getBom(productId).metadata();
+    }
+
+    /**
+     * Reads the bill of materials through the cache. An empty one is only
+     * cached once the product has been found, so requests for unknown IDs
+     * don't fill the cache.
+     */
+    private CachedBom getBom(long productId) {
+        return bomCache.get(productId, id -> {
+            // The metadata is read first, so it never describes a newer state than the components
+            var metadata = productComponentRepository.findBomMetadataByProductId(id);
+            var components = List.copyOf(productComponentRepository.findComponentDtosByProductId(id));
+            if (components.isEmpty()) {
+                // Verify product exists
+                productService.getItem(id);
+            }
+            return new CachedBom(metadata, components);
+        });
+    }
+
+    /**
+     * Evicts the bills of materials containing the data of a changed item.
+     */
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.isAbout(Product.class)) {
+            bomCache.invalidate(event.id());
+        } else if (event.isAbout(Component.class)) {
+            evictBomsContaining(event.id());
+        }
     }
 
     @Override
-    public Page<Product> getProductsByComponent(long componentId, int page, int size) {
+    public Page<ProductResponseDto> getProductsByComponent(long componentId, int page, int size) {
         componentService.getItem(componentId);
 
         var pageable = PageRequest.of(page, size);
-        return productRepository.findDistinctByComponentId(componentId, pageable);
+        if (!whereUsedIndex.isReady()) {
+            return productRepository.findDistinctByComponentId(componentId, pageable);
+        }
+
+        var productIds = whereUsedIndex.getProductIds(componentId);
+        var products = findProducts(productIds, pageable.getOffset(), size);
+        return new PageImpl<>(products, pageable, productIds.length);
+    }
+
+    @Override
+    public Slice<ProductResponseDto> getProductSliceByComponent(long componentId, int page, int size) {
+        componentService.getItem(componentId);
+
+        var pageable = PageRequest.of(page, size);
+        if (!whereUsedIndex.isReady()) {
+            return productRepository.findDistinctSliceByComponentId(componentId, pageable);
+        }
+
+        var productIds = whereUsedIndex.getProductIds(componentId);
+        var products = findProducts(productIds, pageable.getOffset(), size);
+        return new SliceImpl<>(products, pageable, pageable.getOffset() + size < productIds.length);
+    }
+
+    @Override
+    public Slice<ProductResponseDto> getProductsByComponent(long componentId, ItemCursor after, int size) {
+        componentService.getItem(componentId);
+
+        var pageable = PageRequest.ofSize(size);
+        if (!whereUsedIndex.isReady()) {
+            return productRepository.findDistinctByComponentIdAfter(componentId, after.id(), pageable);
+        }
+
+        var productIds = whereUsedIndex.getProductIds(componentId);
+        var position = Arrays.binarySearch(productIds, after.id());
+        var from = position >= 0 ? position + 1 : -position - 1;
+        var products = findProducts(productIds, from, size);
+        return new SliceImpl<>(products, pageable, from + size < productIds.length);
+    }
+
+    /**
+     * Reads the products with the IDs in the given range of the sorted array.
+     */
+    private List<ProductResponseDto> findProducts(long[] productIds, long from, int size) {
+        if (from >= productIds.length) {
+            return List.of();
+        }
+        var to = (int) Math.min(from + size, productIds.length);
+        var ids = Arrays.stream(productIds, (int) from, to).boxed().toList();
+        return productRepository.findAllByIdInOrderById(ids);
+    }
+
+    @Override
+    public CollectionVersion getProductsByComponentVersion(long componentId) {
+        componentService.getItem(componentId);
+        var products = productService.getItemsVersion();
+        var components = componentService.getItemsVersion();
+        return new CollectionVersion(products.started(), products.changes() + components.changes());
+    }
+
+    /**
+     * The bills of materials don't show the usage count, so only the changed
+     * one is evicted, along with the component.
+     */
+    private void componentUsageChanged(long productId, long componentId) {
+        afterCommit(() -> {
+            componentService.evictItem(componentId);
+            bomCache.invalidate(productId);
+        });
+    }
+
+    /**
+     * Looks the products up in the where-used index, or in the database
+     * until the index has been built.
+     */
+    private void evictBomsContaining(long componentId) {
+        if (!whereUsedIndex.isReady()) {
+            productComponentRepository.findProductIdsByComponentId(componentId).forEach(bomCache::invalidate);
+            return;
+        }
+        for (var productId : whereUsedIndex.getProductIds(componentId)) {
+            bomCache.invalidate(productId);
+        }
+    }
+
+    /**
+     * Runs the eviction after the transaction has been committed, so that
+     * a concurrent request cannot cache the state from before the change.
+     */
+    private void afterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void checkVersion(ProductComponent productComponent, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(productComponent.getVersion())) {
+            throw new PreconditionFailedException(String.format(
+                    "Component '%s' in product '%s' does not match the expected version %s",
+                    productComponent.getComponent().getId(),
+                    productComponent.getProduct().getId(),
+                    expectedVersion));
+        }
     }
 
     private void validateQuantity(int quantity) {
@@ -123,4 +633,14 @@ public class ProductComponentsServiceImpl implements ProductComponentsService {
             throw new BadRequestException("Quantity must be greater than zero");
         }
     }
+
+    private void validateDelta(int delta) {
+        if (delta == 0) {
+            throw new BadRequestException("Delta must not be zero");
+        }
+        if (Math.abs(delta) > ComponentQuantityDto.MAX_DELTA) {
+            throw new BadRequestException(
+                    "Delta must be between " + -ComponentQuantityDto.MAX_DELTA + " and " + ComponentQuantityDto.MAX_DELTA);
+        }
+    }
 }
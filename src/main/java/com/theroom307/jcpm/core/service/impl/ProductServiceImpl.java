@@ -2,13 +2,17 @@ package com.theroom307.jcpm.core.service.impl;
 
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ProductServiceImpl extends ItemServiceImpl<Product> {
-    protected ProductServiceImpl(@Autowired ProductRepository repository) {
-        super(repository, "Product");
+    protected ProductServiceImpl(@Autowired ProductRepository repository,
+                                 @Autowired CacheRegistry caches,
+                                 @Autowired ApplicationEventPublisher eventPublisher) {
+        super(repository, Product.class, caches, eventPublisher);
     }
 
 }
@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.integrationtests;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.repository.ComponentRepository;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
@@ -13,11 +14,13 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.function.Predicate;
 
 import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -37,6 +40,9 @@ class ComponentLifecycleTests {
     @Autowired
     private ComponentRepository componentRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @AfterEach
     void clearRepository() {
         componentRepository.deleteAll();
@@ -75,6 +81,29 @@ class ComponentLifecycleTests {
                 .hasFieldOrPropertyWithValue("description", getComponent().getDescription());
     }
 
+    @Test
+    void createNewComponentsInBatch() throws Exception {
+        var response = mockMvc
+                .perform(post(COMPONENTS_ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"First\"}, {\"name\": \"Second\"}, {\"name\": \"Third\"}]"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+
+        var ids = objectMapper.readValue(response.getContentAsString(), Long[].class);
+
+        assertThat(ids)
+                .as("The IDs should be returned in the order of the request")
+                .hasSize(3);
+        assertThat(componentRepository.findAllById(List.of(ids)))
+                .extracting(Component::getId, Component::getName)
+                .containsExactlyInAnyOrder(
+                        tuple(ids[0], "First"),
+                        tuple(ids[1], "Second"),
+                        tuple(ids[2], "Third"));
+    }
+
     @Test
     void getExistingComponent() throws Exception {
         var component = componentRepository.save(getComponentToCreate());
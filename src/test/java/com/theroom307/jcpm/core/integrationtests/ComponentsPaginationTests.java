@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.integrationtests;
 
+import com.jayway.jsonpath.JsonPath;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.repository.ComponentRepository;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
@@ -18,8 +19,10 @@ import java.util.stream.IntStream;
 
 import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.getComponentToCreate;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -144,6 +147,51 @@ class ComponentsPaginationTests {
                 )));
     }
 
+    @Test
+    void twoPagesWithCursorTest() throws Exception {
+        var tenComponents = createTenComponents();
+
+        // request the first page
+        var firstPage = mockMvc.perform(get(ENDPOINT)
+                        .queryParam("after", "")
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination").doesNotExist())
+                .andExpect(jsonPath("$.cursor.size").value(7))
+                .andExpect(jsonPath("$.cursor.count").value(7))
+                .andExpect(jsonPath("$.cursor.next").isString())
+                .andExpect(jsonPath("$.data", hasSize(7)))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenComponents.get(0).getName(),
+                        tenComponents.get(1).getName(),
+                        tenComponents.get(2).getName(),
+                        tenComponents.get(3).getName(),
+                        tenComponents.get(4).getName(),
+                        tenComponents.get(5).getName(),
+                        tenComponents.get(6).getName()
+                )))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.cursor.next");
+
+        // request the second page
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("after", next)
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.size").value(7))
+                .andExpect(jsonPath("$.cursor.count").value(3))
+                .andExpect(jsonPath("$.cursor.next").value(nullValue()))
+                .andExpect(jsonPath("$.data", hasSize(3)))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenComponents.get(7).getName(),
+                        tenComponents.get(8).getName(),
+                        tenComponents.get(9).getName()
+                )));
+    }
+
     private List<Component> createTenComponents() {
         var createdComponents = Collections.synchronizedList(new ArrayList<Component>());
         IntStream.rangeClosed(1, 10).forEach(i -> {
@@ -0,0 +1,119 @@
+package com.theroom307.jcpm.core.integrationtests;
+
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ProductComponentsService;
+import com.theroom307.jcpm.core.utils.data.TestComponentData;
+import com.theroom307.jcpm.core.utils.data.TestProductData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.IntStream;
+
+import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag(INTEGRATION_TEST)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExportTests {
+
+    private static final String ENDPOINT = "/api/v1/export";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private ProductComponentRepository productComponentRepository;
+
+    @Autowired
+    private ProductComponentsService productComponentsService;
+
+    @AfterEach
+    void clearRepositories() {
+        productComponentRepository.deleteAll();
+        productRepository.deleteAll();
+        componentRepository.deleteAll();
+    }
+
+    @Test
+    void exportProducts_shouldWriteOneLinePerProductOrderedById() throws Exception {
+        var productIds = IntStream.rangeClosed(1, 3)
+                .mapToObj(i -> {
+                    var product = TestProductData.getProductToCreate();
+                    product.setName("Exported product " + i);
+                    return productRepository.save(product).getId();
+                })
+                .toList();
+
+        var lines = export("/products").split("\n");
+
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < lines.length; i++) {
+            assertThat(lines[i])
+                    .startsWith("{\"id\":" + productIds.get(i) + ",")
+                    .contains("\"name\":\"Exported product " + (i + 1) + "\"");
+        }
+    }
+
+    @Test
+    void exportComponents_shouldIncludeUsageCount() throws Exception {
+        var product = productRepository.save(TestProductData.getProductToCreate());
+        var component = componentRepository.save(TestComponentData.getComponentToCreate());
+        productComponentsService.addComponentToProduct(product.getId(), component.getId(), 2);
+
+        assertThat(export("/components"))
+                .startsWith("{\"id\":" + component.getId() + ",")
+                .contains("\"usageCount\":1")
+                .endsWith("}\n");
+    }
+
+    @Test
+    void exportProductComponents_shouldWriteTheBillOfMaterialsLines() throws Exception {
+        var product = productRepository.save(TestProductData.getProductToCreate());
+        var component = componentRepository.save(TestComponentData.getComponentToCreate());
+        productComponentsService.addComponentToProduct(product.getId(), component.getId(), 2);
+
+        assertThat(export("/product-components"))
+                .isEqualTo("{\"product_id\":%d,\"component_id\":%d,\"quantity\":2}\n",
+                        product.getId(), component.getId());
+    }
+
+    @Test
+    void exportProducts_whenNoProductsExist_shouldBeEmpty() throws Exception {
+        assertThat(export("/products")).isEmpty();
+    }
+
+    private String export(String path) throws Exception {
+        var result = mockMvc.perform(get(ENDPOINT + path))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+}
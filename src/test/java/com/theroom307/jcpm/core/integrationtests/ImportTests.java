@@ -0,0 +1,149 @@
+package com.theroom307.jcpm.core.integrationtests;
+
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.model.Component;
+import com.theroom307.jcpm.core.data.model.Item;
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ProductComponentsService;
+import com.theroom307.jcpm.core.utils.data.TestComponentData;
+import com.theroom307.jcpm.core.utils.data.TestProductData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@Tag(INTEGRATION_TEST)
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportTests {
+
+    private static final String ENDPOINT = "/api/v1/import";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ComponentRepository componentRepository;
+
+    @Autowired
+    private ProductComponentRepository productComponentRepository;
+
+    @Autowired
+    private ProductComponentsService productComponentsService;
+
+    @AfterEach
+    void clearRepositories() {
+        productComponentRepository.deleteAll();
+        productRepository.deleteAll();
+        componentRepository.deleteAll();
+    }
+
+    @Test
+    void importComponents_ndjson_shouldCreateAllValidRows() throws Exception {
+        var rows = IntStream.rangeClosed(1, 1200)
+                .mapToObj(i -> "{\"name\": \"Imported component " + i + "\", \"description\": \"Bulk\"}")
+                .collect(Collectors.joining("\n", "", "\n{\"description\": \"No name\"}\n"));
+
+        mockMvc.perform(post(ENDPOINT + "/components")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(rows))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1200))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(1201))
+                .andExpect(jsonPath("$.errors[0].message").value("Component name is required"));
+
+        assertThat(componentRepository.count()).isEqualTo(1200);
+    }
+
+    @Test
+    void importProducts_csv_shouldCreateProducts() throws Exception {
+        var csv = "name,description\nGold ring,\"18K, yellow\"\nSilver chain,\n";
+
+        mockMvc.perform(post(ENDPOINT + "/products")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        assertThat(productRepository.findAll())
+                .extracting(Item::getName, Item::getDescription)
+                .containsExactlyInAnyOrder(
+                        tuple("Gold ring", "18K, yellow"),
+                        tuple("Silver chain", null));
+    }
+
+    @Test
+    void importProductComponents_ndjson_shouldAddValidRowsAndUpdateUsage() throws Exception {
+        var product = productRepository.save(TestProductData.getProductToCreate()).getId();
+        var gold = componentRepository.save(TestComponentData.getComponentToCreate()).getId();
+        var silver = componentRepository.save(TestComponentData.getComponentToCreate()).getId();
+        productComponentsService.addComponentToProduct(product, silver, 1);
+        var rows = String.join("\n",
+                line(product, gold, 3),
+                line(product, silver, 2),
+                line(product, Long.MAX_VALUE, 1),
+                line(product, gold, 4));
+
+        mockMvc.perform(post(ENDPOINT + "/product-components")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(rows))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].line").value(3))
+                .andExpect(jsonPath("$.errors[2].line").value(4));
+
+        assertThat(productComponentsService.getComponentsForProduct(product))
+                .extracting(entry -> entry.component().id(), ProductComponentDto::quantity)
+                .containsExactlyInAnyOrder(tuple(silver, 1), tuple(gold, 3));
+        assertThat(componentRepository.findById(gold)).get()
+                .extracting(Component::getUsageCount)
+                .isEqualTo(1);
+        assertThat(productComponentsService.getProductsByComponent(gold, 0, 10))
+                .extracting(ProductResponseDto::id)
+                .containsExactly(product);
+    }
+
+    @Test
+    void importProducts_unsupportedContentType_shouldBeRejected() throws Exception {
+        mockMvc.perform(post(ENDPOINT + "/products")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<products/>"))
+                .andDo(print())
+                .andExpect(status().isUnsupportedMediaType());
+
+        assertThat(productRepository.count()).isZero();
+    }
+
+    private static String line(long productId, long componentId, int quantity) {
+        return String.format("{\"product_id\": %d, \"component_id\": %d, \"quantity\": %d}",
+                productId, componentId, quantity);
+    }
+}
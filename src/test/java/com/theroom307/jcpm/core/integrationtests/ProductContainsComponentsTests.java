@@ -2,10 +2,10 @@ package com.theroom307.jcpm.core.integrationtests;
 
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Product;
-import com.theroom307.jcpm.core.data.model.ProductComponent;
 import com.theroom307.jcpm.core.data.repository.ComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.data.TestComponentData;
@@ -18,12 +18,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+
 import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestData.DEFAULT_COMPONENT_QUANTITY;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -46,6 +50,9 @@ class ProductContainsComponentsTests {
     @Autowired
     private ProductComponentRepository productComponentRepository;
 
+    @Autowired
+    private ProductComponentsService productComponentsService;
+
     private Product product;
     private Component component;
 
@@ -76,6 +83,283 @@ class ProductContainsComponentsTests {
         assertThatProductComponentIsSavedInRepository(product, component);
     }
 
+    @Test
+    void createProductWithComponents() throws Exception {
+        var other = componentRepository.save(TestComponentData.getComponentToCreate());
+        var payload = String.format("{\"name\": \"Bracelet\", \"components\": " +
+                "[{\"component_id\": %d, \"quantity\": 2}, {\"component_id\": %d}]}", component.getId(), other.getId());
+
+        var response = mockMvc.perform(post(Endpoint.PRODUCTS.getEndpoint())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andReturn().getResponse();
+
+        var productId = Long.parseLong(response.getContentAsString());
+        mockMvc.perform(get(Endpoint.PRODUCT_COMPONENTS.getEndpoint(productId)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].quantity").value(2))
+                .andExpect(jsonPath("$[0].component.usageCount").doesNotExist());
+        assertThatUsageCountIs(component, 1);
+        assertThatUsageCountIs(other, 1);
+    }
+
+    @Test
+    void createProductWithUnknownComponent_shouldCreateNothing() throws Exception {
+        var productCount = productRepository.count();
+        var payload = String.format("{\"name\": \"Anklet\", \"components\": " +
+                "[{\"component_id\": %d}, {\"component_id\": %d}]}", component.getId(), Long.MAX_VALUE);
+
+        mockMvc.perform(post(Endpoint.PRODUCTS.getEndpoint())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andDo(print())
+                .andExpect(status().isNotFound());
+
+        assertThat(productRepository.count()).isEqualTo(productCount);
+        assertThatUsageCountIs(component, 0);
+        mockMvc.perform(get(Endpoint.PRODUCTS.getEndpoint() + "/search").param("q", "Anklet"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.total").value(0));
+    }
+
+    @Test
+    void replaceComponents_shouldApplyDiffAndMaintainUsageCounts() throws Exception {
+        var added = componentRepository.save(TestComponentData.getComponentToCreate());
+        createProductComponentInRepository();
+        var endpoint = Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId());
+
+        mockMvc.perform(put(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("[{\"component_id\": %d, \"quantity\": 4}]", added.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added[0].component_id").value(added.getId()))
+                .andExpect(jsonPath("$.added[0].quantity").value(4))
+                .andExpect(jsonPath("$.updated", hasSize(0)))
+                .andExpect(jsonPath("$.removed[0]").value(component.getId()));
+
+        mockMvc.perform(get(endpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].component.id").value(added.getId()));
+        assertThatUsageCountIs(added, 1);
+        assertThatUsageCountIs(component, 0);
+
+        mockMvc.perform(put(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("[{\"component_id\": %d, \"quantity\": 4}]", added.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.added", hasSize(0)))
+                .andExpect(jsonPath("$.updated", hasSize(0)))
+                .andExpect(jsonPath("$.removed", hasSize(0)));
+    }
+
+    @Test
+    void cloneProduct_shouldCopyTheComponentsToEachCopy() throws Exception {
+        var other = componentRepository.save(TestComponentData.getComponentToCreate());
+        createProductComponentInRepository(component, 2);
+        createProductComponentInRepository(other, 5);
+
+        mockMvc.perform(post(Endpoint.PRODUCT.getEndpoint(product.getId()) + "/clone")
+                        .param("count", "2")
+                        .param("name", "Variant"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        var clones = productRepository.findAll().stream()
+                .filter(p -> !p.getId().equals(product.getId()))
+                .toList();
+        assertThat(clones).hasSize(2).allSatisfy(clone -> {
+            assertThat(clone.getName()).isEqualTo("Variant");
+            assertThat(clone.getDescription()).isEqualTo(product.getDescription());
+            assertThat(productComponentRepository.findAllWithComponentsByProductId(clone.getId()))
+                    .extracting(pc -> pc.getComponent().getId(), pc -> pc.getQuantity(), pc -> pc.getVersion())
+                    .containsExactlyInAnyOrder(
+                            tuple(component.getId(), 2, 0L),
+                            tuple(other.getId(), 5, 0L));
+        });
+        assertThat(productComponentRepository.findAllWithComponentsByProductId(product.getId())).hasSize(2);
+
+        mockMvc.perform(get(Endpoint.PRODUCT_COMPONENTS.getEndpoint(clones.getFirst().getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        assertThatUsageCountIs(component, 3);
+        assertThatUsageCountIs(other, 3);
+    }
+
+    @Test
+    void deleteProduct_shouldDeleteItsComponentEntriesAndReleaseTheComponents() throws Exception {
+        var other = componentRepository.save(TestComponentData.getComponentToCreate());
+        createProductComponentInRepository(component, 2);
+        createProductComponentInRepository(other, 5);
+
+        mockMvc.perform(delete(Endpoint.PRODUCT.getEndpoint(product.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products").value(1))
+                .andExpect(jsonPath("$.product_components").value(2));
+
+        assertThat(productRepository.findById(product.getId())).isNotPresent();
+        assertThat(productComponentRepository.findAllWithComponentsByProductId(product.getId())).isEmpty();
+        assertThatUsageCountIs(component, 0);
+        mockMvc.perform(get(Endpoint.COMPONENT.getEndpoint(other.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usageCount").value(0));
+        mockMvc.perform(get(Endpoint.PRODUCTS.getEndpoint() + "?componentId=" + other.getId()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
+
+    @Test
+    void deleteProductWithOutdatedETag_shouldKeepItsComponentEntries() throws Exception {
+        createProductComponentInRepository();
+
+        mockMvc.perform(delete(Endpoint.PRODUCT.getEndpoint(product.getId()))
+                        .header(HttpHeaders.IF_MATCH, "\"" + (product.getVersion() + 2) + "\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(productRepository.findById(product.getId())).isPresent();
+        assertThat(productComponentRepository.findAllWithComponentsByProductId(product.getId())).hasSize(1);
+    }
+
+    @Test
+    void deleteProducts_shouldDeleteAllWithTheirComponentEntries() throws Exception {
+        var secondProduct = productRepository.save(TestProductData.getProductToCreate());
+        createProductComponentInRepository();
+        createProductComponentInRepository(secondProduct, component, 3);
+
+        mockMvc.perform(delete(Endpoint.PRODUCTS.getEndpoint() + "/batch")
+                        .param("ids", String.valueOf(product.getId()), String.valueOf(secondProduct.getId()),
+                                String.valueOf(Long.MAX_VALUE)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products").value(2))
+                .andExpect(jsonPath("$.product_components").value(2));
+
+        assertThat(productRepository.findAllById(List.of(product.getId(), secondProduct.getId()))).isEmpty();
+        assertThatUsageCountIs(component, 0);
+    }
+
+    @Test
+    void adjustComponentQuantity_shouldAddDeltasAndKeepQuantityPositive() throws Exception {
+        createProductComponentInRepository(component, 3);
+        var endpoint = Endpoint.PRODUCT_COMPONENT.getEndpoint(product.getId(), component.getId());
+
+        mockMvc.perform(patch(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getAdjustQuantityRequestBody(2)))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getAdjustQuantityRequestBody(-4)))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getAdjustQuantityRequestBody(-1)))
+                .andDo(print())
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get(Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(1))
+                .andExpect(jsonPath("$[0].version").value(2));
+    }
+
+    @Test
+    void adjustComponentQuantity_overflowingQuantity_shouldKeepQuantity() throws Exception {
+        createProductComponentInRepository(component, Integer.MAX_VALUE - 1);
+        var endpoint = Endpoint.PRODUCT_COMPONENT.getEndpoint(product.getId(), component.getId());
+
+        mockMvc.perform(patch(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getAdjustQuantityRequestBody(2)))
+                .andDo(print())
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get(Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(Integer.MAX_VALUE - 1))
+                .andExpect(jsonPath("$[0].version").value(0));
+    }
+
+    @Test
+    void addComponentToProductTwice() throws Exception {
+        createProductComponentInRepository();
+
+        var endpoint = Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId());
+        var payload = TestData.getAddComponentRequestBody(component.getId());
+
+        mockMvc.perform(post(endpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(payload))
+                .andDo(print())
+                .andExpect(status().isConflict())
+                .andExpect(content().string(
+                        ExpectedErrorMessage.productAlreadyContainsComponent(product.getId(), component.getId())));
+
+        assertThat(productComponentRepository.count())
+                .as("The duplicate should be rejected by the unique constraint")
+                .isEqualTo(1);
+    }
+
+    @Test
+    void addAndRemoveComponent_shouldMaintainComponentUsageCount() throws Exception {
+        var componentEndpoint = Endpoint.COMPONENT.getEndpoint(component.getId());
+
+        mockMvc.perform(post(Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getAddComponentRequestBody(component.getId())))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get(componentEndpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usageCount").value(1))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + component.getVersion() + "\""));
+
+        mockMvc.perform(delete(Endpoint.PRODUCT_COMPONENT.getEndpoint(product.getId(), component.getId())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(componentEndpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usageCount").value(0));
+    }
+
+    @Test
+    void getComponentsForProduct_afterComponentEdit_shouldReturnEditedComponent() throws Exception {
+        createProductComponentInRepository();
+
+        var endpoint = Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId());
+
+        mockMvc.perform(get(endpoint))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].component.name").value(component.getName()));
+
+        mockMvc.perform(patch(Endpoint.COMPONENT.getEndpoint(component.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"edited component name\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(endpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].component.name").value("edited component name"));
+    }
+
     @Test
     void removeComponentFromProduct() throws Exception {
         createProductComponentInRepository();
@@ -91,6 +375,33 @@ class ProductContainsComponentsTests {
                 .isNotPresent();
     }
 
+    @Test
+    void getComponentsForProductConditionally() throws Exception {
+        createProductComponentInRepository();
+
+        var endpoint = Endpoint.PRODUCT_COMPONENTS.getEndpoint(product.getId());
+
+        var eTag = mockMvc.perform(get(endpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(endpoint).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch(Endpoint.PRODUCT_COMPONENT.getEndpoint(product.getId(), component.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestData.getUpdateQuantityRequestBody(5)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(endpoint).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantity").value(5));
+    }
+
     @Test
     void updateComponentQuantity() throws Exception {
         createProductComponentInRepository();
@@ -228,14 +539,15 @@ class ProductContainsComponentsTests {
                 .andExpect(jsonPath("$[1].component.modified").isString())
                 .andExpect(jsonPath("$[1].quantity").isNumber())
 
-                // Verify that each component has the correct ID and quantity
-                // Note: We can't guarantee order, so we check that the IDs and quantities exist somewhere
-                .andExpect(jsonPath("$[?(@.component.id == " + firstComponent.getId() + ")].quantity").value(firstComponentQuantity))
-                .andExpect(jsonPath("$[?(@.component.id == " + secondComponent.getId() + ")].quantity").value(secondComponentQuantity))
+                // Verify that the components are returned in the order they were added
+                .andExpect(jsonPath("$[0].component.id").value(firstComponent.getId()))
+                .andExpect(jsonPath("$[0].quantity").value(firstComponentQuantity))
+                .andExpect(jsonPath("$[1].component.id").value(secondComponent.getId()))
+                .andExpect(jsonPath("$[1].quantity").value(secondComponentQuantity))
 
                 // Verify component names are correctly associated
-                .andExpect(jsonPath("$[?(@.component.id == " + firstComponent.getId() + ")].component.name").value(firstComponent.getName()))
-                .andExpect(jsonPath("$[?(@.component.id == " + secondComponent.getId() + ")].component.name").value(secondComponent.getName()));
+                .andExpect(jsonPath("$[0].component.name").value(firstComponent.getName()))
+                .andExpect(jsonPath("$[1].component.name").value(secondComponent.getName()));
     }
 
     @Test
@@ -256,13 +568,12 @@ class ProductContainsComponentsTests {
         createProductComponentInRepository(component, DEFAULT_COMPONENT_QUANTITY);
     }
 
+    /**
+     * Adds the component through the service, so that the usage counter,
+     * the caches and the where-used index are kept current as well.
+     */
     private void createProductComponentInRepository(Component component, int quantity) {
-        var productComponentEntity = ProductComponent.builder()
-                .product(product)
-                .component(component)
-                .quantity(quantity)
-                .build();
-        productComponentRepository.save(productComponentEntity);
+        productComponentsService.addComponentToProduct(product.getId(), component.getId(), quantity);
 
         assertThatProductComponentIsSavedInRepository(product, component);
     }
@@ -330,13 +641,34 @@ class ProductContainsComponentsTests {
                 .andExpect(jsonPath("$.data[0].id").value(product.getId()));
     }
 
+    @Test
+    void getProductsByComponent_afterComponentRemoved_shouldNotReturnProduct() throws Exception {
+        var secondProduct = productRepository.save(TestProductData.getProductToCreate());
+
+        createProductComponentInRepository(component, DEFAULT_COMPONENT_QUANTITY);
+        createProductComponentInRepository(secondProduct, component, 3);
+
+        mockMvc.perform(delete(Endpoint.PRODUCT_COMPONENT.getEndpoint(product.getId(), component.getId())))
+                .andExpect(status().isOk());
+
+        var endpoint = Endpoint.PRODUCTS.getEndpoint() + "?componentId=" + component.getId();
+
+        mockMvc.perform(get(endpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id").value(secondProduct.getId()))
+                .andExpect(jsonPath("$.pagination.total").value(1));
+    }
+
     private void createProductComponentInRepository(Product product, Component component, int quantity) {
-        var productComponentEntity = ProductComponent.builder()
-                .product(product)
-                .component(component)
-                .quantity(quantity)
-                .build();
-        productComponentRepository.save(productComponentEntity);
+        productComponentsService.addComponentToProduct(product.getId(), component.getId(), quantity);
+    }
+
+    private void assertThatUsageCountIs(Component component, int usageCount) throws Exception {
+        mockMvc.perform(get(Endpoint.COMPONENT.getEndpoint(component.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usageCount").value(usageCount));
     }
 
     private void assertThatProductComponentIsSavedInRepository(Product product, Component component) {
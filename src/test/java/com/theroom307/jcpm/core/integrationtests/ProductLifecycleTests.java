@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -75,6 +76,36 @@ class ProductLifecycleTests {
                 .hasFieldOrPropertyWithValue("description", getProduct().getDescription());
     }
 
+    @Test
+    void searchProductAfterCreateAndEdit() throws Exception {
+        var createdProductId = mockMvc
+                .perform(post(PRODUCTS_ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Zirconia tiara\",\"description\":\"Hand-set stones\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(PRODUCTS_ENDPOINT + "/search").param("q", "TIARA zirconia"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(Long.parseLong(createdProductId)));
+
+        mockMvc.perform(patch(String.format(PRODUCT_ENDPOINT, createdProductId))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Moissanite tiara\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(PRODUCTS_ENDPOINT + "/search").param("q", "zirconia"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.total").value(0));
+
+        mockMvc.perform(get(PRODUCTS_ENDPOINT + "/search").param("q", "moissanite"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(Long.parseLong(createdProductId)));
+    }
+
     @Test
     void getExistingProduct() throws Exception {
         var product = productRepository.save(getProductToCreate());
@@ -164,6 +195,82 @@ class ProductLifecycleTests {
         assertThat(productRepository.findById(product.getId()))
                 .as("The product should be not present")
                 .isNotPresent();
+
+        mockMvc.perform(delete(String.format(PRODUCT_ENDPOINT, product.getId())))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"products\":0,\"product_components\":0}"));
     }
 
+    @Test
+    void editProductWithETag() throws Exception {
+        var product = productRepository.save(getProductToCreate());
+        var productEndpoint = String.format(PRODUCT_ENDPOINT, product.getId());
+
+        var eTag = mockMvc.perform(get(productEndpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(patch(productEndpoint)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"First Edit\"}"))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch(productEndpoint)
+                        .header(HttpHeaders.IF_MATCH, eTag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Lost Update\"}"))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(delete(productEndpoint)
+                        .header(HttpHeaders.IF_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(productRepository.findById(product.getId()))
+                .as("The first edit should be kept and the outdated requests should be rejected")
+                .isPresent()
+                .get()
+                .hasFieldOrPropertyWithValue("name", "First Edit")
+                .extracting(Product::getVersion)
+                .as("The version should be incremented once")
+                .isEqualTo(product.getVersion() + 1);
+    }
+
+    @Test
+    void getExistingProductConditionally() throws Exception {
+        var product = productRepository.save(getProductToCreate());
+        var productEndpoint = String.format(PRODUCT_ENDPOINT, product.getId());
+
+        var response = mockMvc.perform(get(productEndpoint))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse();
+        var eTag = response.getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(productEndpoint).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(productEndpoint)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, response.getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch(productEndpoint)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\": \"Changed\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get(productEndpoint).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description").value("Changed"));
+    }
 }
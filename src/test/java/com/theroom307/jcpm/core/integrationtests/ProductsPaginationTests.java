@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.integrationtests;
 
+import com.jayway.jsonpath.JsonPath;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
@@ -18,8 +19,10 @@ import java.util.stream.IntStream;
 
 import static com.theroom307.jcpm.core.TestTypes.INTEGRATION_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestProductData.getProductToCreate;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -144,6 +147,200 @@ class ProductsPaginationTests {
                 )));
     }
 
+    @Test
+    void twoPagesWithCursorTest() throws Exception {
+        var tenProducts = createTenProducts();
+
+        // request the first page
+        var firstPage = mockMvc.perform(get(ENDPOINT)
+                        .queryParam("after", "")
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination").doesNotExist())
+                .andExpect(jsonPath("$.cursor.size").value(7))
+                .andExpect(jsonPath("$.cursor.count").value(7))
+                .andExpect(jsonPath("$.cursor.next").isString())
+                .andExpect(jsonPath("$.data", hasSize(7)))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(0).getName(),
+                        tenProducts.get(1).getName(),
+                        tenProducts.get(2).getName(),
+                        tenProducts.get(3).getName(),
+                        tenProducts.get(4).getName(),
+                        tenProducts.get(5).getName(),
+                        tenProducts.get(6).getName()
+                )))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.cursor.next");
+
+        // request the second page
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("after", next)
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.size").value(7))
+                .andExpect(jsonPath("$.cursor.count").value(3))
+                .andExpect(jsonPath("$.cursor.next").value(nullValue()))
+                .andExpect(jsonPath("$.data", hasSize(3)))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(7).getName(),
+                        tenProducts.get(8).getName(),
+                        tenProducts.get(9).getName()
+                )));
+    }
+
+    @Test
+    void sortedByNameWithCursorTest() throws Exception {
+        var tenProducts = createTenProducts();
+
+        // the names are compared as strings, so "10" comes between "1" and "2"
+        var firstPage = mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "name,desc")
+                        .queryParam("after", "")
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.count").value(7))
+                .andExpect(jsonPath("$.cursor.next").isString())
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(8).getName(),
+                        tenProducts.get(7).getName(),
+                        tenProducts.get(6).getName(),
+                        tenProducts.get(5).getName(),
+                        tenProducts.get(4).getName(),
+                        tenProducts.get(3).getName(),
+                        tenProducts.get(2).getName()
+                )))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.cursor.next");
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "name,desc")
+                        .queryParam("after", next)
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.count").value(3))
+                .andExpect(jsonPath("$.cursor.next").value(nullValue()))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(1).getName(),
+                        tenProducts.get(9).getName(),
+                        tenProducts.get(0).getName()
+                )));
+
+        // the cursor is only valid for the sort it was issued for
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "name,asc")
+                        .queryParam("after", next))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void sortedByCreatedWithCursorTest() throws Exception {
+        var tenProducts = createTenProducts();
+
+        var firstPage = mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "created,desc")
+                        .queryParam("after", "")
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(7)))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.cursor.next");
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "created,desc")
+                        .queryParam("after", next)
+                        .queryParam("size", "7"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.next").value(nullValue()))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(2).getName(),
+                        tenProducts.get(1).getName(),
+                        tenProducts.get(0).getName()
+                )));
+    }
+
+    @Test
+    void sortedByNameWithCursorAndMissingNamesTest() throws Exception {
+        var named = productRepository.save(getProductToCreate());
+        var unnamed = IntStream.rangeClosed(1, 2)
+                .mapToObj(i -> {
+                    var product = getProductToCreate();
+                    product.setName(null);
+                    return productRepository.save(product);
+                })
+                .toList();
+
+        var firstPage = mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "name,asc")
+                        .queryParam("after", "")
+                        .queryParam("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].id", contains(unnamed.get(0).getId().intValue())))
+                .andReturn();
+
+        String next = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.cursor.next");
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("sort", "name,asc")
+                        .queryParam("after", next)
+                        .queryParam("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor.next").value(nullValue()))
+                .andExpect(jsonPath("$.data[*].id", contains(
+                        unnamed.get(1).getId().intValue(),
+                        named.getId().intValue()
+                )));
+    }
+
+    @Test
+    void filteredByNamePrefixTest() throws Exception {
+        var tenProducts = createTenProducts();
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("namePrefix", tenProducts.get(0).getName())
+                        .queryParam("sort", "name"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.count").value(2))
+                .andExpect(jsonPath("$.pagination.total").value(2))
+                .andExpect(jsonPath("$.data[*].name", contains(
+                        tenProducts.get(0).getName(),
+                        tenProducts.get(9).getName()
+                )));
+    }
+
+    @Test
+    void filteredByCreatedRangeTest() throws Exception {
+        createTenProducts();
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("createdTo", "2000-01-01T00:00:00Z"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.total").value(0))
+                .andExpect(jsonPath("$.data", hasSize(0)));
+
+        mockMvc.perform(get(ENDPOINT)
+                        .queryParam("createdFrom", "2000-01-01T00:00:00Z")
+                        .queryParam("total", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.hasNext").value(false))
+                .andExpect(jsonPath("$.data", hasSize(10)));
+    }
+
     private List<Product> createTenProducts() {
         var createdProducts = Collections.synchronizedList(new ArrayList<Product>());
         IntStream.rangeClosed(1, 10).forEach(i -> {
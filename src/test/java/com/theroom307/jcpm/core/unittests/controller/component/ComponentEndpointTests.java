@@ -2,15 +2,19 @@ package com.theroom307.jcpm.core.unittests.controller.component;
 
 import com.theroom307.jcpm.core.controller.ComponentController;
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.service.ItemService;
-import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.service.impl.ItemDtoMapperImpl;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
 import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -19,9 +23,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.format.DateTimeFormatter;
+
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -44,13 +51,15 @@ class ComponentEndpointTests {
     @MockitoBean
     private ItemService<Component> componentService;
 
-    @MockitoBean
-    private ProductComponentsService productComponentsService;
+    @BeforeEach
+    void mockMetadata() {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(getComponentMetadata());
+    }
 
     @Test
     void getComponent_shouldReturnComponentDto() throws Exception {
-        var component = getComponent();
-        when(componentService.getItem(anyLong())).thenReturn(component);
+        var component = getComponentResponse();
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class))).thenReturn(component);
 
         var componentDtoAsJson = getComponentResponseAsString();
 
@@ -63,7 +72,7 @@ class ComponentEndpointTests {
 
     @Test
     void getComponent_whenComponentDoesNotExist_shouldRespond404() throws Exception {
-        when(componentService.getItem(anyLong()))
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
                 .thenThrow(new ItemNotFoundException(Item.COMPONENT.toString(), VALID_COMPONENT_ID));
 
         this.mockMvc
@@ -75,14 +84,14 @@ class ComponentEndpointTests {
 
     @Test
     void getComponent_shouldRequestFromService() throws Exception {
-        when(componentService.getItem(anyLong()))
-                .thenReturn(getComponent());
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
+                .thenReturn(getComponentResponse());
 
         this.mockMvc
                 .perform(get(ENDPOINT))
                 .andDo(print());
 
-        verify(componentService).getItem(VALID_COMPONENT_ID);
+        verify(componentService).getItem(VALID_COMPONENT_ID, ComponentResponseDto.class);
     }
 
     @Test
@@ -100,13 +109,14 @@ class ComponentEndpointTests {
                 .perform(delete(ENDPOINT))
                 .andDo(print());
 
-        verify(componentService).deleteItem(VALID_COMPONENT_ID);
+        verify(componentService).deleteItem(VALID_COMPONENT_ID, null);
     }
 
     @Test
     void deleteComponent_whenComponentInUse_shouldReturn409() throws Exception {
-        var componentId = 311;
-        when(productComponentsService.isComponentInUse(componentId)).thenReturn(true);
+        var componentId = 311L;
+        doThrow(new ConditionFailedException(ExpectedErrorMessage.componentIsInUse(componentId)))
+                .when(componentService).deleteItem(componentId, null);
 
         var endpoint = Endpoint.COMPONENT.getEndpoint(componentId);
         this.mockMvc
@@ -116,6 +126,176 @@ class ComponentEndpointTests {
                 .andExpect(content().string(ExpectedErrorMessage.componentIsInUse(componentId)));
     }
 
+    @Test
+    void getComponent_shouldReturnVersionAsETag() throws Exception {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getComponent().getModified()));
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
+                .thenReturn(getComponentResponse());
+
+        this.mockMvc
+                .perform(get(ENDPOINT))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void getComponent_matchingIfNoneMatch_shouldReturn304WithoutReadingComponent() throws Exception {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getComponent().getModified()));
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(componentService, never()).getItem(anyLong(), any());
+    }
+
+    @Test
+    void getComponent_notModifiedSinceIfModifiedSince_shouldReturn304() throws Exception {
+        var modified = getComponent().getModified();
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, modified));
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, DateTimeFormatter.RFC_1123_DATE_TIME.format(modified)))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(componentService, never()).getItem(anyLong(), any());
+    }
+
+    @Test
+    void getComponent_outdatedIfNoneMatch_shouldReturnComponent() throws Exception {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(4L, getComponent().getModified()));
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
+                .thenReturn(getComponentResponse());
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(content().json(getComponentResponseAsString()));
+    }
+
+    @Test
+    void deleteComponent_withIfMatch_shouldPassExpectedVersionToService() throws Exception {
+        this.mockMvc
+                .perform(delete(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(componentService).deleteItem(VALID_COMPONENT_ID, 3L);
+    }
+
+    @Test
+    void editComponent_withIfMatch_shouldPassExpectedVersionToService() throws Exception {
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(componentService).editItem(eq(VALID_COMPONENT_ID), any(), eq(3L));
+    }
+
+    @Test
+    void editComponent_outdatedIfMatch_shouldReturn412() throws Exception {
+        doThrow(new PreconditionFailedException(ExpectedErrorMessage.componentVersionMismatch(VALID_COMPONENT_ID, 3L)))
+                .when(componentService).editItem(anyLong(), any(), any());
+
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string(ExpectedErrorMessage.componentVersionMismatch(VALID_COMPONENT_ID, 3L)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"3", "\"3", "W/3", "\"3\" \"4\"", "*, \"3\"", ", ,"})
+    void editComponent_invalidIfMatch_shouldReturn400(String ifMatch) throws Exception {
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(ExpectedErrorMessage.invalidIfMatch()));
+
+        verify(componentService, never()).editItem(anyLong(), any(), any());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"W/\"3\"", "\"abc\"", "\"1\", \"2\""})
+    void editComponent_notMatchingIfMatch_shouldReturn412(String ifMatch) throws Exception {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getComponent().getModified()));
+
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        verify(componentService, never()).editItem(anyLong(), any(), any());
+    }
+
+    @Test
+    void editComponent_ifMatchListWithCurrentVersion_shouldPassCurrentVersionToService() throws Exception {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getComponent().getModified()));
+
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "W/\"1\", \"2\", \"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(componentService).editItem(eq(VALID_COMPONENT_ID), any(), eq(3L));
+    }
+
+    @Test
+    void editComponent_ifMatchAny_shouldEditUnconditionally() throws Exception {
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getComponentDtoToCreateComponent()))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(componentService).editItem(eq(VALID_COMPONENT_ID), any(), isNull());
+    }
+
+    @Test
+    void deleteComponent_ifMatchAnyForMissingComponent_shouldReturn412() throws Exception {
+        when(componentService.getItemMetadata(anyLong()))
+                .thenThrow(new ItemNotFoundException(Item.COMPONENT.toString(), VALID_COMPONENT_ID));
+
+        this.mockMvc
+                .perform(delete(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+
+        verify(componentService, never()).deleteItem(anyLong(), any());
+    }
+
     @Test
     void editComponent_validInput_shouldReturn200() throws Exception {
         this.mockMvc
@@ -130,7 +310,7 @@ class ComponentEndpointTests {
     @Test
     void editComponent_invalidComponentId_shouldReturn404() throws Exception {
         doThrow(new ItemNotFoundException(Item.COMPONENT.toString(), VALID_COMPONENT_ID))
-                .when(componentService).editItem(anyLong(), any());
+                .when(componentService).editItem(anyLong(), any(), any());
 
         this.mockMvc
                 .perform(patch(ENDPOINT)
@@ -146,7 +326,7 @@ class ComponentEndpointTests {
         var errorMessage = "Invalid Component Data Error Message";
 
         doThrow(new BadRequestException(errorMessage))
-                .when(componentService).editItem(anyLong(), any());
+                .when(componentService).editItem(anyLong(), any(), any());
 
         this.mockMvc
                 .perform(patch(ENDPOINT)
@@ -215,7 +395,7 @@ class ComponentEndpointTests {
                         .content(requestBody))
                 .andDo(print());
 
-        verify(componentService).editItem(VALID_COMPONENT_ID, expectedComponent);
+        verify(componentService).editItem(VALID_COMPONENT_ID, expectedComponent, null);
     }
 
 }
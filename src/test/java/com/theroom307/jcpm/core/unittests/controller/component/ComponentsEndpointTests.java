@@ -1,11 +1,13 @@
 package com.theroom307.jcpm.core.unittests.controller.component;
 
 import com.theroom307.jcpm.core.controller.ComponentController;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.service.ItemService;
-import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.service.impl.ItemDtoMapperImpl;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,24 +17,26 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static com.theroom307.jcpm.core.utils.data.TestData.getCollectionVersion;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Tag(UNIT_TEST)
 @WebMvcTest(ComponentController.class)
 @Import(ItemDtoMapperImpl.class)
-@MockitoBean(types = ProductComponentsService.class)
 class ComponentsEndpointTests {
 
     private final static String ENDPOINT = Endpoint.COMPONENTS.getEndpoint();
@@ -43,11 +47,16 @@ class ComponentsEndpointTests {
     @MockitoBean
     private ItemService<Component> componentService;
 
+    @BeforeEach
+    void mockMetadata() {
+        when(componentService.getItemsVersion()).thenReturn(getCollectionVersion());
+    }
+
     @Test
     void getComponents_whenNoComponentsExist_shouldReturnEmptyComponentListWrapper() throws Exception {
-        Page<Component> emptyPage = Page.empty(PageRequest.of(0, 10));
+        Page<ComponentResponseDto> emptyPage = Page.empty(PageRequest.of(0, 10));
 
-        when(componentService.getItems(anyInt(), anyInt())).thenReturn(emptyPage);
+        when(componentService.getItems(anyInt(), anyInt(), eq(ComponentResponseDto.class))).thenReturn(emptyPage);
 
         this.mockMvc
                 .perform(get(ENDPOINT))
@@ -58,8 +67,8 @@ class ComponentsEndpointTests {
 
     @Test
     void getComponents_whenOneComponentExists_shouldReturnComponentListWrapperWithOneComponent() throws Exception {
-        var components = new PageImpl<>(List.of(getComponent()), PageRequest.of(0, 10), 1);
-        when(componentService.getItems(anyInt(), anyInt())).thenReturn(components);
+        var components = new PageImpl<>(List.of(getComponentResponse()), PageRequest.of(0, 10), 1);
+        when(componentService.getItems(anyInt(), anyInt(), eq(ComponentResponseDto.class))).thenReturn(components);
 
         this.mockMvc
                 .perform(get(ENDPOINT))
@@ -72,7 +81,24 @@ class ComponentsEndpointTests {
     void getComponents_shouldRequestFromComponentService() throws Exception {
         this.mockMvc
                 .perform(get(ENDPOINT));
-        verify(componentService).getItems(anyInt(), anyInt());
+        verify(componentService).getItems(anyInt(), anyInt(), eq(ComponentResponseDto.class));
+    }
+
+    @Test
+    void getComponents_withoutTotal_shouldRequestSliceAndReturnHasNext() throws Exception {
+        var components = new SliceImpl<>(List.of(getComponentResponse()), PageRequest.of(0, 10), true);
+        when(componentService.getItemSlice(anyInt(), anyInt(), eq(ComponentResponseDto.class))).thenReturn(components);
+
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("total", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.count").value(1))
+                .andExpect(jsonPath("$.pagination.hasNext").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(componentService).getItemSlice(0, 10, ComponentResponseDto.class);
+        verify(componentService, never()).getItems(anyInt(), anyInt(), eq(ComponentResponseDto.class));
     }
 
     @Test
@@ -104,4 +130,103 @@ class ComponentsEndpointTests {
                 .andExpect(status().isCreated())
                 .andExpect(content().string(savedComponentIdAsString));
     }
+
+    @Test
+    void postComponentBatch_shouldCreateAllInOneCallAndReturnIdsInOrder() throws Exception {
+        when(componentService.createItems(anyList())).thenReturn(List.of(7L, 8L));
+        var component = getComponentDtoToCreateComponent();
+
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + component + "," + component + "]"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().json("[7,8]"));
+
+        verify(componentService).createItems(List.of(getComponentToCreate(), getComponentToCreate()));
+        verify(componentService, never()).createItem(any());
+    }
+
+    @Test
+    void postComponentBatch_empty_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The batch must contain 1 to 500 items"));
+
+        verify(componentService, never()).createItems(anyList());
+    }
+
+    @Test
+    void postComponentBatch_invalidComponent_shouldCreateNone() throws Exception {
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + getComponentDtoToCreateComponent() + ",{\"name\": \" \"}]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Component name is required"));
+
+        verify(componentService, never()).createItems(anyList());
+    }
+
+    @Test
+    void searchComponents_shouldReturnComponentListWrapper() throws Exception {
+        var components = new PageImpl<>(List.of(getComponentResponse()), PageRequest.of(0, 10), 1);
+        when(componentService.searchItems("gold ring", 0, 10, ComponentResponseDto.class)).thenReturn(components);
+
+        this.mockMvc
+                .perform(get(ENDPOINT + "/search").param("q", "gold ring"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(getComponentListResponseAsString()));
+    }
+
+    @Test
+    void searchComponents_blankQuery_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/search").param("q", " "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Search query must not be blank"));
+
+        verify(componentService, never()).searchItems(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void autocompleteComponents_shouldReturnSuggestions() throws Exception {
+        when(componentService.suggestItems("gold ri", 10)).thenReturn(List.of(new ItemSuggestion(1L, "Gold ring")));
+
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", "gold ri"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"name\":\"Gold ring\"}]"));
+    }
+
+    @Test
+    void autocompleteComponents_blankPrefix_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", " "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Prefix must not be blank"));
+
+        verify(componentService, never()).suggestItems(any(), anyInt());
+    }
+
+    @Test
+    void autocompleteComponents_limitTooLarge_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", "gold").param("limit", "51"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Limit must not be greater than 50"));
+
+        verify(componentService, never()).suggestItems(any(), anyInt());
+    }
 }
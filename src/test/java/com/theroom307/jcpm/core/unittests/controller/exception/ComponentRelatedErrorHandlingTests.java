@@ -2,13 +2,14 @@ package com.theroom307.jcpm.core.unittests.controller.exception;
 
 import com.theroom307.jcpm.core.controller.ComponentController;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.ItemService;
-import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -21,8 +22,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static com.theroom307.jcpm.core.utils.data.TestData.getCollectionVersion;
+import static com.theroom307.jcpm.core.utils.data.TestComponentData.getComponentMetadata;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -33,7 +37,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @Tag(UNIT_TEST)
 @WebMvcTest(ComponentController.class)
-@MockitoBean(types = {ItemDtoMapper.class, ProductComponentsService.class})
+@MockitoBean(types = ItemDtoMapper.class)
 class ComponentRelatedErrorHandlingTests {
 
     private final static String ENDPOINT = Endpoint.COMPONENTS.getEndpoint();
@@ -44,9 +48,15 @@ class ComponentRelatedErrorHandlingTests {
     @MockitoBean
     private ItemService<Component> componentService;
 
+    @BeforeEach
+    void mockMetadata() {
+        when(componentService.getItemMetadata(anyLong())).thenReturn(getComponentMetadata());
+        when(componentService.getItemsVersion()).thenReturn(getCollectionVersion());
+    }
+
     @Test
     void shouldReturnGeneralError() throws Exception {
-        when(componentService.getItem(anyLong()))
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
                 .thenThrow(new RuntimeException());
 
         this.mockMvc
@@ -95,6 +105,16 @@ class ComponentRelatedErrorHandlingTests {
                 .andExpect(content().string(containsString(ExpectedErrorMessage.pageSizeMustBeGreaterThanZero())));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor", "YQ", "LTE"})
+    void getComponents_cursor_invalidToken_shouldReturnBadRequest(String after) throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("after", after))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(ExpectedErrorMessage.invalidCursor()));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"page", "size"})
     void getComponents_pagination_stringAsValue_shouldReturnBadRequest(String parameter) throws Exception {
@@ -107,7 +127,7 @@ class ComponentRelatedErrorHandlingTests {
 
     @Test
     void shouldRespond404WhenComponentDoesNotExist() throws Exception {
-        when(componentService.getItem(anyLong()))
+        when(componentService.getItem(anyLong(), eq(ComponentResponseDto.class)))
                 .thenThrow(new ItemNotFoundException(Item.COMPONENT.toString(), 1));
 
         this.mockMvc
@@ -116,7 +136,7 @@ class ComponentRelatedErrorHandlingTests {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(ExpectedErrorMessage.componentNotFound(1)));
 
-        verify(componentService).getItem(1L);
+        verify(componentService).getItem(1L, ComponentResponseDto.class);
     }
 
     @ParameterizedTest
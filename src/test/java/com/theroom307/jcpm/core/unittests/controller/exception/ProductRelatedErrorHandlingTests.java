@@ -2,6 +2,7 @@ package com.theroom307.jcpm.core.unittests.controller.exception;
 
 import com.theroom307.jcpm.core.controller.ProductController;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.ItemService;
@@ -9,6 +10,7 @@ import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -21,8 +23,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static com.theroom307.jcpm.core.utils.data.TestData.getCollectionVersion;
+import static com.theroom307.jcpm.core.utils.data.TestProductData.getProductMetadata;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -44,9 +49,15 @@ class ProductRelatedErrorHandlingTests {
     @MockitoBean
     private ItemService<Product> productService;
 
+    @BeforeEach
+    void mockMetadata() {
+        when(productService.getItemMetadata(anyLong())).thenReturn(getProductMetadata());
+        when(productService.getItemsVersion()).thenReturn(getCollectionVersion());
+    }
+
     @Test
     void shouldReturnGeneralError() throws Exception {
-        when(productService.getItem(anyLong()))
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
                 .thenThrow(new RuntimeException());
 
         this.mockMvc
@@ -95,6 +106,16 @@ class ProductRelatedErrorHandlingTests {
                 .andExpect(content().string(containsString(ExpectedErrorMessage.pageSizeMustBeGreaterThanZero())));
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"not a cursor", "YQ", "LTE"})
+    void getProducts_cursor_invalidToken_shouldReturnBadRequest(String after) throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("after", after))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(ExpectedErrorMessage.invalidCursor()));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"page", "size"})
     void getProducts_pagination_stringAsValue_shouldReturnBadRequest(String parameter) throws Exception {
@@ -107,7 +128,7 @@ class ProductRelatedErrorHandlingTests {
 
     @Test
     void shouldRespond404WhenProductDoesNotExist() throws Exception {
-        when(productService.getItem(anyLong()))
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
                 .thenThrow(new ItemNotFoundException(Item.PRODUCT.toString(), 1));
 
         this.mockMvc
@@ -116,7 +137,7 @@ class ProductRelatedErrorHandlingTests {
                 .andExpect(status().isNotFound())
                 .andExpect(content().string(ExpectedErrorMessage.productNotFound(1)));
 
-        verify(productService).getItem(1L);
+        verify(productService).getItem(1L, ProductResponseDto.class);
     }
 
     @ParameterizedTest
@@ -4,26 +4,33 @@ import com.theroom307.jcpm.core.controller.ProductController;
 import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
 import com.theroom307.jcpm.core.controller.exception.NotFoundException;
-import com.theroom307.jcpm.core.data.model.Component;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.BomComponentDto;
+import com.theroom307.jcpm.core.data.dto.BomDiff;
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.ComponentQuantityDto;
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.ItemService;
 import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
 import com.theroom307.jcpm.core.utils.data.TestComponentData;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.util.Collections;
-import java.util.Map;
+import java.util.List;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.VALID_COMPONENT_ID;
@@ -46,6 +53,11 @@ class ProductComponentEndpointTests {
     @MockitoBean
     private ProductComponentsService productComponentsService;
 
+    @BeforeEach
+    void mockMetadata() {
+        when(productComponentsService.getComponentsForProductMetadata(anyLong())).thenReturn(getEmptyCollectionMetadata());
+    }
+
     /*
         ADD A COMPONENT TO THE PRODUCT
      */
@@ -169,7 +181,7 @@ class ProductComponentEndpointTests {
                 .perform(createRemoveComponentRequest(productId, componentId))
                 .andDo(print());
         verify(productComponentsService)
-                .removeComponentFromProduct(productId, componentId);
+                .removeComponentFromProduct(productId, componentId, null);
     }
 
     @Test
@@ -178,7 +190,7 @@ class ProductComponentEndpointTests {
         long componentId = 456;
 
         doThrow(new ItemNotFoundException(Item.PRODUCT.toString(), productId))
-                .when(productComponentsService).removeComponentFromProduct(eq(productId), anyLong());
+                .when(productComponentsService).removeComponentFromProduct(eq(productId), anyLong(), any());
 
         this.mockMvc
                 .perform(createRemoveComponentRequest(productId, componentId))
@@ -194,7 +206,7 @@ class ProductComponentEndpointTests {
         var errorMessage = ExpectedErrorMessage.productDoesNotContainComponent(productId, componentId);
 
         doThrow(new NotFoundException(errorMessage))
-                .when(productComponentsService).removeComponentFromProduct(eq(productId), eq(componentId));
+                .when(productComponentsService).removeComponentFromProduct(eq(productId), eq(componentId), any());
 
         this.mockMvc
                 .perform(createRemoveComponentRequest(productId, componentId))
@@ -203,6 +215,48 @@ class ProductComponentEndpointTests {
                 .andExpect(content().string(errorMessage));
     }
 
+    @Test
+    void removeComponent_withIfMatch_shouldPassExpectedVersionToService() throws Exception {
+        long productId = 123;
+        long componentId = 321;
+        this.mockMvc
+                .perform(createRemoveComponentRequest(productId, componentId)
+                        .header(HttpHeaders.IF_MATCH, "\"2\""))
+                .andDo(print())
+                .andExpect(status().isOk());
+        verify(productComponentsService)
+                .removeComponentFromProduct(productId, componentId, 2L);
+    }
+
+    @Test
+    void removeComponent_ifMatchListWithCurrentVersion_shouldPassCurrentVersionToService() throws Exception {
+        var bom = createTestProductComponents().stream()
+                .map(entry -> entry.withVersion(4L))
+                .toList();
+        when(productComponentsService.getComponentsForProduct(VALID_PRODUCT_ID)).thenReturn(bom);
+
+        this.mockMvc
+                .perform(createRemoveComponentRequest(VALID_PRODUCT_ID, 2L)
+                        .header(HttpHeaders.IF_MATCH, "\"3\", \"4\""))
+                .andDo(print())
+                .andExpect(status().isOk());
+        verify(productComponentsService)
+                .removeComponentFromProduct(VALID_PRODUCT_ID, 2L, 4L);
+    }
+
+    @Test
+    void removeComponent_ifMatchAnyForMissingEntry_shouldReturn412() throws Exception {
+        when(productComponentsService.getComponentsForProduct(VALID_PRODUCT_ID)).thenReturn(List.of());
+
+        this.mockMvc
+                .perform(createRemoveComponentRequest(VALID_PRODUCT_ID, 2L)
+                        .header(HttpHeaders.IF_MATCH, "*"))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed());
+        verify(productComponentsService, never())
+                .removeComponentFromProduct(anyLong(), anyLong(), any());
+    }
+
     /*
         UPDATE COMPONENT QUANTITY
      */
@@ -225,7 +279,66 @@ class ProductComponentEndpointTests {
                 .perform(createUpdateQuantityRequest(productId, componentId, getUpdateQuantityRequestBody(quantity)))
                 .andDo(print());
         verify(productComponentsService)
-                .updateComponentQuantity(productId, componentId, quantity);
+                .updateComponentQuantity(productId, componentId, quantity, null);
+    }
+
+    @Test
+    void updateComponentQuantity_withDelta_shouldAdjustWithoutSettingQuantity() throws Exception {
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(VALID_PRODUCT_ID, VALID_COMPONENT_ID, getAdjustQuantityRequestBody(-2))
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(productComponentsService).adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, -2, 3L);
+        verify(productComponentsService, never()).updateComponentQuantity(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void updateComponentQuantity_withQuantityAndDelta_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(VALID_PRODUCT_ID, VALID_COMPONENT_ID,
+                        "{\"quantity\": 2, \"delta\": 1}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Only one of 'quantity' and 'delta' can be given"));
+
+        verify(productComponentsService, never()).adjustComponentQuantity(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void updateComponentQuantity_zeroDelta_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(VALID_PRODUCT_ID, VALID_COMPONENT_ID, getAdjustQuantityRequestBody(0)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Delta must not be zero"));
+
+        verify(productComponentsService, never()).adjustComponentQuantity(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void updateComponentQuantity_deltaOutOfRange_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(VALID_PRODUCT_ID, VALID_COMPONENT_ID,
+                        getAdjustQuantityRequestBody(Integer.MAX_VALUE)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Delta must not be greater than " + ComponentQuantityDto.MAX_DELTA));
+
+        verify(productComponentsService, never()).adjustComponentQuantity(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void updateComponentQuantity_deltaBelowOne_shouldReturn409() throws Exception {
+        doThrow(new ConditionFailedException("The quantity 1 of component '2' in product '1' cannot be changed by -1, " +
+                                             "it must stay greater than zero"))
+                .when(productComponentsService).adjustComponentQuantity(anyLong(), anyLong(), anyInt(), any());
+
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(VALID_PRODUCT_ID, VALID_COMPONENT_ID, getAdjustQuantityRequestBody(-1)))
+                .andDo(print())
+                .andExpect(status().isConflict());
     }
 
     @Test
@@ -234,7 +347,7 @@ class ProductComponentEndpointTests {
         long componentId = 456;
 
         doThrow(new ItemNotFoundException(Item.PRODUCT.toString(), productId))
-                .when(productComponentsService).updateComponentQuantity(eq(productId), anyLong(), anyInt());
+                .when(productComponentsService).updateComponentQuantity(eq(productId), anyLong(), anyInt(), any());
 
         this.mockMvc
                 .perform(createUpdateQuantityRequest(productId, componentId, getUpdateQuantityRequestBody(5)))
@@ -249,7 +362,7 @@ class ProductComponentEndpointTests {
         long componentId = 321;
 
         doThrow(new ItemNotFoundException(Item.COMPONENT.toString(), componentId))
-                .when(productComponentsService).updateComponentQuantity(anyLong(), eq(componentId), anyInt());
+                .when(productComponentsService).updateComponentQuantity(anyLong(), eq(componentId), anyInt(), any());
 
         this.mockMvc
                 .perform(createUpdateQuantityRequest(productId, componentId, getUpdateQuantityRequestBody(5)))
@@ -265,7 +378,7 @@ class ProductComponentEndpointTests {
         var errorMessage = ExpectedErrorMessage.productDoesNotContainComponent(productId, componentId);
 
         doThrow(new NotFoundException(errorMessage))
-                .when(productComponentsService).updateComponentQuantity(eq(productId), eq(componentId), anyInt());
+                .when(productComponentsService).updateComponentQuantity(eq(productId), eq(componentId), anyInt(), any());
 
         this.mockMvc
                 .perform(createUpdateQuantityRequest(productId, componentId, getUpdateQuantityRequestBody(5)))
@@ -274,6 +387,23 @@ class ProductComponentEndpointTests {
                 .andExpect(content().string(errorMessage));
     }
 
+    @Test
+    void updateComponentQuantity_outdatedIfMatch_shouldReturn412() throws Exception {
+        long productId = 123;
+        long componentId = 321;
+        var errorMessage = ExpectedErrorMessage.productComponentVersionMismatch(productId, componentId, 2L);
+
+        doThrow(new PreconditionFailedException(errorMessage))
+                .when(productComponentsService).updateComponentQuantity(eq(productId), eq(componentId), anyInt(), eq(2L));
+
+        this.mockMvc
+                .perform(createUpdateQuantityRequest(productId, componentId, getUpdateQuantityRequestBody(5))
+                        .header(HttpHeaders.IF_MATCH, "\"2\""))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string(errorMessage));
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {0, -1})
     void updateComponentQuantity_invalidQuantity_shouldReturnBadRequest(int invalidQuantity) throws Exception {
@@ -295,6 +425,125 @@ class ProductComponentEndpointTests {
                 .andExpect(content().string(ExpectedErrorMessage.quantityIsRequired()));
     }
 
+    /*
+        REPLACE ALL COMPONENTS OF THE PRODUCT
+     */
+
+    @Test
+    void replaceComponents_shouldReturnAppliedDiff() throws Exception {
+        var diff = new BomDiff(
+                List.of(new BomDiff.Entry(2L, 1)),
+                List.of(new BomDiff.Entry(3L, 5)),
+                List.of(4L));
+        when(productComponentsService.replaceComponents(eq(VALID_PRODUCT_ID), anyList())).thenReturn(diff);
+
+        this.mockMvc
+                .perform(createReplaceComponentsRequest(VALID_PRODUCT_ID,
+                        "[{\"component_id\": 2}, {\"component_id\": 3, \"quantity\": 5}]"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {"added": [{"component_id": 2, "quantity": 1}],
+                         "updated": [{"component_id": 3, "quantity": 5}],
+                         "removed": [4]}
+                        """));
+
+        verify(productComponentsService).replaceComponents(eq(VALID_PRODUCT_ID), argThat(components ->
+                components.size() == 2 && components.get(1).getQuantity() == 5));
+    }
+
+    @Test
+    void replaceComponents_emptyList_shouldPassEmptyListToService() throws Exception {
+        when(productComponentsService.replaceComponents(eq(VALID_PRODUCT_ID), anyList()))
+                .thenReturn(new BomDiff(List.of(), List.of(), List.of(4L)));
+
+        this.mockMvc
+                .perform(createReplaceComponentsRequest(VALID_PRODUCT_ID, "[]"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.removed[0]").value(4));
+
+        verify(productComponentsService).replaceComponents(VALID_PRODUCT_ID, List.of());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    void replaceComponents_invalidQuantity_shouldReturnBadRequest(int invalidQuantity) throws Exception {
+        this.mockMvc
+                .perform(createReplaceComponentsRequest(VALID_PRODUCT_ID,
+                        "[{\"component_id\": 2, \"quantity\": " + invalidQuantity + "}]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(ExpectedErrorMessage.quantityMustBeGreaterThanZero()));
+
+        verify(productComponentsService, never()).replaceComponents(anyLong(), anyList());
+    }
+
+    @Test
+    void replaceComponents_nonExistingComponent_shouldReturn404() throws Exception {
+        when(productComponentsService.replaceComponents(eq(VALID_PRODUCT_ID), anyList()))
+                .thenThrow(new ItemNotFoundException(Item.COMPONENT.toString(), VALID_COMPONENT_ID));
+
+        this.mockMvc
+                .perform(createReplaceComponentsRequest(VALID_PRODUCT_ID,
+                        "[{\"component_id\": " + VALID_COMPONENT_ID + "}]"))
+                .andDo(print())
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(ExpectedErrorMessage.componentNotFound(VALID_COMPONENT_ID)));
+    }
+
+    /*
+        CLONE THE PRODUCT
+     */
+
+    @Test
+    void cloneProduct_shouldReturnIdsOfTheCopies() throws Exception {
+        when(productComponentsService.cloneProduct(VALID_PRODUCT_ID, 2, "Variant")).thenReturn(List.of(11L, 12L));
+
+        this.mockMvc
+                .perform(post(String.format("/api/v1/product/%d/clone", VALID_PRODUCT_ID))
+                        .param("count", "2")
+                        .param("name", "Variant"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().json("[11, 12]"));
+    }
+
+    @Test
+    void cloneProduct_withoutParameters_shouldCreateOneCopyWithTheSameName() throws Exception {
+        when(productComponentsService.cloneProduct(VALID_PRODUCT_ID, 1, null)).thenReturn(List.of(11L));
+
+        this.mockMvc
+                .perform(post(String.format("/api/v1/product/%d/clone", VALID_PRODUCT_ID)))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().json("[11]"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 101})
+    void cloneProduct_invalidCount_shouldReturnBadRequest(int invalidCount) throws Exception {
+        this.mockMvc
+                .perform(post(String.format("/api/v1/product/%d/clone", VALID_PRODUCT_ID))
+                        .param("count", String.valueOf(invalidCount)))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(productComponentsService, never()).cloneProduct(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void cloneProduct_nonExistingProduct_shouldReturn404() throws Exception {
+        when(productComponentsService.cloneProduct(VALID_PRODUCT_ID, 1, null))
+                .thenThrow(new ItemNotFoundException(Item.PRODUCT.toString(), VALID_PRODUCT_ID));
+
+        this.mockMvc
+                .perform(post(String.format("/api/v1/product/%d/clone", VALID_PRODUCT_ID)))
+                .andDo(print())
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(ExpectedErrorMessage.productNotFound(VALID_PRODUCT_ID)));
+    }
+
     /*
         GET COMPONENTS FOR PRODUCT
      */
@@ -311,18 +560,19 @@ class ProductComponentEndpointTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(2))
-                // Check that both components are present regardless of order
-                .andExpect(jsonPath("$[?(@.component.id == 1)].component.name").value("Component 1"))
-                .andExpect(jsonPath("$[?(@.component.id == 1)].quantity").value(5))
-                .andExpect(jsonPath("$[?(@.component.id == 2)].component.name").value("Component 2"))
-                .andExpect(jsonPath("$[?(@.component.id == 2)].quantity").value(3));
+                .andExpect(jsonPath("$[0].component.id").value(1))
+                .andExpect(jsonPath("$[0].component.name").value("Component 1"))
+                .andExpect(jsonPath("$[0].quantity").value(5))
+                .andExpect(jsonPath("$[1].component.id").value(2))
+                .andExpect(jsonPath("$[1].component.name").value("Component 2"))
+                .andExpect(jsonPath("$[1].quantity").value(3));
     }
 
     @Test
     void getComponentsForProduct_shouldCallProductComponentsService() throws Exception {
         var productId = 123L;
         when(productComponentsService.getComponentsForProduct(productId))
-                .thenReturn(Collections.emptyMap());
+                .thenReturn(Collections.emptyList());
 
         this.mockMvc
                 .perform(createGetComponentsRequest(productId))
@@ -334,7 +584,7 @@ class ProductComponentEndpointTests {
     @Test
     void getComponentsForProduct_emptyList_shouldReturn200WithEmptyArray() throws Exception {
         when(productComponentsService.getComponentsForProduct(VALID_PRODUCT_ID))
-                .thenReturn(Collections.emptyMap());
+                .thenReturn(Collections.emptyList());
 
         this.mockMvc
                 .perform(createGetComponentsRequest(VALID_PRODUCT_ID))
@@ -344,6 +594,29 @@ class ProductComponentEndpointTests {
                 .andExpect(jsonPath("$.length()").value(0));
     }
 
+    @Test
+    void getComponentsForProduct_matchingIfNoneMatch_shouldReturn304WithoutReadingComponents() throws Exception {
+        when(productComponentsService.getComponentsForProductMetadata(VALID_PRODUCT_ID))
+                .thenReturn(new CollectionMetadata(2L, 7L, 3L));
+        when(productComponentsService.getComponentsForProduct(VALID_PRODUCT_ID))
+                .thenReturn(createTestProductComponents());
+
+        var eTag = this.mockMvc
+                .perform(createGetComponentsRequest(VALID_PRODUCT_ID))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(createGetComponentsRequest(VALID_PRODUCT_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(productComponentsService, times(1)).getComponentsForProduct(VALID_PRODUCT_ID);
+    }
+
     @Test
     void getComponentsForProduct_nonExistingProduct_shouldReturn404() throws Exception {
         long productId = 123;
@@ -387,11 +660,17 @@ class ProductComponentEndpointTests {
                 .content(payload);
     }
 
+    private MockHttpServletRequestBuilder createReplaceComponentsRequest(long productId, String payload) {
+        return put(String.format("/api/v1/product/%d/components", productId))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(payload);
+    }
+
     private MockHttpServletRequestBuilder createGetComponentsRequest(long productId) {
         return get(String.format("/api/v1/product/%d/components", productId));
     }
 
-    private Map<Component, Integer> createTestProductComponents() {
+    private List<ProductComponentDto> createTestProductComponents() {
         var component1 = TestComponentData.getComponent();
         var component2 = TestComponentData.getComponent();
 
@@ -400,6 +679,8 @@ class ProductComponentEndpointTests {
         component2.setId(2L);
         component2.setName("Component 2");
 
-        return Map.of(component1, 5, component2, 3);
+        return List.of(
+                new ProductComponentDto(BomComponentDto.fromEntity(component1), 5, null),
+                new ProductComponentDto(BomComponentDto.fromEntity(component2), 3, null));
     }
 }
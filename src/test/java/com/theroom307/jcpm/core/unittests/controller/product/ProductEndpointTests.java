@@ -3,6 +3,10 @@ package com.theroom307.jcpm.core.unittests.controller.product;
 import com.theroom307.jcpm.core.controller.ProductController;
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.DeletionCounts;
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemService;
 import com.theroom307.jcpm.core.service.ProductComponentsService;
@@ -11,6 +15,7 @@ import com.theroom307.jcpm.core.utils.constant.Endpoint;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
 import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -19,9 +24,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestProductData.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -33,7 +42,6 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @Tag(UNIT_TEST)
 @WebMvcTest(ProductController.class)
-@MockitoBean(types = ProductComponentsService.class)
 @Import(ItemDtoMapperImpl.class)
 class ProductEndpointTests {
 
@@ -45,10 +53,18 @@ class ProductEndpointTests {
     @MockitoBean
     private ItemService<Product> productService;
 
+    @MockitoBean
+    private ProductComponentsService productComponentsService;
+
+    @BeforeEach
+    void mockMetadata() {
+        when(productService.getItemMetadata(anyLong())).thenReturn(getProductMetadata());
+    }
+
     @Test
     void getProduct_shouldReturnProductDto() throws Exception {
-        when(productService.getItem(anyLong()))
-                .thenReturn(getProduct());
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
+                .thenReturn(getProductResponse());
 
         var productDtoAsJson = getProductResponseAsString();
 
@@ -61,7 +77,7 @@ class ProductEndpointTests {
 
     @Test
     void getProduct_whenProductDoesNotExist_shouldRespond404() throws Exception {
-        when(productService.getItem(anyLong()))
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
                 .thenThrow(new ItemNotFoundException(Item.PRODUCT.toString(), VALID_PRODUCT_ID));
 
         this.mockMvc
@@ -73,32 +89,170 @@ class ProductEndpointTests {
 
     @Test
     void getProduct_shouldRequestFromService() throws Exception {
-        when(productService.getItem(anyLong()))
-                .thenReturn(getProduct());
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
+                .thenReturn(getProductResponse());
 
         this.mockMvc
                 .perform(get(ENDPOINT))
                 .andDo(print());
 
-        verify(productService).getItem(VALID_PRODUCT_ID);
+        verify(productService).getItem(VALID_PRODUCT_ID, ProductResponseDto.class);
     }
 
     @Test
-    void deleteProduct_shouldReturn200() throws Exception {
+    void deleteProduct_shouldReturnNumbersOfDeletedRows() throws Exception {
+        when(productComponentsService.deleteProduct(VALID_PRODUCT_ID, null)).thenReturn(new DeletionCounts(1, 3));
+
         this.mockMvc
                 .perform(delete(ENDPOINT))
                 .andDo(print())
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").doesNotExist());
+                .andExpect(content().json("{\"products\": 1, \"product_components\": 3}"));
     }
 
     @Test
-    void deleteProduct_shouldDeleteUsingProductService() throws Exception {
+    void deleteProduct_shouldDeleteWithItsComponents() throws Exception {
         this.mockMvc
                 .perform(delete(ENDPOINT))
                 .andDo(print());
 
-        verify(productService).deleteItem(VALID_PRODUCT_ID);
+        verify(productComponentsService).deleteProduct(VALID_PRODUCT_ID, null);
+        verify(productService, never()).deleteItem(anyLong(), any());
+    }
+
+    @Test
+    void deleteProducts_shouldDeleteAllGivenProducts() throws Exception {
+        when(productComponentsService.deleteProducts(List.of(1L, 2L, 3L))).thenReturn(new DeletionCounts(2, 5));
+
+        this.mockMvc
+                .perform(delete(Endpoint.PRODUCTS.getEndpoint() + "/batch")
+                        .param("ids", "1", "2", "3"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"products\": 2, \"product_components\": 5}"));
+    }
+
+    @Test
+    void deleteProducts_noIds_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(delete(Endpoint.PRODUCTS.getEndpoint() + "/batch")
+                        .param("ids", ""))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(productComponentsService, never()).deleteProducts(any());
+    }
+
+    @Test
+    void getProduct_shouldReturnVersionAsETag() throws Exception {
+        when(productService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getProduct().getModified()));
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
+                .thenReturn(getProductResponse());
+
+        this.mockMvc
+                .perform(get(ENDPOINT))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void getProduct_matchingIfNoneMatch_shouldReturn304WithoutReadingProduct() throws Exception {
+        when(productService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, getProduct().getModified()));
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+
+        verify(productService, never()).getItem(anyLong(), any());
+    }
+
+    @Test
+    void getProduct_notModifiedSinceIfModifiedSince_shouldReturn304() throws Exception {
+        var modified = getProduct().getModified();
+        when(productService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(3L, modified));
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, DateTimeFormatter.RFC_1123_DATE_TIME.format(modified)))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getItem(anyLong(), any());
+    }
+
+    @Test
+    void getProduct_outdatedIfNoneMatch_shouldReturnProduct() throws Exception {
+        when(productService.getItemMetadata(anyLong())).thenReturn(new ItemMetadata(4L, getProduct().getModified()));
+        when(productService.getItem(anyLong(), eq(ProductResponseDto.class)))
+                .thenReturn(getProductResponse());
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(content().json(getProductResponseAsString()));
+    }
+
+    @Test
+    void deleteProduct_withIfMatch_shouldPassExpectedVersionToService() throws Exception {
+        this.mockMvc
+                .perform(delete(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(productComponentsService).deleteProduct(VALID_PRODUCT_ID, 3L);
+    }
+
+    @Test
+    void editProduct_withIfMatch_shouldPassExpectedVersionToService() throws Exception {
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getProductDtoToCreateProduct()))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(productService).editItem(eq(VALID_PRODUCT_ID), any(), eq(3L));
+    }
+
+    @Test
+    void editProduct_outdatedIfMatch_shouldReturn412() throws Exception {
+        doThrow(new PreconditionFailedException(ExpectedErrorMessage.productVersionMismatch(VALID_PRODUCT_ID, 3L)))
+                .when(productService).editItem(anyLong(), any(), any());
+
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getProductDtoToCreateProduct()))
+                .andDo(print())
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string(ExpectedErrorMessage.productVersionMismatch(VALID_PRODUCT_ID, 3L)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"3", "\"3", "W/3", "\"3\" \"4\"", "*, \"3\"", ", ,"})
+    void editProduct_invalidIfMatch_shouldReturn400(String ifMatch) throws Exception {
+        this.mockMvc
+                .perform(patch(ENDPOINT)
+                        .header(HttpHeaders.IF_MATCH, ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getProductDtoToCreateProduct()))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(ExpectedErrorMessage.invalidIfMatch()));
+
+        verify(productService, never()).editItem(anyLong(), any(), any());
     }
 
     @Test
@@ -115,7 +269,7 @@ class ProductEndpointTests {
     @Test
     void editProduct_invalidProductId_shouldReturn404() throws Exception {
         doThrow(new ItemNotFoundException(Item.PRODUCT.toString(), VALID_PRODUCT_ID))
-                .when(productService).editItem(anyLong(), any());
+                .when(productService).editItem(anyLong(), any(), any());
 
         this.mockMvc
                 .perform(patch(ENDPOINT)
@@ -131,7 +285,7 @@ class ProductEndpointTests {
         var errorMessage = "Invalid Product Data Error Message";
 
         doThrow(new BadRequestException(errorMessage))
-                .when(productService).editItem(anyLong(), any());
+                .when(productService).editItem(anyLong(), any(), any());
 
         this.mockMvc
                 .perform(patch(ENDPOINT)
@@ -200,7 +354,7 @@ class ProductEndpointTests {
                         .content(requestBody))
                 .andDo(print());
 
-        verify(productService).editItem(VALID_PRODUCT_ID, expectedProduct);
+        verify(productService).editItem(VALID_PRODUCT_ID, expectedProduct, null);
     }
 
 }
@@ -1,11 +1,17 @@
 package com.theroom307.jcpm.core.unittests.controller.product;
 
 import com.theroom307.jcpm.core.controller.ProductController;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemService;
 import com.theroom307.jcpm.core.service.ProductComponentsService;
 import com.theroom307.jcpm.core.service.impl.ItemDtoMapperImpl;
 import com.theroom307.jcpm.core.utils.constant.Endpoint;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,18 +21,27 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static com.theroom307.jcpm.core.utils.data.TestData.getCollectionVersion;
 import static com.theroom307.jcpm.core.utils.data.TestProductData.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Tag(UNIT_TEST)
@@ -46,13 +61,17 @@ class ProductsEndpointTests {
     @Autowired
     private ProductComponentsService productComponentsService;
 
-
+    @BeforeEach
+    void mockMetadata() {
+        when(productService.getItemsVersion()).thenReturn(getCollectionVersion());
+        when(productComponentsService.getProductsByComponentVersion(anyLong())).thenReturn(getCollectionVersion());
+    }
 
     @Test
     void getProducts_whenNoProductsExist_shouldReturnEmptyProductListWrapper() throws Exception {
-        Page<Product> emptyPage = Page.empty(PageRequest.of(0, 10));
+        Page<ProductResponseDto> emptyPage = Page.empty(PageRequest.of(0, 10));
 
-        when(productService.getItems(anyInt(), anyInt())).thenReturn(emptyPage);
+        when(productService.getItems(anyInt(), anyInt(), eq(ProductResponseDto.class))).thenReturn(emptyPage);
 
         this.mockMvc
                 .perform(get(ENDPOINT))
@@ -63,8 +82,8 @@ class ProductsEndpointTests {
 
     @Test
     void getProducts_whenOneProductExists_shouldReturnProductListWrapperWithOneProduct() throws Exception {
-        var products = new PageImpl<>(List.of(getProduct()), PageRequest.of(0, 10), 1);
-        when(productService.getItems(anyInt(), anyInt())).thenReturn(products);
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
+        when(productService.getItems(anyInt(), anyInt(), eq(ProductResponseDto.class))).thenReturn(products);
 
         this.mockMvc
                 .perform(get(ENDPOINT))
@@ -77,7 +96,73 @@ class ProductsEndpointTests {
     void getProducts_shouldRequestFromProductService() throws Exception {
         this.mockMvc
                 .perform(get(ENDPOINT));
-        verify(productService).getItems(anyInt(), anyInt());
+        verify(productService).getItems(anyInt(), anyInt(), eq(ProductResponseDto.class));
+    }
+
+    @Test
+    void getProducts_withoutTotal_shouldRequestSliceAndReturnHasNext() throws Exception {
+        var products = new SliceImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), true);
+        when(productService.getItemSlice(anyInt(), anyInt(), eq(ProductResponseDto.class))).thenReturn(products);
+
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("total", "false"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.count").value(1))
+                .andExpect(jsonPath("$.pagination.hasNext").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(productService).getItemSlice(0, 10, ProductResponseDto.class);
+        verify(productService, never()).getItems(anyInt(), anyInt(), eq(ProductResponseDto.class));
+    }
+
+    @Test
+    void getProducts_matchingIfNoneMatch_shouldReturn304WithoutReadingProducts() throws Exception {
+        when(productService.getItemsVersion()).thenReturn(new CollectionVersion(1L, 5L));
+
+        var eTag = this.mockMvc
+                .perform(get(ENDPOINT))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        this.mockMvc
+                .perform(get(ENDPOINT).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isNotModified());
+
+        verify(productService, times(1)).getItems(anyInt(), anyInt(), eq(ProductResponseDto.class));
+    }
+
+    @Test
+    void getProducts_collectionChanged_shouldReturnNewETag() throws Exception {
+        when(productService.getItemsVersion()).thenReturn(new CollectionVersion(1L, 5L));
+        var eTag = this.mockMvc
+                .perform(get(ENDPOINT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        when(productService.getItemsVersion()).thenReturn(new CollectionVersion(1L, 6L));
+        this.mockMvc
+                .perform(get(ENDPOINT).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    @Test
+    void getProductsByComponent_shouldUseWhereUsedVersion() throws Exception {
+        var componentId = 42L;
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
+        when(productComponentsService.getProductsByComponent(eq(componentId), anyInt(), anyInt())).thenReturn(products);
+
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("componentId", String.valueOf(componentId)))
+                .andDo(print())
+                .andExpect(status().isOk());
+
+        verify(productComponentsService).getProductsByComponentVersion(componentId);
+        verify(productService, never()).getItemsVersion();
     }
 
     @Test
@@ -113,7 +198,7 @@ class ProductsEndpointTests {
     @Test
     void getProducts_withComponentId_shouldRequestFromProductComponentsService() throws Exception {
         var componentId = 123L;
-        var products = new PageImpl<>(List.of(getProduct()), PageRequest.of(0, 10), 1);
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
         when(productComponentsService.getProductsByComponent(anyLong(), anyInt(), anyInt())).thenReturn(products);
 
         this.mockMvc
@@ -122,13 +207,13 @@ class ProductsEndpointTests {
                 .andExpect(status().isOk());
 
         verify(productComponentsService).getProductsByComponent(componentId, 0, 10);
-        verify(productService, never()).getItems(anyInt(), anyInt());
+        verify(productService, never()).getItems(anyInt(), anyInt(), eq(ProductResponseDto.class));
     }
 
     @Test
     void getProducts_withComponentId_shouldReturnProductListWrapper() throws Exception {
         var componentId = 123L;
-        var products = new PageImpl<>(List.of(getProduct()), PageRequest.of(0, 10), 1);
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
         when(productComponentsService.getProductsByComponent(anyLong(), anyInt(), anyInt())).thenReturn(products);
 
         this.mockMvc
@@ -140,15 +225,195 @@ class ProductsEndpointTests {
 
     @Test
     void getProducts_withoutComponentId_shouldRequestFromProductService() throws Exception {
-        var products = new PageImpl<>(List.of(getProduct()), PageRequest.of(0, 10), 1);
-        when(productService.getItems(anyInt(), anyInt())).thenReturn(products);
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
+        when(productService.getItems(anyInt(), anyInt(), eq(ProductResponseDto.class))).thenReturn(products);
 
         this.mockMvc
                 .perform(get(ENDPOINT))
                 .andDo(print())
                 .andExpect(status().isOk());
 
-        verify(productService).getItems(0, 10);
+        verify(productService).getItems(0, 10, ProductResponseDto.class);
         verify(productComponentsService, never()).getProductsByComponent(anyLong(), anyInt(), anyInt());
     }
+
+    @Test
+    void postProduct_withComponents_shouldCreateProductAndBomTogether() throws Exception {
+        when(productComponentsService.createProductWithComponents(any(Product.class), anyList())).thenReturn(1L);
+
+        this.mockMvc
+                .perform(post(ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"product name\", \"description\": \"product description\", " +
+                                 "\"components\": [{\"component_id\": 2, \"quantity\": 3}, {\"component_id\": 4}]}"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().string("1"));
+
+        verify(productComponentsService).createProductWithComponents(eq(getProductToCreate()), argThat(components ->
+                components.size() == 2
+                && components.get(0).getComponentId() == 2 && components.get(0).getQuantity() == 3
+                && components.get(1).getComponentId() == 4 && components.get(1).getQuantity() == 1));
+        verify(productService, never()).createItem(any());
+    }
+
+    @Test
+    void postProduct_withInvalidComponentQuantity_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(post(ENDPOINT)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"product name\", \"components\": [{\"component_id\": 2, \"quantity\": 0}]}"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(productComponentsService, never()).createProductWithComponents(any(), anyList());
+    }
+
+    @Test
+    void postProductBatch_shouldCreateAllInOneCallAndReturnIdsInOrder() throws Exception {
+        when(productService.createItems(anyList())).thenReturn(List.of(7L, 8L));
+        var product = getProductDtoToCreateProduct();
+
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + product + "," + product + "]"))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(content().json("[7,8]"));
+
+        verify(productService).createItems(List.of(getProductToCreate(), getProductToCreate()));
+        verify(productService, never()).createItem(any());
+    }
+
+    @Test
+    void postProductBatch_empty_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The batch must contain 1 to 500 items"));
+
+        verify(productService, never()).createItems(anyList());
+    }
+
+    @Test
+    void postProductBatch_invalidProduct_shouldCreateNone() throws Exception {
+        this.mockMvc
+                .perform(post(ENDPOINT + "/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + getProductDtoToCreateProduct() + ",{\"name\": \" \"}]"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Product name is required"));
+
+        verify(productService, never()).createItems(anyList());
+    }
+
+    @Test
+    void searchProducts_shouldReturnProductListWrapper() throws Exception {
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
+        when(productService.searchItems("gold ring", 0, 10, ProductResponseDto.class)).thenReturn(products);
+
+        this.mockMvc
+                .perform(get(ENDPOINT + "/search").param("q", "gold ring"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(getProductListResponseAsString()));
+    }
+
+    @Test
+    void searchProducts_blankQuery_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/search").param("q", " "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Search query must not be blank"));
+
+        verify(productService, never()).searchItems(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void autocompleteProducts_shouldReturnSuggestions() throws Exception {
+        when(productService.suggestItems("gold ri", 10)).thenReturn(List.of(new ItemSuggestion(1L, "Gold ring")));
+
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", "gold ri"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\":1,\"name\":\"Gold ring\"}]"));
+    }
+
+    @Test
+    void autocompleteProducts_blankPrefix_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", " "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Prefix must not be blank"));
+
+        verify(productService, never()).suggestItems(any(), anyInt());
+    }
+
+    @Test
+    void autocompleteProducts_limitTooLarge_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT + "/autocomplete").param("prefix", "gold").param("limit", "51"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Limit must not be greater than 50"));
+
+        verify(productService, never()).suggestItems(any(), anyInt());
+    }
+
+    @Test
+    void getProducts_withSortAndFilter_shouldRequestSortedProducts() throws Exception {
+        var filter = new ItemFilter("Gold", ZonedDateTime.parse("2023-03-19T00:00:00Z"), null, null, null);
+        var sort = new ItemSort(ItemSort.Field.NAME, Sort.Direction.DESC);
+        var products = new PageImpl<>(List.of(getProductResponse()), PageRequest.of(0, 10), 1);
+        when(productService.getItems(filter, sort, 0, 10, ProductResponseDto.class)).thenReturn(products);
+
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .queryParam("sort", "name,desc")
+                        .queryParam("namePrefix", "Gold")
+                        .queryParam("createdFrom", "2023-03-19T00:00:00Z"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().json(getProductListResponseAsString()));
+
+        verify(productService, never()).getItems(anyInt(), anyInt(), eq(ProductResponseDto.class));
+    }
+
+    @Test
+    void getProducts_withInvalidSort_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("sort", "price"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("Invalid sort 'price'")));
+    }
+
+    @Test
+    void getProducts_withInvalidFilterDate_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT).queryParam("createdFrom", "yesterday"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("'createdFrom' has an invalid value"));
+    }
+
+    @Test
+    void getProducts_withSortAndComponentId_shouldReturnBadRequest() throws Exception {
+        this.mockMvc
+                .perform(get(ENDPOINT)
+                        .queryParam("componentId", "1")
+                        .queryParam("sort", "name"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(productComponentsService, never()).getProductsByComponentVersion(anyLong());
+    }
 }
@@ -0,0 +1,85 @@
+package com.theroom307.jcpm.core.unittests.data.dto;
+
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Sort;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Tag(UNIT_TEST)
+class ItemCursorTests {
+
+    private static final ItemSort NAME_DESC = new ItemSort(ItemSort.Field.NAME, Sort.Direction.DESC);
+
+    private static final ItemSort CREATED_ASC = new ItemSort(ItemSort.Field.CREATED, Sort.Direction.ASC);
+
+    @Test
+    void idCursor_shouldBeCompatibleWithPlainIdToken() {
+        var cursor = new ItemCursor(42L);
+
+        assertThat(cursor.encode()).isEqualTo("NDI");
+        assertThat(ItemCursor.decode("NDI")).isEqualTo(cursor);
+    }
+
+    @Test
+    void sortedCursor_shouldRoundTripTheSortKey() {
+        var nameCursor = new ItemCursor(7L, NAME_DESC, "Gold: 18K ring");
+        var createdCursor = new ItemCursor(7L, CREATED_ASC,
+                ZonedDateTime.of(2023, 3, 19, 12, 31, 16, 123_456_000, ZoneOffset.UTC));
+
+        assertThat(ItemCursor.decode(nameCursor.encode(), NAME_DESC)).isEqualTo(nameCursor);
+        assertThat(ItemCursor.decode(createdCursor.encode(), CREATED_ASC)).isEqualTo(createdCursor);
+    }
+
+    @Test
+    void sortedCursor_withoutSortKey_shouldDifferFromEmptyName() {
+        var withoutName = new ItemCursor(7L, NAME_DESC, null);
+        var emptyName = new ItemCursor(7L, NAME_DESC, "");
+
+        assertThat(withoutName.encode()).isNotEqualTo(emptyName.encode());
+        assertThat(ItemCursor.decode(withoutName.encode(), NAME_DESC)).isEqualTo(withoutName);
+        assertThat(ItemCursor.decode(emptyName.encode(), NAME_DESC)).isEqualTo(emptyName);
+    }
+
+    @Test
+    void blankToken_shouldStartTheGivenSort() {
+        var cursor = ItemCursor.decode("", NAME_DESC);
+
+        assertThat(cursor.isStart()).isTrue();
+        assertThat(cursor.sort()).isEqualTo(NAME_DESC);
+    }
+
+    @Test
+    void tokenOfAnotherSort_shouldBeRejected() {
+        var token = new ItemCursor(7L, NAME_DESC, "Gold ring").encode();
+
+        assertThatThrownBy(() -> ItemCursor.decode(token, CREATED_ASC))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> ItemCursor.decode(token))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"name", "NAME,Desc", " created , asc "})
+    void sort_shouldBeParsed(String value) {
+        assertThat(ItemSort.parse(value).field()).isIn(ItemSort.Field.NAME, ItemSort.Field.CREATED);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "price", "name,up", "name,asc,id"})
+    void invalidSort_shouldBeRejected(String value) {
+        assertThatThrownBy(() -> ItemSort.parse(value))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
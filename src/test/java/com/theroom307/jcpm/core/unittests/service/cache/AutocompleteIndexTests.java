@@ -0,0 +1,69 @@
+package com.theroom307.jcpm.core.unittests.service.cache;
+
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.service.cache.AutocompleteIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT_TEST)
+class AutocompleteIndexTests {
+
+    private final AutocompleteIndex index = new AutocompleteIndex();
+
+    @Test
+    void suggest_shouldMatchTheStartOfAnyNameWord() {
+        index.put(1, "Gold ring");
+        index.put(2, "Rosé gold chain");
+        index.put(3, "Silver ring");
+
+        assertThat(index.suggest("GO", 10))
+                .containsExactly(new ItemSuggestion(1L, "Gold ring"), new ItemSuggestion(2L, "Rosé gold chain"));
+        assertThat(index.suggest("rose", 10))
+                .containsExactly(new ItemSuggestion(2L, "Rosé gold chain"));
+        assertThat(index.suggest("old", 10)).isEmpty();
+        assertThat(index.suggest(" - ", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_shouldRequireEveryWordOfTheText() {
+        index.put(1, "Gold ring");
+        index.put(2, "Gold chain");
+        index.put(3, "Silver ring");
+
+        assertThat(index.suggest("ring go", 10))
+                .containsExactly(new ItemSuggestion(1L, "Gold ring"));
+    }
+
+    @Test
+    void suggest_shouldOrderByMatchedWordAndStopAtLimit() {
+        index.put(1, "Ring box");
+        index.put(2, "Rim");
+        index.put(3, "Ribbon");
+
+        assertThat(index.suggest("ri", 2))
+                .containsExactly(new ItemSuggestion(3L, "Ribbon"), new ItemSuggestion(2L, "Rim"));
+    }
+
+    @Test
+    void suggest_shouldReturnEachItemOnce() {
+        index.put(1, "Gold gilded ring");
+
+        assertThat(index.suggest("g", 10)).containsExactly(new ItemSuggestion(1L, "Gold gilded ring"));
+    }
+
+    @Test
+    void put_shouldReplaceAndRemoveShouldDropTheName() {
+        index.put(1, "Gold ring");
+        index.put(1, "Silver ring");
+
+        assertThat(index.suggest("gold", 10)).isEmpty();
+        assertThat(index.suggest("sil", 10)).containsExactly(new ItemSuggestion(1L, "Silver ring"));
+
+        index.remove(1);
+
+        assertThat(index.suggest("ring", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+package com.theroom307.jcpm.core.unittests.service.cache;
+
+import com.theroom307.jcpm.core.service.cache.LruCache;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT_TEST)
+class LruCacheTests {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final LruCache<Long, String> cache = new LruCache<>(2, Duration.ofNanos(100), clock::get);
+
+    private String load(Long key) {
+        loads.incrementAndGet();
+        return "value-" + key;
+    }
+
+    @Test
+    void get_sameKeyTwice_shouldLoadOnce() {
+        cache.get(1L, this::load);
+
+        assertThat(cache.get(1L, this::load)).isEqualTo("value-1");
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+        assertThat(cache.getStats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void get_moreKeysThanMaxSize_shouldEvictLeastRecentlyUsed() {
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+        cache.get(1L, this::load);
+        cache.get(3L, this::load);
+
+        cache.get(1L, this::load);
+        cache.get(2L, this::load);
+
+        assertThat(loads)
+                .as("Only the least recently used key 2 should have been evicted")
+                .hasValue(4);
+        assertThat(cache.getStats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void get_expiredEntry_shouldLoadAgain() {
+        cache.get(1L, this::load);
+        clock.addAndGet(100);
+
+        cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidate_shouldLoadAgain() {
+        cache.get(1L, this::load);
+
+        cache.invalidate(1L);
+        cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(2);
+        assertThat(cache.getStats().invalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void get_invalidatedWhileLoading_shouldNotCacheLoadedValue() {
+        cache.get(1L, key -> {
+            cache.invalidate(key);
+            return load(key);
+        });
+
+        cache.get(1L, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void get_loaderReturnsNull_shouldNotCacheNull() {
+        cache.get(1L, key -> null);
+
+        assertThat(cache.get(1L, this::load)).isEqualTo("value-1");
+    }
+
+    @Test
+    void get_zeroMaxSize_shouldNotCache() {
+        var disabledCache = new LruCache<Long, String>(0, Duration.ofMinutes(1));
+
+        disabledCache.get(1L, this::load);
+        disabledCache.get(1L, this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+}
@@ -0,0 +1,62 @@
+package com.theroom307.jcpm.core.unittests.service.cache;
+
+import com.theroom307.jcpm.core.service.cache.SearchIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Tag(UNIT_TEST)
+class SearchIndexTests {
+
+    private final SearchIndex index = new SearchIndex();
+
+    @Test
+    void tokenize_shouldSplitIntoLowercaseWordsWithoutDiacritics() {
+        assertThat(SearchIndex.tokenize("Rosé-Gold  ring, 18K!"))
+                .containsExactly("rose", "gold", "ring", "18k");
+    }
+
+    @Test
+    void search_shouldReturnOnlyItemsContainingAllWords() {
+        index.put(1, "Gold ring", "A plain ring");
+        index.put(2, "Silver ring", null);
+        index.put(3, "Gold chain", null);
+
+        assertThat(index.search("ring GOLD")).containsExactly(1L);
+        assertThat(index.search("ring")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("platinum")).isEmpty();
+        assertThat(index.search(" - ")).isEmpty();
+    }
+
+    @Test
+    void search_shouldRankNameMatchesAboveDescriptionMatches() {
+        index.put(1, "Clasp", "Fits a pearl necklace");
+        index.put(2, "Pearl necklace", "Freshwater pearls");
+
+        assertThat(index.search("necklace")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void put_existingItem_shouldReplaceItsWords() {
+        index.put(1, "Gold ring", null);
+
+        index.put(1, "Silver ring", null);
+
+        assertThat(index.search("gold")).isEmpty();
+        assertThat(index.search("silver")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void remove_shouldRemoveItemFromResults() {
+        index.put(1, "Gold ring", null);
+        index.put(2, "Gold chain", null);
+
+        index.remove(1);
+
+        assertThat(index.search("gold")).containsExactly(2L);
+        assertThat(index.search("ring")).isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+package com.theroom307.jcpm.core.unittests.service.cache;
+
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import com.theroom307.jcpm.core.service.cache.WhereUsedIndex;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@Tag(UNIT_TEST)
+@ExtendWith(MockitoExtension.class)
+class WhereUsedIndexTests {
+
+    @InjectMocks
+    private WhereUsedIndex index;
+
+    @Mock
+    private ProductComponentRepository productComponentRepository;
+
+    @Test
+    void rebuild_shouldGroupProductIdsByComponent() {
+        when(productComponentRepository.findAllComponentAndProductIds()).thenReturn(List.of(
+                new Object[]{1L, 10L},
+                new Object[]{1L, 20L},
+                new Object[]{2L, 10L}));
+
+        index.rebuild();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.getProductIds(1L)).containsExactly(10L, 20L);
+        assertThat(index.getProductIds(2L)).containsExactly(10L);
+        assertThat(index.getProductIds(3L)).isEmpty();
+    }
+
+    @Test
+    void add_shouldKeepProductIdsSortedAndUnique() {
+        when(productComponentRepository.findAllComponentAndProductIds()).thenReturn(List.of());
+        index.rebuild();
+
+        index.add(1L, 30L);
+        index.add(1L, 10L);
+        index.add(1L, 20L);
+        index.add(1L, 20L);
+
+        assertThat(index.getProductIds(1L)).containsExactly(10L, 20L, 30L);
+    }
+
+    @Test
+    void remove_shouldNotModifyReturnedSnapshot() {
+        when(productComponentRepository.findAllComponentAndProductIds()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, 10L},
+                new Object[]{1L, 20L}));
+        index.rebuild();
+        var snapshot = index.getProductIds(1L);
+
+        index.remove(1L, 10L);
+        index.remove(1L, 99L);
+
+        assertThat(index.getProductIds(1L)).containsExactly(20L);
+        assertThat(snapshot).containsExactly(10L, 20L);
+    }
+
+    @Test
+    void add_beforeRebuild_shouldBeIgnored() {
+        index.add(1L, 10L);
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.getProductIds(1L)).isEmpty();
+    }
+}
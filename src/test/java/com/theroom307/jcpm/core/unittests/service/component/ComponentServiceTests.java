@@ -1,11 +1,23 @@
 package com.theroom307.jcpm.core.unittests.service.component;
 
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemFilter;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemSort;
+import com.theroom307.jcpm.core.data.dto.wrapper.KeysetSlice;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.data.repository.SortedItemRepository.ItemKey;
+import com.theroom307.jcpm.core.service.ItemChangedEvent;
+import com.theroom307.jcpm.core.service.cache.CacheProperties;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
 import com.theroom307.jcpm.core.service.impl.ComponentServiceImpl;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
+import org.assertj.core.api.InstanceOfAssertFactories;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,11 +25,18 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +44,12 @@ import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,20 +63,26 @@ class ComponentServiceTests {
     @Mock
     private ComponentRepository componentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CacheRegistry caches = new CacheRegistry(new CacheProperties());
+
     private final int pageNumber = 0;
     private final int pageSize = 10;
     private final Pageable pageable = Pageable.ofSize(pageSize).withPage(pageNumber);
 
     @Test
     void getComponents_whenOneComponentExists_shouldReturnPageWithOneComponent() {
-        Page<Component> pageWithOneComponent = new PageImpl<>(
-                List.of(getComponent()),
+        Page<ComponentResponseDto> pageWithOneComponent = new PageImpl<>(
+                List.of(getComponentResponse()),
                 pageable,
                 1);
 
-        when(componentRepository.findAll(pageable)).thenReturn(pageWithOneComponent);
+        when(componentRepository.findProjectedBy(pageable, ComponentResponseDto.class)).thenReturn(pageWithOneComponent);
 
-        var actualResult = componentService.getItems(pageNumber, pageSize);
+        var actualResult = componentService.getItems(pageNumber, pageSize, ComponentResponseDto.class);
 
         assertThat(actualResult)
                 .as("The service should return a page with one expected component")
@@ -61,10 +91,10 @@ class ComponentServiceTests {
 
     @Test
     void getComponents_whenNoComponentsExist_shouldReturnEmptyPage() {
-        Page<Component> emptyPage = Page.empty(pageable);
-        when(componentRepository.findAll(pageable)).thenReturn(emptyPage);
+        Page<ComponentResponseDto> emptyPage = Page.empty(pageable);
+        when(componentRepository.findProjectedBy(pageable, ComponentResponseDto.class)).thenReturn(emptyPage);
 
-        var actualResult = componentService.getItems(pageNumber, pageSize);
+        var actualResult = componentService.getItems(pageNumber, pageSize, ComponentResponseDto.class);
 
         assertThat(actualResult)
                 .as("The service should return an empty page")
@@ -73,14 +103,78 @@ class ComponentServiceTests {
 
     @Test
     void getComponents_whenRepositoryReturnsNull_shouldReturnEmptyPage() {
-        when(componentRepository.findAll(pageable)).thenReturn(null); // JPA may return null when there are no components
+        when(componentRepository.findProjectedBy(pageable, ComponentResponseDto.class)).thenReturn(null); // JPA may return null when there are no components
 
-        var actualResult = componentService.getItems(pageNumber, pageSize);
+        var actualResult = componentService.getItems(pageNumber, pageSize, ComponentResponseDto.class);
         assertThat(actualResult)
                 .as("The service should return an empty page")
                 .isEqualTo(Page.empty(pageable));
     }
 
+    @Test
+    void getComponentSlice_shouldNotRequestTotal() {
+        Slice<ComponentResponseDto> sliceWithOneComponent = new SliceImpl<>(List.of(getComponentResponse()), pageable, false);
+
+        when(componentRepository.findSliceProjectedBy(pageable, ComponentResponseDto.class)).thenReturn(sliceWithOneComponent);
+
+        var actualResult = componentService.getItemSlice(pageNumber, pageSize, ComponentResponseDto.class);
+
+        assertThat(actualResult)
+                .as("The service should return a slice with one expected component")
+                .isEqualTo(sliceWithOneComponent);
+        verify(componentRepository, never()).findProjectedBy(pageable, ComponentResponseDto.class);
+    }
+
+    @Test
+    void getComponents_withCursor_shouldSeekAfterCursorId() {
+        Slice<ComponentResponseDto> sliceWithOneComponent = new SliceImpl<>(List.of(getComponentResponse()), PageRequest.ofSize(pageSize), false);
+
+        when(componentRepository.findProjectedByIdGreaterThanOrderByIdAsc(42L, PageRequest.ofSize(pageSize), ComponentResponseDto.class))
+                .thenReturn(sliceWithOneComponent);
+
+        var actualResult = componentService.getItems(new ItemCursor(42L), pageSize, ComponentResponseDto.class);
+
+        assertThat(actualResult)
+                .as("The service should return the slice following the cursor")
+                .isEqualTo(sliceWithOneComponent);
+    }
+
+    @Test
+    void getComponents_sortedWithCursor_shouldReturnNextCursorWithSortKey() {
+        var sort = new ItemSort(ItemSort.Field.NAME, Sort.Direction.ASC);
+        var after = new ItemCursor(2L, sort, "Clasp");
+        var component = getComponentResponse().withId(5L).withName("Gold ring");
+        when(componentRepository.findKeys(Component.class, ItemFilter.NONE, sort, after, 0, 2))
+                .thenReturn(List.of(new ItemKey(5L, "Gold ring"), new ItemKey(3L, "Silver ring")));
+        when(componentRepository.findProjectedByIdIn(List.of(5L), ComponentResponseDto.class))
+                .thenReturn(List.of(component));
+
+        var actualResult = componentService.getItems(ItemFilter.NONE, after, 1, ComponentResponseDto.class);
+
+        assertThat(actualResult.getContent()).containsExactly(component);
+        assertThat(actualResult.hasNext()).isTrue();
+        assertThat(actualResult)
+                .asInstanceOf(InstanceOfAssertFactories.type(KeysetSlice.class))
+                .extracting(KeysetSlice::getNext)
+                .isEqualTo(new ItemCursor(5L, sort, "Gold ring"));
+    }
+
+    @Test
+    void getComponents_filteredFirstPartialPage_shouldNotCount() {
+        var filter = new ItemFilter("Gold", null, null, null, null);
+        var sort = new ItemSort(ItemSort.Field.CREATED, Sort.Direction.DESC);
+        when(componentRepository.findKeys(Component.class, filter, sort, ItemCursor.start(sort), 0, pageSize))
+                .thenReturn(List.of(new ItemKey(1L, ZonedDateTime.now())));
+        when(componentRepository.findProjectedByIdIn(List.of(1L), ComponentResponseDto.class))
+                .thenReturn(List.of(getComponentResponse()));
+
+        var actualResult = componentService.getItems(filter, sort, pageNumber, pageSize, ComponentResponseDto.class);
+
+        assertThat(actualResult.getContent()).containsExactly(getComponentResponse());
+        assertThat(actualResult.getTotalElements()).isEqualTo(1);
+        verify(componentRepository, never()).countFiltered(any(), any());
+    }
+
     @Test
     void getComponent_whenComponentExists_shouldReturnComponent() {
         var component = getComponent();
@@ -91,6 +185,112 @@ class ComponentServiceTests {
                 .isEqualTo(component);
     }
 
+    @Test
+    void getComponent_calledTwice_shouldLoadComponentFromRepositoryOnce() {
+        var component = getComponent();
+
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component));
+
+        componentService.getItem(component.getId());
+
+        assertThat(componentService.getItem(component.getId()))
+                .isEqualTo(component);
+        verify(componentRepository, times(1)).findById(component.getId());
+        assertThat(caches.getStats().get("components").hits())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void getComponent_changingReturnedComponent_shouldNotChangeCachedComponent() {
+        var component = getComponent();
+        var name = component.getName();
+
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component));
+
+        var loaded = componentService.getItem(component.getId());
+        component.setName("Changed in the persistence context");
+        loaded.setName("Changed by the caller");
+
+        assertThat(componentService.getItem(component.getId()))
+                .isNotSameAs(loaded)
+                .extracting(Component::getName)
+                .isEqualTo(name);
+    }
+
+    @Test
+    void editComponent_shouldEvictCachedComponent() {
+        var component = getComponent();
+        var editedComponent = new Component();
+        editedComponent.setName("New Component Name");
+
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component));
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        componentService.getItem(component.getId());
+        componentService.editItem(component.getId(), editedComponent, null);
+        componentService.getItem(component.getId());
+
+        verify(componentRepository, times(2)).findById(component.getId());
+    }
+
+    @Test
+    void deleteComponent_shouldEvictCachedComponent() {
+        var component = getComponent();
+
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component), Optional.empty());
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, null)).thenReturn(1);
+
+        componentService.getItem(component.getId());
+        componentService.deleteItem(component.getId(), null);
+
+        assertThatThrownBy(() -> componentService.getItem(component.getId()))
+                .isInstanceOf(ItemNotFoundException.class);
+    }
+
+    @Test
+    void recountUsage_correctedComponents_shouldEvictCachedComponents() {
+        var component = getComponent();
+
+        when(componentRepository.findById(component.getId())).thenReturn(Optional.of(component));
+        when(componentRepository.recountUsage()).thenReturn(1);
+
+        componentService.getItem(component.getId());
+        componentService.recountUsage();
+        componentService.getItem(component.getId());
+
+        verify(componentRepository, times(2)).findById(component.getId());
+    }
+
+    @Test
+    void deleteComponent_shouldPublishItemChangedEvent() {
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, null)).thenReturn(1);
+
+        componentService.deleteItem(VALID_COMPONENT_ID, null);
+
+        verify(eventPublisher).publishEvent(new ItemChangedEvent(Component.class, VALID_COMPONENT_ID));
+    }
+
+    @Test
+    void getComponentProjection_whenComponentExists_shouldReturnResponseDto() {
+        var componentResponse = getComponentResponse();
+
+        when(componentRepository.findProjectedById(VALID_COMPONENT_ID, ComponentResponseDto.class)).thenReturn(Optional.of(componentResponse));
+
+        assertThat(componentService.getItem(VALID_COMPONENT_ID, ComponentResponseDto.class))
+                .isEqualTo(componentResponse);
+    }
+
+    @Test
+    void getComponentProjection_whenComponentDoesNotExist_shouldThrowItemNotFoundException() {
+        var componentId = VALID_COMPONENT_ID;
+
+        when(componentRepository.findProjectedById(componentId, ComponentResponseDto.class)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> componentService.getItem(componentId, ComponentResponseDto.class))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage(ExpectedErrorMessage.componentNotFound(componentId));
+    }
+
     @Test
     void getComponent_whenComponentDoesNotExist_shouldThrowItemNotFoundException() {
         var componentId = VALID_COMPONENT_ID;
@@ -114,10 +314,32 @@ class ComponentServiceTests {
     }
 
     @Test
-    void deleteComponent_shouldDeleteComponentFromRepository() {
+    void deleteComponent_shouldDeleteUnusedComponentFromRepository() {
         var componentId = VALID_COMPONENT_ID;
-        componentService.deleteItem(componentId);
-        verify(componentRepository).deleteById(componentId);
+        when(componentRepository.deleteUnusedById(componentId, null)).thenReturn(1);
+
+        componentService.deleteItem(componentId, null);
+
+        verify(componentRepository, never()).deleteById(anyLong());
+        verify(componentRepository, never()).findMetadataById(anyLong());
+    }
+
+    @Test
+    void deleteComponent_notExistingComponent_shouldDoNothing() {
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, null)).thenReturn(0);
+        when(componentRepository.findMetadataById(VALID_COMPONENT_ID)).thenReturn(Optional.empty());
+
+        componentService.deleteItem(VALID_COMPONENT_ID, null);
+    }
+
+    @Test
+    void deleteComponent_componentInUse_shouldThrowConditionFailedException() {
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, null)).thenReturn(0);
+        when(componentRepository.findMetadataById(VALID_COMPONENT_ID)).thenReturn(Optional.of(getComponentMetadata()));
+
+        assertThatThrownBy(() -> componentService.deleteItem(VALID_COMPONENT_ID, null))
+                .isInstanceOf(ConditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.componentIsInUse(VALID_COMPONENT_ID));
     }
 
     @Test
@@ -125,11 +347,11 @@ class ComponentServiceTests {
         var editedComponent = new Component();
         editedComponent.setName("New Component Name");
 
-        when(componentRepository.findById(anyLong())).thenReturn(Optional.of(getComponent()));
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        componentService.editItem(VALID_COMPONENT_ID, editedComponent);
+        componentService.editItem(VALID_COMPONENT_ID, editedComponent, null);
 
-        verify(componentRepository).updateNameById("New Component Name", VALID_COMPONENT_ID);
+        verify(componentRepository).updateById(eq("New Component Name"), isNull(), any(ZonedDateTime.class), eq(VALID_COMPONENT_ID), isNull());
     }
 
     @Test
@@ -137,11 +359,11 @@ class ComponentServiceTests {
         var editedComponent = new Component();
         editedComponent.setDescription("New component description.");
 
-        when(componentRepository.findById(anyLong())).thenReturn(Optional.of(getComponent()));
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        componentService.editItem(VALID_COMPONENT_ID, editedComponent);
+        componentService.editItem(VALID_COMPONENT_ID, editedComponent, null);
 
-        verify(componentRepository).updateDescriptionById("New component description.", VALID_COMPONENT_ID);
+        verify(componentRepository).updateById(isNull(), eq("New component description."), any(ZonedDateTime.class), eq(VALID_COMPONENT_ID), isNull());
     }
 
     @Test
@@ -150,12 +372,12 @@ class ComponentServiceTests {
         editedComponent.setName("New Component Name");
         editedComponent.setDescription("New component description.");
 
-        when(componentRepository.findById(anyLong())).thenReturn(Optional.of(getComponent()));
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        componentService.editItem(VALID_COMPONENT_ID, editedComponent);
+        componentService.editItem(VALID_COMPONENT_ID, editedComponent, null);
 
-        verify(componentRepository).updateNameById("New Component Name", VALID_COMPONENT_ID);
-        verify(componentRepository).updateDescriptionById("New component description.", VALID_COMPONENT_ID);
+        verify(componentRepository).updateById(eq("New Component Name"), eq("New component description."), any(ZonedDateTime.class), eq(VALID_COMPONENT_ID), isNull());
+        verify(componentRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -163,18 +385,80 @@ class ComponentServiceTests {
         var notExistingComponentId = VALID_COMPONENT_ID;
         var anyComponent = getComponent();
 
-        when(componentRepository.findById(notExistingComponentId)).thenReturn(Optional.empty());
+        when(componentRepository.updateById(any(), any(), any(), eq(notExistingComponentId), any())).thenReturn(0);
 
-        assertThatThrownBy(() -> componentService.editItem(notExistingComponentId, anyComponent))
+        assertThatThrownBy(() -> componentService.editItem(notExistingComponentId, anyComponent, null))
                 .isInstanceOf(ItemNotFoundException.class)
                 .hasMessage(ExpectedErrorMessage.componentNotFound(notExistingComponentId));
     }
 
+    @Test
+    void deleteComponent_expectedVersion_shouldDeleteOnlyThatVersion() {
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, 3L)).thenReturn(1);
+
+        componentService.deleteItem(VALID_COMPONENT_ID, 3L);
+
+        verify(componentRepository, never()).deleteByIdAndVersion(anyLong(), anyLong());
+    }
+
+    @Test
+    void deleteComponent_outdatedVersion_shouldThrowPreconditionFailedException() {
+        when(componentRepository.deleteUnusedById(VALID_COMPONENT_ID, 3L)).thenReturn(0);
+        when(componentRepository.findMetadataById(VALID_COMPONENT_ID)).thenReturn(Optional.of(getComponentMetadata()));
+
+        assertThatThrownBy(() -> componentService.deleteItem(VALID_COMPONENT_ID, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.componentVersionMismatch(VALID_COMPONENT_ID, 3L));
+    }
+
+    @Test
+    void editComponent_expectedVersion_shouldPassVersionToUpdate() {
+        var editedComponent = new Component();
+        editedComponent.setName("New Component Name");
+
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        componentService.editItem(VALID_COMPONENT_ID, editedComponent, 3L);
+
+        verify(componentRepository).updateById(eq("New Component Name"), isNull(), any(ZonedDateTime.class), eq(VALID_COMPONENT_ID), eq(3L));
+    }
+
+    @Test
+    void editComponent_outdatedVersion_shouldThrowPreconditionFailedException() {
+        var editedComponent = new Component();
+        editedComponent.setName("New Component Name");
+
+        when(componentRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(0);
+        when(componentRepository.existsById(VALID_COMPONENT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> componentService.editItem(VALID_COMPONENT_ID, editedComponent, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.componentVersionMismatch(VALID_COMPONENT_ID, 3L));
+    }
+
+    @Test
+    void getComponentMetadata_shouldReturnMetadataFromRepository() {
+        var metadata = getComponentMetadata();
+        when(componentRepository.findMetadataById(VALID_COMPONENT_ID)).thenReturn(Optional.of(metadata));
+
+        assertThat(componentService.getItemMetadata(VALID_COMPONENT_ID)).isEqualTo(metadata);
+        verify(componentRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getComponentMetadata_notExistingComponent_shouldThrowItemNotFoundException() {
+        when(componentRepository.findMetadataById(VALID_COMPONENT_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> componentService.getItemMetadata(VALID_COMPONENT_ID))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage(ExpectedErrorMessage.componentNotFound(VALID_COMPONENT_ID));
+    }
+
     @Test
     void editComponent_missingComponentNameAndDescription_shouldThrowBadRequest() {
         var component = new Component();
 
-        assertThatThrownBy(() -> componentService.editItem(VALID_COMPONENT_ID, component))
+        assertThatThrownBy(() -> componentService.editItem(VALID_COMPONENT_ID, component, null))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessage("New value for the component name or description must be provided");
     }
@@ -185,7 +469,7 @@ class ComponentServiceTests {
         var component = new Component();
         component.setName(blankComponentName);
 
-        assertThatThrownBy(() -> componentService.editItem(VALID_COMPONENT_ID, component))
+        assertThatThrownBy(() -> componentService.editItem(VALID_COMPONENT_ID, component, null))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessage("Component name cannot be blank");
     }
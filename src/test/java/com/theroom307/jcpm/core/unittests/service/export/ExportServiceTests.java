@@ -0,0 +1,78 @@
+package com.theroom307.jcpm.core.unittests.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
+import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.impl.ExportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static com.theroom307.jcpm.core.utils.data.TestProductData.getProductResponse;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@Tag(UNIT_TEST)
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ComponentRepository componentRepository;
+
+    @Mock
+    private ProductComponentRepository productComponentRepository;
+
+    private ExportServiceImpl exportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void createService() {
+        exportService = new ExportServiceImpl(
+                productRepository, componentRepository, productComponentRepository, objectMapper);
+    }
+
+    @Test
+    void exportProducts_shouldWriteOneJsonLinePerProductAndCloseTheStream() throws Exception {
+        var first = getProductResponse().withId(1L);
+        var second = getProductResponse().withId(2L).withName("Second product");
+        var closed = new AtomicBoolean();
+        when(productRepository.streamProjectedByOrderByIdAsc(ProductResponseDto.class))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+
+        var count = exportService.exportProducts(out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                objectMapper.writeValueAsString(first) + "\n" + objectMapper.writeValueAsString(second) + "\n");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void exportProductComponents_shouldWriteSnakeCaseLines() throws Exception {
+        when(productComponentRepository.streamAllLines())
+                .thenReturn(Stream.of(new ProductComponentLine(1L, 2L, 3)));
+
+        exportService.exportProductComponents(out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualTo("{\"product_id\":1,\"component_id\":2,\"quantity\":3}\n");
+    }
+}
@@ -0,0 +1,194 @@
+package com.theroom307.jcpm.core.unittests.service.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.theroom307.jcpm.core.controller.exception.BadRequestException;
+import com.theroom307.jcpm.core.data.dto.ImportResult.RowError;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.model.Component;
+import com.theroom307.jcpm.core.data.model.Product;
+import com.theroom307.jcpm.core.service.ImportFormat;
+import com.theroom307.jcpm.core.service.ItemService;
+import com.theroom307.jcpm.core.service.ProductComponentsService;
+import com.theroom307.jcpm.core.service.impl.ImportServiceImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Tag(UNIT_TEST)
+@ExtendWith(MockitoExtension.class)
+class ImportServiceTests {
+
+    @Mock
+    private ItemService<Product> productService;
+
+    @Mock
+    private ItemService<Component> componentService;
+
+    @Mock
+    private ProductComponentsService productComponentsService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Captor
+    private ArgumentCaptor<List<Component>> componentsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<ProductComponentLine>> linesCaptor;
+
+    private ImportServiceImpl importService;
+
+    @BeforeEach
+    void createService() {
+        importService = new ImportServiceImpl(productService, componentService, productComponentsService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager);
+    }
+
+    @Test
+    void importComponents_ndjson_shouldCreateValidRowsAndReportInvalidOnes() throws Exception {
+        var input = """
+                {"name": "Gold ring", "description": "18K"}
+                {"name": " "}
+
+                {"name": "Clasp"
+                {"name": "Silver chain"}
+                """;
+
+        var result = importService.importComponents(stream(input), ImportFormat.NDJSON);
+
+        verify(componentService).createItems(componentsCaptor.capture());
+        assertThat(componentsCaptor.getValue())
+                .extracting(Component::getName)
+                .containsExactly("Gold ring", "Silver chain");
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors())
+                .extracting(RowError::line)
+                .containsExactly(2L, 4L);
+        assertThat(result.errors().getFirst().message()).isEqualTo("Component name is required");
+        assertThat(result.errors().getLast().message()).startsWith("Invalid JSON");
+    }
+
+    @Test
+    void importComponents_csv_shouldParseQuotedFields() throws Exception {
+        var input = """
+                Name,Description
+                Gold ring,"18K, ""yellow"" gold"
+                "Pearl
+                necklace",
+                Clasp
+                ,Nameless
+                """;
+
+        var result = importService.importComponents(stream(input), ImportFormat.CSV);
+
+        verify(componentService).createItems(componentsCaptor.capture());
+        assertThat(componentsCaptor.getValue())
+                .extracting(Component::getName, Component::getDescription)
+                .containsExactly(
+                        tuple("Gold ring", "18K, \"yellow\" gold"),
+                        tuple("Pearl\nnecklace", null));
+        assertThat(result.errors()).containsExactly(
+                new RowError(5, "Expected 2 fields, found 1"),
+                new RowError(6, "Component name is required"));
+    }
+
+    @Test
+    void importProducts_csvWithoutNameColumn_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> importService.importProducts(stream("title,description\nRing,\n"), ImportFormat.CSV))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("The CSV header must contain a 'name' column");
+
+        verify(productService, never()).createItems(anyList());
+    }
+
+    @Test
+    void importProducts_shouldCreateInBatchesAndClearThePersistenceContext() throws Exception {
+        var input = IntStream.rangeClosed(1, 1001)
+                .mapToObj(i -> "{\"name\": \"Product " + i + "\"}")
+                .collect(Collectors.joining("\n"));
+
+        var result = importService.importProducts(stream(input), ImportFormat.NDJSON);
+
+        assertThat(result.imported()).isEqualTo(1001);
+        verify(productService, times(3)).createItems(anyList());
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void importProducts_whenBatchFails_shouldReportItsRows() throws Exception {
+        when(productService.createItems(any())).thenThrow(new DataIntegrityViolationException("Value too long"));
+
+        var result = importService.importProducts(stream("{\"name\": \"Ring\"}\n{\"name\": \"Chain\"}"),
+                ImportFormat.NDJSON);
+
+        assertThat(result.imported()).isZero();
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).extracting(RowError::line).containsExactly(1L, 2L);
+        verify(entityManager).clear();
+    }
+
+    @Test
+    void importProductComponents_csv_shouldReportRowsRejectedByTheService() throws Exception {
+        when(productComponentsService.addComponentsToProducts(anyList()))
+                .thenReturn(Map.of(1, "Product '9' not found"));
+        var input = """
+                product_id,component_id,quantity
+                1,2,3
+                9,2,
+                1,,1
+                1,3,0
+                """;
+
+        var result = importService.importProductComponents(stream(input), ImportFormat.CSV);
+
+        verify(productComponentsService).addComponentsToProducts(linesCaptor.capture());
+        assertThat(linesCaptor.getValue()).containsExactly(
+                new ProductComponentLine(1L, 2L, 3),
+                new ProductComponentLine(9L, 2L, null));
+        assertThat(result.imported()).isEqualTo(1);
+        assertThat(result.errors()).containsExactly(
+                new RowError(4, "'component_id' is required"),
+                new RowError(5, "Quantity must be greater than zero"),
+                new RowError(3, "Product '9' not found"));
+    }
+
+    @Test
+    void importProductComponents_csvWithoutComponentIdColumn_shouldThrowBadRequest() {
+        assertThatThrownBy(() -> importService.importProductComponents(stream("product_id,quantity\n1,2\n"),
+                ImportFormat.CSV))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("The CSV header must contain a 'component_id' column");
+    }
+
+    private static InputStream stream(String input) {
+        return new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,10 +1,11 @@
 package com.theroom307.jcpm.core.unittests.service.mapper;
 
-import com.theroom307.jcpm.core.data.dto.IResponseDto;
+import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.CursorPagination;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
 import com.theroom307.jcpm.core.data.dto.wrapper.ListResponseWrapper;
 import com.theroom307.jcpm.core.data.dto.wrapper.Pagination;
-import com.theroom307.jcpm.core.data.model.Component;
-import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.service.ItemDtoMapper;
 import com.theroom307.jcpm.core.service.impl.ItemDtoMapperImpl;
 import com.theroom307.jcpm.core.utils.data.TestComponentData;
@@ -13,7 +14,10 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.List;
 
@@ -63,34 +67,44 @@ class ItemDtoMapperTests {
 
     @Test
     void mapProductsPageToListResponseWrapper() {
-        List<Product> products = List.of(TestProductData.getProduct());
+        List<ProductResponseDto> products = List.of(TestProductData.getProductResponse());
         var pageable = Pageable.ofSize(10).withPage(0);
-        Page<Product> productPage = new PageImpl<>(products, pageable, 1);
+        Page<ProductResponseDto> productPage = new PageImpl<>(products, pageable, 1);
 
-        List<IResponseDto> responseData = List.of(TestProductData.getProductResponse());
-        var listResponseWrapper = ListResponseWrapper.builder()
+        var listResponseWrapper = ListResponseWrapper.<ProductResponseDto>builder()
                 .pagination(Pagination.from(productPage))
-                .data(responseData)
+                .data(products)
                 .build();
 
-        assertThat(mapper.mapProducts(productPage))
+        assertThat(mapper.mapList(productPage))
                 .isEqualTo(listResponseWrapper);
     }
 
     @Test
     void mapComponentsPageToListResponseWrapper() {
-        List<Component> components = List.of(TestComponentData.getComponent());
+        List<ComponentResponseDto> components = List.of(TestComponentData.getComponentResponse());
         var pageable = Pageable.ofSize(10).withPage(0);
-        Page<Component> componentPage = new PageImpl<>(components, pageable, 1);
+        Page<ComponentResponseDto> componentPage = new PageImpl<>(components, pageable, 1);
 
-        List<IResponseDto> responseData = List.of(TestComponentData.getComponentResponse());
-        var listResponseWrapper = ListResponseWrapper.builder()
+        var listResponseWrapper = ListResponseWrapper.<ComponentResponseDto>builder()
                 .pagination(Pagination.from(componentPage))
-                .data(responseData)
+                .data(components)
                 .build();
 
-        assertThat(mapper.mapComponents(componentPage))
+        assertThat(mapper.mapList(componentPage))
                 .isEqualTo(listResponseWrapper);
     }
 
+    @Test
+    void mapProductsSliceWithCursorToListResponseWrapper() {
+        var product = TestProductData.getProductResponse();
+        Slice<ProductResponseDto> productSlice = new SliceImpl<>(List.of(product), PageRequest.ofSize(1), true);
+
+        var listResponseWrapper = mapper.mapListWithCursor(productSlice);
+
+        assertThat(listResponseWrapper.getPagination()).isNull();
+        assertThat(listResponseWrapper.getCursor())
+                .isEqualTo(new CursorPagination(1, 1, new ItemCursor(product.id()).encode()));
+    }
+
 }
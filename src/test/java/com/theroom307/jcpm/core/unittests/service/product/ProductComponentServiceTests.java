@@ -4,30 +4,49 @@ import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ConditionFailedException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
 import com.theroom307.jcpm.core.controller.exception.NotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.BomComponentDto;
+import com.theroom307.jcpm.core.data.dto.BomDiff;
+import com.theroom307.jcpm.core.data.dto.ComponentAddDto;
+import com.theroom307.jcpm.core.data.dto.DeletionCounts;
+import com.theroom307.jcpm.core.data.dto.ProductComponentDto;
+import com.theroom307.jcpm.core.data.dto.ProductComponentLine;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
 import com.theroom307.jcpm.core.data.model.Component;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.data.model.ProductComponent;
+import com.theroom307.jcpm.core.data.repository.ComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductComponentRepository;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ItemChangedEvent;
 import com.theroom307.jcpm.core.service.ItemService;
 import com.theroom307.jcpm.core.service.ProductComponentsService;
+import com.theroom307.jcpm.core.service.cache.CacheProperties;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
+import com.theroom307.jcpm.core.service.cache.WhereUsedIndex;
 import com.theroom307.jcpm.core.service.impl.ProductComponentsServiceImpl;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import com.theroom307.jcpm.core.utils.constant.Item;
 import com.theroom307.jcpm.core.utils.data.TestComponentData;
 import com.theroom307.jcpm.core.utils.data.TestProductData;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.VALID_COMPONENT_ID;
@@ -35,7 +54,13 @@ import static com.theroom307.jcpm.core.utils.data.TestData.DEFAULT_COMPONENT_QUA
 import static com.theroom307.jcpm.core.utils.data.TestProductData.VALID_PRODUCT_ID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -59,9 +84,22 @@ class ProductComponentServiceTests {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ComponentRepository componentRepository;
+
+    @Mock
+    private WhereUsedIndex whereUsedIndex;
+
+    @Captor
+    private ArgumentCaptor<List<ProductComponent>> productComponentsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<Product>> productsCaptor;
+
     @BeforeEach
     void initProductComponentsService() {
-        service = new ProductComponentsServiceImpl(productService, componentService, productComponentRepository, productRepository);
+        service = new ProductComponentsServiceImpl(productService, componentService, productComponentRepository, productRepository,
+                componentRepository, new CacheRegistry(new CacheProperties()), whereUsedIndex);
     }
 
     /*
@@ -84,7 +122,18 @@ class ProductComponentServiceTests {
 
         service.addComponentToProduct(product.getId(), component.getId(), quantity);
 
-        verify(productComponentRepository).save(productComponent);
+        verify(productComponentRepository).saveAndFlush(productComponent);
+        verify(productComponentRepository, never()).findProductComponent(anyLong(), anyLong());
+    }
+
+    @Test
+    void addComponentToProduct_shouldIncrementComponentUsageCount() {
+        mockServices();
+
+        service.addComponentToProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, DEFAULT_COMPONENT_QUANTITY);
+
+        verify(componentRepository).incrementUsageCount(VALID_COMPONENT_ID);
+        verify(componentService).evictItem(VALID_COMPONENT_ID);
     }
 
     @Test
@@ -137,12 +186,363 @@ class ProductComponentServiceTests {
         var productId = productComponent.getProduct().getId();
         var componentId = productComponent.getComponent().getId();
 
-        when(productComponentRepository.findProductComponent(productId, componentId))
-                .thenReturn(Optional.of(productComponent));
+        when(productComponentRepository.saveAndFlush(any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate", new ConstraintViolationException(
+                        "duplicate", null, ProductComponent.PRODUCT_COMPONENT_UNIQUE_CONSTRAINT)));
 
         assertThatThrownBy(() -> service.addComponentToProduct(productId, componentId, DEFAULT_COMPONENT_QUANTITY))
                 .isInstanceOf(ConditionFailedException.class)
                 .hasMessage(ExpectedErrorMessage.productAlreadyContainsComponent(productId, componentId));
+        verify(componentRepository, never()).incrementUsageCount(anyLong());
+    }
+
+    @Test
+    void addComponentToProduct_otherIntegrityViolation_shouldRethrow() {
+        mockServices();
+
+        var exception = new DataIntegrityViolationException("other", new ConstraintViolationException(
+                "other", null, "fk_product_components_product"));
+        when(productComponentRepository.saveAndFlush(any())).thenThrow(exception);
+
+        assertThatThrownBy(() -> service.addComponentToProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, DEFAULT_COMPONENT_QUANTITY))
+                .isSameAs(exception);
+    }
+
+    /*
+        CREATE PRODUCT WITH COMPONENTS
+     */
+
+    @Test
+    void createProductWithComponents_shouldCheckComponentsAtOnceAndSaveEntriesInBatch() {
+        var product = TestProductData.getProduct();
+        var component = TestComponentData.getComponent();
+        when(componentRepository.findExistingIds(any())).thenReturn(List.of(VALID_COMPONENT_ID));
+        when(productService.createItem(product)).thenReturn(VALID_PRODUCT_ID);
+        when(componentRepository.getReferenceById(VALID_COMPONENT_ID)).thenReturn(component);
+
+        var productId = service.createProductWithComponents(product, List.of(componentToAdd(VALID_COMPONENT_ID, 4)));
+
+        assertThat(productId).isEqualTo(VALID_PRODUCT_ID);
+        verify(productComponentRepository).saveAll(productComponentsCaptor.capture());
+        assertThat(productComponentsCaptor.getValue())
+                .extracting(ProductComponent::getProduct, ProductComponent::getComponent, ProductComponent::getQuantity)
+                .containsExactly(tuple(product, component, 4));
+        verify(componentRepository).recountUsageByIdIn(Set.of(VALID_COMPONENT_ID));
+        verify(whereUsedIndex).add(VALID_COMPONENT_ID, VALID_PRODUCT_ID);
+        verify(componentService, never()).getItem(anyLong());
+    }
+
+    @Test
+    void createProductWithComponents_unknownComponent_shouldNotCreateProduct() {
+        when(componentRepository.findExistingIds(any())).thenReturn(List.of(VALID_COMPONENT_ID));
+        var components = List.of(componentToAdd(VALID_COMPONENT_ID, 1), componentToAdd(9L, 1));
+
+        assertThatThrownBy(() -> service.createProductWithComponents(TestProductData.getProductToCreate(), components))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage("Component '9' was not found");
+
+        verify(productService, never()).createItem(any());
+        verify(productComponentRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void createProductWithComponents_repeatedComponent_shouldThrowBadRequestException() {
+        var components = List.of(componentToAdd(VALID_COMPONENT_ID, 1), componentToAdd(VALID_COMPONENT_ID, 2));
+
+        assertThatThrownBy(() -> service.createProductWithComponents(TestProductData.getProductToCreate(), components))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Component '%s' is listed more than once", VALID_COMPONENT_ID);
+
+        verify(productService, never()).createItem(any());
+    }
+
+    /*
+        ADJUST COMPONENT QUANTITY
+     */
+
+    @Test
+    void adjustComponentQuantity_shouldUpdateInOneStatementWithoutReading() {
+        when(productComponentRepository.adjustQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 2, null)).thenReturn(1);
+
+        service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 2, null);
+
+        verify(productComponentRepository, never()).findProductComponent(anyLong(), anyLong());
+        verify(productService, never()).getItem(anyLong());
+        verify(componentService, never()).getItem(anyLong());
+    }
+
+    @Test
+    void adjustComponentQuantity_belowOne_shouldThrowConditionFailedException() {
+        when(productComponentRepository.findProductComponent(VALID_PRODUCT_ID, VALID_COMPONENT_ID))
+                .thenReturn(anyProductComponent());
+
+        assertThatThrownBy(() -> service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, -5, null))
+                .isInstanceOf(ConditionFailedException.class)
+                .hasMessageContaining("must stay greater than zero");
+    }
+
+    @Test
+    void adjustComponentQuantity_aboveMaxValue_shouldThrowConditionFailedException() {
+        var productComponent = anyProductComponent();
+        productComponent.orElseThrow().setQuantity(Integer.MAX_VALUE - 1);
+        when(productComponentRepository.findProductComponent(VALID_PRODUCT_ID, VALID_COMPONENT_ID))
+                .thenReturn(productComponent);
+
+        assertThatThrownBy(() -> service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 2, null))
+                .isInstanceOf(ConditionFailedException.class)
+                .hasMessageContaining("must not exceed " + Integer.MAX_VALUE);
+    }
+
+    @Test
+    void adjustComponentQuantity_zeroDelta_shouldThrowBadRequestException() {
+        assertThatThrownBy(() -> service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 0, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Delta must not be zero");
+
+        verify(productComponentRepository, never()).adjustQuantity(anyLong(), anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void adjustComponentQuantity_outdatedVersion_shouldThrowPreconditionFailedException() {
+        when(productComponentRepository.findProductComponent(VALID_PRODUCT_ID, VALID_COMPONENT_ID))
+                .thenReturn(anyProductComponent());
+
+        assertThatThrownBy(() -> service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 1, 7L))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    void adjustComponentQuantity_componentNotInProduct_shouldThrowNotFoundException() {
+        mockProductService();
+        when(productComponentRepository.findProductComponent(VALID_PRODUCT_ID, VALID_COMPONENT_ID))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.adjustComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 1, null))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage(ExpectedErrorMessage.productDoesNotContainComponent(VALID_PRODUCT_ID, VALID_COMPONENT_ID));
+    }
+
+    /*
+        REPLACE ALL COMPONENTS OF A PRODUCT
+     */
+
+    @Test
+    void replaceComponents_shouldApplyOnlyTheDifferences() {
+        var product = TestProductData.getProduct();
+        var unchanged = entry(product, componentWithId(2L), 1);
+        var changed = entry(product, componentWithId(3L), 2);
+        var removed = entry(product, componentWithId(4L), 1);
+        var added = componentWithId(6L);
+        when(productService.getItem(VALID_PRODUCT_ID)).thenReturn(product);
+        when(productComponentRepository.findAllWithComponentsByProductId(VALID_PRODUCT_ID))
+                .thenReturn(List.of(unchanged, changed, removed));
+        when(componentRepository.findExistingIds(any())).thenReturn(List.of(6L));
+        when(componentRepository.getReferenceById(6L)).thenReturn(added);
+
+        var diff = service.replaceComponents(VALID_PRODUCT_ID, List.of(
+                componentToAdd(2L, 1), componentToAdd(3L, 5), componentToAdd(6L, 7)));
+
+        assertThat(diff).isEqualTo(new BomDiff(
+                List.of(new BomDiff.Entry(6L, 7)),
+                List.of(new BomDiff.Entry(3L, 5)),
+                List.of(4L)));
+        assertThat(changed.getQuantity()).isEqualTo(5);
+        verify(productComponentRepository).deleteAll(List.of(removed));
+        verify(productComponentRepository).saveAll(productComponentsCaptor.capture());
+        assertThat(productComponentsCaptor.getValue())
+                .extracting(ProductComponent::getComponent, ProductComponent::getQuantity)
+                .containsExactly(tuple(added, 7));
+        verify(productComponentRepository).flush();
+        verify(componentRepository).recountUsageByIdIn(Set.of(4L, 6L));
+        verify(whereUsedIndex).remove(4L, VALID_PRODUCT_ID);
+        verify(whereUsedIndex).add(6L, VALID_PRODUCT_ID);
+    }
+
+    @Test
+    void replaceComponents_onlyQuantitiesChanged_shouldNotRecountUsage() {
+        var product = TestProductData.getProduct();
+        var changed = entry(product, componentWithId(3L), 2);
+        when(productService.getItem(VALID_PRODUCT_ID)).thenReturn(product);
+        when(productComponentRepository.findAllWithComponentsByProductId(VALID_PRODUCT_ID))
+                .thenReturn(List.of(changed));
+
+        var diff = service.replaceComponents(VALID_PRODUCT_ID, List.of(componentToAdd(3L, 4)));
+
+        assertThat(diff.updated()).containsExactly(new BomDiff.Entry(3L, 4));
+        verify(componentRepository, never()).findExistingIds(any());
+        verify(componentRepository, never()).recountUsageByIdIn(any());
+    }
+
+    @Test
+    void replaceComponents_unknownComponent_shouldChangeNothing() {
+        when(productService.getItem(VALID_PRODUCT_ID)).thenReturn(TestProductData.getProduct());
+        when(productComponentRepository.findAllWithComponentsByProductId(VALID_PRODUCT_ID)).thenReturn(List.of());
+        when(componentRepository.findExistingIds(any())).thenReturn(List.of());
+
+        assertThatThrownBy(() -> service.replaceComponents(VALID_PRODUCT_ID, List.of(componentToAdd(9L, 1))))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage("Component '9' was not found");
+
+        verify(productComponentRepository, never()).flush();
+    }
+
+    /*
+        CLONE PRODUCT
+     */
+
+    @Test
+    void cloneProduct_shouldCreateTheCopiesAndCopyTheEntriesInOneStatement() {
+        var product = TestProductData.getProduct();
+        when(productService.getItem(VALID_PRODUCT_ID)).thenReturn(product);
+        when(productService.createItems(any())).thenReturn(List.of(11L, 12L));
+        when(productComponentRepository.copyEntries(VALID_PRODUCT_ID, List.of(11L, 12L))).thenReturn(2);
+        when(productComponentRepository.findProductAndComponentIdsByProductIdIn(List.of(11L, 12L)))
+                .thenReturn(List.of(new Object[]{11L, 2L}, new Object[]{12L, 2L}));
+
+        var cloneIds = service.cloneProduct(VALID_PRODUCT_ID, 2, "Variant");
+
+        assertThat(cloneIds).containsExactly(11L, 12L);
+        verify(productService).createItems(productsCaptor.capture());
+        assertThat(productsCaptor.getValue())
+                .extracting(Product::getName, Product::getDescription)
+                .containsExactly(
+                        tuple("Variant", product.getDescription()),
+                        tuple("Variant", product.getDescription()));
+        verify(componentRepository).recountUsageByIdIn(Set.of(2L));
+        verify(whereUsedIndex).add(2L, 11L);
+        verify(whereUsedIndex).add(2L, 12L);
+    }
+
+    @Test
+    void cloneProduct_withoutComponents_shouldNotRecountUsage() {
+        var product = TestProductData.getProduct();
+        when(productService.getItem(VALID_PRODUCT_ID)).thenReturn(product);
+        when(productService.createItems(any())).thenReturn(List.of(11L));
+
+        service.cloneProduct(VALID_PRODUCT_ID, 1, null);
+
+        verify(productService).createItems(productsCaptor.capture());
+        assertThat(productsCaptor.getValue()).extracting(Product::getName).containsExactly(product.getName());
+        verify(productComponentRepository, never()).findProductAndComponentIdsByProductIdIn(any());
+        verify(componentRepository, never()).recountUsageByIdIn(any());
+    }
+
+    @Test
+    void cloneProduct_nonExistingProduct_shouldCreateNothing() {
+        var expectedException = new ItemNotFoundException(Item.PRODUCT.toString(), VALID_PRODUCT_ID);
+        when(productService.getItem(VALID_PRODUCT_ID)).thenThrow(expectedException);
+
+        assertThatThrownBy(() -> service.cloneProduct(VALID_PRODUCT_ID, 3, null))
+                .isInstanceOf(expectedException.getClass())
+                .hasMessage(expectedException.getMessage());
+
+        verify(productService, never()).createItems(any());
+        verify(productComponentRepository, never()).copyEntries(anyLong(), any());
+    }
+
+    /*
+        DELETE PRODUCTS WITH THEIR COMPONENTS
+     */
+
+    @Test
+    void deleteProduct_shouldDeleteEntriesAndProductAndRecountUsage() {
+        when(productComponentRepository.findProductAndComponentIdsByProductIdIn(List.of(VALID_PRODUCT_ID)))
+                .thenReturn(List.of(new Object[]{VALID_PRODUCT_ID, 2L}, new Object[]{VALID_PRODUCT_ID, 3L}));
+        when(productComponentRepository.deleteByProductIdIn(List.of(VALID_PRODUCT_ID))).thenReturn(2);
+        when(productService.deleteItem(VALID_PRODUCT_ID, 4L)).thenReturn(true);
+
+        var counts = service.deleteProduct(VALID_PRODUCT_ID, 4L);
+
+        assertThat(counts).isEqualTo(new DeletionCounts(1, 2));
+        verify(componentRepository).recountUsageByIdIn(Set.of(2L, 3L));
+        verify(whereUsedIndex).remove(2L, VALID_PRODUCT_ID);
+        verify(whereUsedIndex).remove(3L, VALID_PRODUCT_ID);
+    }
+
+    @Test
+    void deleteProduct_outdatedVersion_shouldNotRecountUsage() {
+        when(productComponentRepository.findProductAndComponentIdsByProductIdIn(List.of(VALID_PRODUCT_ID)))
+                .thenReturn(List.<Object[]>of(new Object[]{VALID_PRODUCT_ID, 2L}));
+        when(productService.deleteItem(VALID_PRODUCT_ID, 4L))
+                .thenThrow(new PreconditionFailedException("outdated"));
+
+        assertThatThrownBy(() -> service.deleteProduct(VALID_PRODUCT_ID, 4L))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        verify(componentRepository, never()).recountUsageByIdIn(any());
+        verify(whereUsedIndex, never()).remove(anyLong(), anyLong());
+    }
+
+    @Test
+    void deleteProducts_shouldDeleteWithOneStatementPerTable() {
+        var productIds = List.of(1L, 2L, 9L);
+        when(productComponentRepository.findProductAndComponentIdsByProductIdIn(productIds))
+                .thenReturn(List.of(new Object[]{1L, 5L}, new Object[]{2L, 5L}, new Object[]{2L, 6L}));
+        when(productComponentRepository.deleteByProductIdIn(productIds)).thenReturn(3);
+        when(productService.deleteItems(productIds)).thenReturn(2);
+
+        var counts = service.deleteProducts(productIds);
+
+        assertThat(counts).isEqualTo(new DeletionCounts(2, 3));
+        verify(componentRepository).recountUsageByIdIn(Set.of(5L, 6L));
+        verify(whereUsedIndex).remove(5L, 1L);
+        verify(whereUsedIndex).remove(5L, 2L);
+        verify(whereUsedIndex).remove(6L, 2L);
+    }
+
+    @Test
+    void deleteProducts_withoutComponents_shouldNotRecountUsage() {
+        when(productService.deleteItems(List.of(1L))).thenReturn(1);
+
+        assertThat(service.deleteProducts(List.of(1L))).isEqualTo(new DeletionCounts(1, 0));
+
+        verify(componentRepository, never()).recountUsageByIdIn(any());
+    }
+
+    /*
+        ADD COMPONENTS TO PRODUCTS IN BULK
+     */
+
+    @Test
+    void addComponentsToProducts_shouldRejectLinesSetWiseAndSaveTheRest() {
+        var product = TestProductData.getProduct();
+        var component = TestComponentData.getComponent();
+        when(productRepository.findExistingIds(any())).thenReturn(List.of(1L));
+        when(componentRepository.findExistingIds(any())).thenReturn(List.of(2L, 3L));
+        when(productComponentRepository.findProductAndComponentIds(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        when(productRepository.getReferenceById(1L)).thenReturn(product);
+        when(componentRepository.getReferenceById(2L)).thenReturn(component);
+
+        var rejected = service.addComponentsToProducts(List.of(
+                new ProductComponentLine(1L, 2L, 5),
+                new ProductComponentLine(9L, 2L, 1),
+                new ProductComponentLine(1L, 8L, null),
+                new ProductComponentLine(1L, 3L, 1),
+                new ProductComponentLine(1L, 2L, 2)));
+
+        assertThat(rejected).containsExactly(
+                entry(1, "Product '9' not found"),
+                entry(2, "Component '8' not found"),
+                entry(3, "Product '1' already contains component '3'"),
+                entry(4, "Product '1' and component '2' are repeated"));
+        verify(productComponentRepository).saveAll(productComponentsCaptor.capture());
+        assertThat(productComponentsCaptor.getValue())
+                .extracting(ProductComponent::getProduct, ProductComponent::getComponent, ProductComponent::getQuantity)
+                .containsExactly(tuple(product, component, 5));
+        verify(productComponentRepository).flush();
+        verify(componentRepository).recountUsageByIdIn(Set.of(2L));
+        verify(componentService).evictItem(2L);
+        verify(whereUsedIndex).add(2L, 1L);
+    }
+
+    @Test
+    void addComponentsToProducts_allLinesRejected_shouldNotSave() {
+        var rejected = service.addComponentsToProducts(List.of(new ProductComponentLine(9L, 8L, 1)));
+
+        assertThat(rejected).containsOnlyKeys(0);
+        verify(productComponentRepository, never()).saveAll(any());
+        verify(componentRepository, never()).recountUsageByIdIn(any());
     }
 
     /*
@@ -162,9 +562,11 @@ class ProductComponentServiceTests {
         when(productComponentRepository.findProductComponent(anyLong(), anyLong()))
                 .thenReturn(Optional.of(productComponent));
 
-        service.removeComponentFromProduct(product.getId(), component.getId());
+        service.removeComponentFromProduct(product.getId(), component.getId(), null);
 
         verify(productComponentRepository).delete(productComponent);
+        verify(componentRepository).decrementUsageCount(component.getId());
+        verify(componentService).evictItem(component.getId());
     }
 
     @Test
@@ -174,7 +576,7 @@ class ProductComponentServiceTests {
                 .thenReturn(anyProductComponent());
 
         var productId = 123L;
-        service.removeComponentFromProduct(productId, VALID_COMPONENT_ID);
+        service.removeComponentFromProduct(productId, VALID_COMPONENT_ID, null);
         verify(productService).getItem(productId);
     }
 
@@ -186,7 +588,7 @@ class ProductComponentServiceTests {
 
         var productId = 123L;
         var componentId = 321L;
-        service.removeComponentFromProduct(productId, componentId);
+        service.removeComponentFromProduct(productId, componentId, null);
         verify(productComponentRepository).findProductComponent(productId, componentId);
     }
 
@@ -196,7 +598,7 @@ class ProductComponentServiceTests {
         var expectedException = new ItemNotFoundException(Item.PRODUCT.toString(), productId);
         when(productService.getItem(anyLong())).thenThrow(expectedException);
 
-        assertThatThrownBy(() -> service.removeComponentFromProduct(productId, VALID_COMPONENT_ID))
+        assertThatThrownBy(() -> service.removeComponentFromProduct(productId, VALID_COMPONENT_ID, null))
                 .isInstanceOf(expectedException.getClass())
                 .hasMessage(expectedException.getMessage());
     }
@@ -209,11 +611,40 @@ class ProductComponentServiceTests {
 
         var productId = 123L;
         var componentId = 321L;
-        assertThatThrownBy(() -> service.removeComponentFromProduct(productId, componentId))
+        assertThatThrownBy(() -> service.removeComponentFromProduct(productId, componentId, null))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage(ExpectedErrorMessage.productDoesNotContainComponent(productId, componentId));
     }
 
+    @Test
+    void removeComponentFromProduct_outdatedVersion_shouldThrowPreconditionFailedException() {
+        var productComponent = getVersionedProductComponent(2L);
+
+        mockProductService();
+        when(productComponentRepository.findProductComponent(anyLong(), anyLong()))
+                .thenReturn(Optional.of(productComponent));
+
+        assertThatThrownBy(() -> service.removeComponentFromProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 1L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.productComponentVersionMismatch(
+                        VALID_PRODUCT_ID, VALID_COMPONENT_ID, 1L));
+        verify(productComponentRepository, never()).delete(any());
+        verify(componentRepository, never()).decrementUsageCount(anyLong());
+    }
+
+    @Test
+    void removeComponentFromProduct_currentVersion_shouldDeleteFromRepository() {
+        var productComponent = getVersionedProductComponent(2L);
+
+        mockProductService();
+        when(productComponentRepository.findProductComponent(anyLong(), anyLong()))
+                .thenReturn(Optional.of(productComponent));
+
+        service.removeComponentFromProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 2L);
+
+        verify(productComponentRepository).delete(productComponent);
+    }
+
     /*
         UPDATE COMPONENT QUANTITY
      */
@@ -235,7 +666,7 @@ class ProductComponentServiceTests {
         when(productComponentRepository.findProductComponent(product.getId(), component.getId()))
                 .thenReturn(Optional.of(productComponent));
 
-        service.updateComponentQuantity(product.getId(), component.getId(), newQuantity);
+        service.updateComponentQuantity(product.getId(), component.getId(), newQuantity, null);
 
         // Verify the quantity was updated
         assertThat(productComponent.getQuantity()).isEqualTo(newQuantity);
@@ -248,7 +679,7 @@ class ProductComponentServiceTests {
         var expectedException = new ItemNotFoundException(Item.PRODUCT.toString(), productId);
         when(productService.getItem(anyLong())).thenThrow(expectedException);
 
-        assertThatThrownBy(() -> service.updateComponentQuantity(productId, VALID_COMPONENT_ID, 5))
+        assertThatThrownBy(() -> service.updateComponentQuantity(productId, VALID_COMPONENT_ID, 5, null))
                 .isInstanceOf(expectedException.getClass())
                 .hasMessage(expectedException.getMessage());
     }
@@ -261,7 +692,7 @@ class ProductComponentServiceTests {
         var expectedException = new ItemNotFoundException(Item.COMPONENT.toString(), componentId);
         when(componentService.getItem(anyLong())).thenThrow(expectedException);
 
-        assertThatThrownBy(() -> service.updateComponentQuantity(VALID_PRODUCT_ID, componentId, 5))
+        assertThatThrownBy(() -> service.updateComponentQuantity(VALID_PRODUCT_ID, componentId, 5, null))
                 .isInstanceOf(expectedException.getClass())
                 .hasMessage(expectedException.getMessage());
     }
@@ -275,14 +706,29 @@ class ProductComponentServiceTests {
         var productId = 123L;
         var componentId = 321L;
 
-        assertThatThrownBy(() -> service.updateComponentQuantity(productId, componentId, 5))
+        assertThatThrownBy(() -> service.updateComponentQuantity(productId, componentId, 5, null))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage(ExpectedErrorMessage.productDoesNotContainComponent(productId, componentId));
     }
 
+    @Test
+    void updateComponentQuantity_outdatedVersion_shouldThrowPreconditionFailedException() {
+        var productComponent = getVersionedProductComponent(2L);
+
+        mockServices();
+        when(productComponentRepository.findProductComponent(anyLong(), anyLong()))
+                .thenReturn(Optional.of(productComponent));
+
+        assertThatThrownBy(() -> service.updateComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 5, 1L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.productComponentVersionMismatch(
+                        VALID_PRODUCT_ID, VALID_COMPONENT_ID, 1L));
+        verify(productComponentRepository, never()).save(any());
+    }
+
     @Test
     void updateComponentQuantity_invalidQuantity_shouldThrowBadRequestException() {
-        assertThatThrownBy(() -> service.updateComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 0))
+        assertThatThrownBy(() -> service.updateComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 0, null))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessageContaining("Quantity must be greater than zero");
     }
@@ -292,43 +738,45 @@ class ProductComponentServiceTests {
      */
 
     @Test
-    void getComponentsForProduct_existingProductWithComponents_shouldReturnComponentsMap() {
+    void getComponentsForProduct_existingProductWithComponents_shouldReturnComponentDtos() {
         var product = TestProductData.getProduct();
         var component1 = TestComponentData.getComponent();
         var component2 = TestComponentData.getComponent();
         component2.setId(456L);
         component2.setName("second component");
 
-        var productComponent1 = ProductComponent.builder()
-                .product(product)
-                .component(component1)
-                .quantity(3)
-                .build();
-
-        var productComponent2 = ProductComponent.builder()
-                .product(product)
-                .component(component2)
-                .quantity(7)
-                .build();
+        var productComponents = List.of(
+                new ProductComponentDto(BomComponentDto.fromEntity(component1), 3, null),
+                new ProductComponentDto(BomComponentDto.fromEntity(component2), 7, null));
 
-        when(productService.getItem(product.getId())).thenReturn(product);
-        when(productComponentRepository.findAllByProductId(product.getId()))
-                .thenReturn(List.of(productComponent1, productComponent2));
+        when(productComponentRepository.findComponentDtosByProductId(product.getId()))
+                .thenReturn(productComponents);
 
         var result = service.getComponentsForProduct(product.getId());
 
         assertThat(result)
-                .hasSize(2)
-                .containsEntry(component1, 3)
-                .containsEntry(component2, 7);
+                .containsExactlyElementsOf(productComponents);
     }
 
     @Test
-    void getComponentsForProduct_existingProductWithNoComponents_shouldReturnEmptyMap() {
+    void getComponentsForProduct_existingProductWithComponents_shouldNotRequestFromProductService() {
+        var product = TestProductData.getProduct();
+        var component = TestComponentData.getComponent();
+
+        when(productComponentRepository.findComponentDtosByProductId(product.getId()))
+                .thenReturn(List.of(new ProductComponentDto(BomComponentDto.fromEntity(component), 1, null)));
+
+        service.getComponentsForProduct(product.getId());
+
+        verify(productService, never()).getItem(anyLong());
+    }
+
+    @Test
+    void getComponentsForProduct_existingProductWithNoComponents_shouldReturnEmptyList() {
         var product = TestProductData.getProduct();
 
         when(productService.getItem(product.getId())).thenReturn(product);
-        when(productComponentRepository.findAllByProductId(product.getId()))
+        when(productComponentRepository.findComponentDtosByProductId(product.getId()))
                 .thenReturn(List.of());
 
         var result = service.getComponentsForProduct(product.getId());
@@ -348,6 +796,95 @@ class ProductComponentServiceTests {
                 .hasMessage(expectedException.getMessage());
     }
 
+    @Test
+    void getComponentsForProduct_calledTwice_shouldReadBomOnce() {
+        var component = TestComponentData.getComponent();
+        var bom = List.of(new ProductComponentDto(BomComponentDto.fromEntity(component), 1, null));
+
+        when(productComponentRepository.findComponentDtosByProductId(VALID_PRODUCT_ID)).thenReturn(bom);
+
+        service.getComponentsForProductMetadata(VALID_PRODUCT_ID);
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+
+        assertThat(service.getComponentsForProduct(VALID_PRODUCT_ID))
+                .containsExactlyElementsOf(bom);
+        verify(productComponentRepository, times(1)).findComponentDtosByProductId(VALID_PRODUCT_ID);
+        verify(productComponentRepository, times(1)).findBomMetadataByProductId(VALID_PRODUCT_ID);
+    }
+
+    @Test
+    void updateComponentQuantity_shouldEvictBom() {
+        mockServices();
+        when(productComponentRepository.findProductComponent(anyLong(), anyLong()))
+                .thenReturn(anyProductComponent());
+
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+        service.updateComponentQuantity(VALID_PRODUCT_ID, VALID_COMPONENT_ID, 5, null);
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+
+        verify(productComponentRepository, times(2)).findComponentDtosByProductId(VALID_PRODUCT_ID);
+    }
+
+    @Test
+    void addComponentToProduct_shouldEvictOnlyTheChangedBom() {
+        var otherProductId = 456L;
+        mockServices();
+
+        service.getComponentsForProduct(otherProductId);
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+        service.addComponentToProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, DEFAULT_COMPONENT_QUANTITY);
+        service.getComponentsForProduct(otherProductId);
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+
+        verify(productComponentRepository).findComponentDtosByProductId(otherProductId);
+        verify(productComponentRepository, times(2)).findComponentDtosByProductId(VALID_PRODUCT_ID);
+        verify(productComponentRepository, never()).findProductIdsByComponentId(anyLong());
+    }
+
+    @Test
+    void getComponentsForProductMetadata_nonExistingProduct_shouldNotCacheEmptyBom() {
+        var productId = 1234L;
+        when(productService.getItem(productId)).thenThrow(new ItemNotFoundException(Item.PRODUCT.toString(), productId));
+
+        assertThatThrownBy(() -> service.getComponentsForProductMetadata(productId))
+                .isInstanceOf(ItemNotFoundException.class);
+        assertThatThrownBy(() -> service.getComponentsForProduct(productId))
+                .isInstanceOf(ItemNotFoundException.class);
+
+        verify(productComponentRepository, times(2)).findComponentDtosByProductId(productId);
+    }
+
+    @Test
+    void onItemChanged_component_shouldEvictBomsFromWhereUsedIndex() {
+        when(productComponentRepository.findComponentDtosByProductId(VALID_PRODUCT_ID))
+                .thenReturn(List.of(new ProductComponentDto(
+                        BomComponentDto.fromEntity(TestComponentData.getComponent()), 1, null)));
+        when(whereUsedIndex.isReady()).thenReturn(true);
+        when(whereUsedIndex.getProductIds(VALID_COMPONENT_ID)).thenReturn(new long[]{VALID_PRODUCT_ID});
+
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+        ((ProductComponentsServiceImpl) service).onItemChanged(
+                new ItemChangedEvent(Component.class, VALID_COMPONENT_ID));
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+
+        verify(productComponentRepository, times(2)).findComponentDtosByProductId(VALID_PRODUCT_ID);
+        verify(productComponentRepository, never()).findProductIdsByComponentId(anyLong());
+    }
+
+    @Test
+    void onItemChanged_component_shouldEvictBomsContainingComponent() {
+        mockProductService();
+        when(productComponentRepository.findProductIdsByComponentId(VALID_COMPONENT_ID))
+                .thenReturn(List.of(VALID_PRODUCT_ID));
+
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+        ((ProductComponentsServiceImpl) service).onItemChanged(
+                new ItemChangedEvent(Component.class, VALID_COMPONENT_ID));
+        service.getComponentsForProduct(VALID_PRODUCT_ID);
+
+        verify(productComponentRepository, times(2)).findComponentDtosByProductId(VALID_PRODUCT_ID);
+    }
+
     /*
         GET PRODUCTS BY COMPONENT
      */
@@ -355,10 +892,10 @@ class ProductComponentServiceTests {
     @Test
     void getProductsByComponent_existingComponentWithProducts_shouldReturnProductsPage() {
         var component = TestComponentData.getComponent();
-        var product1 = TestProductData.getProduct();
-        var product2 = TestProductData.getProduct();
-        product2.setId(456L);
-        product2.setName("second product");
+        var product1 = TestProductData.getProductResponse();
+        var product2 = TestProductData.getProductResponse()
+                .withId(456L)
+                .withName("second product");
 
         var pageable = PageRequest.of(0, 10);
         var productsPage = new PageImpl<>(List.of(product1, product2), pageable, 2);
@@ -381,7 +918,7 @@ class ProductComponentServiceTests {
     void getProductsByComponent_existingComponentWithNoProducts_shouldReturnEmptyPage() {
         var component = TestComponentData.getComponent();
         var pageable = PageRequest.of(0, 10);
-        var emptyPage = new PageImpl<Product>(List.of(), pageable, 0);
+        var emptyPage = new PageImpl<ProductResponseDto>(List.of(), pageable, 0);
 
         when(componentService.getItem(component.getId())).thenReturn(component);
         when(productRepository.findDistinctByComponentId(component.getId(), pageable))
@@ -404,30 +941,44 @@ class ProductComponentServiceTests {
                 .hasMessage(expectedException.getMessage());
     }
 
-    /*
-        IS COMPONENT IN USE
-     */
-
     @Test
-    void isComponentInUse_whenComponentUsedInOneProduct_shouldReturnTrue() {
-        var componentId = 419L;
-        when(productComponentRepository.countComponentUsage(componentId))
-                .thenReturn(1L);
+    void getProductsByComponent_indexReady_shouldReadPageOfProductsByIds() {
+        when(componentService.getItem(VALID_COMPONENT_ID)).thenReturn(TestComponentData.getComponent());
+        when(whereUsedIndex.isReady()).thenReturn(true);
+        when(whereUsedIndex.getProductIds(VALID_COMPONENT_ID)).thenReturn(new long[]{11, 12, 13});
+        var products = List.of(TestProductData.getProductResponse().withId(13L));
+        when(productRepository.findAllByIdInOrderById(List.of(13L))).thenReturn(products);
+
+        var result = service.getProductsByComponent(VALID_COMPONENT_ID, 1, 2);
+
+        assertThat(result.getContent()).isEqualTo(products);
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        verify(productRepository, never()).findDistinctByComponentId(anyLong(), any());
+    }
 
-        assertThat(service.isComponentInUse(componentId))
-                .as("Should return true because the component is used one time")
-                .isTrue();
+    @Test
+    void getProductsByComponent_indexReady_withCursor_shouldSeekAfterCursorId() {
+        when(componentService.getItem(VALID_COMPONENT_ID)).thenReturn(TestComponentData.getComponent());
+        when(whereUsedIndex.isReady()).thenReturn(true);
+        when(whereUsedIndex.getProductIds(VALID_COMPONENT_ID)).thenReturn(new long[]{11, 12, 13, 14});
+        var products = List.of(
+                TestProductData.getProductResponse().withId(12L),
+                TestProductData.getProductResponse().withId(13L));
+        when(productRepository.findAllByIdInOrderById(List.of(12L, 13L))).thenReturn(products);
+
+        var result = service.getProductsByComponent(VALID_COMPONENT_ID, new ItemCursor(11L), 2);
+
+        assertThat(result.getContent()).isEqualTo(products);
+        assertThat(result.hasNext()).isTrue();
     }
 
     @Test
-    void isComponentInUse_whenComponentNotUsedInProducts_shouldReturnFalse() {
-        var componentId = 419L;
-        when(productComponentRepository.countComponentUsage(componentId))
-                .thenReturn(0L);
+    void addComponentToProduct_shouldAddProductToWhereUsedIndex() {
+        mockServices();
 
-        assertThat(service.isComponentInUse(componentId))
-                .as("Should return false because the component is used zero times")
-                .isFalse();
+        service.addComponentToProduct(VALID_PRODUCT_ID, VALID_COMPONENT_ID, DEFAULT_COMPONENT_QUANTITY);
+
+        verify(whereUsedIndex).add(VALID_COMPONENT_ID, VALID_PRODUCT_ID);
     }
 
     /*
@@ -439,6 +990,27 @@ class ProductComponentServiceTests {
         when(componentService.getItem(anyLong())).thenReturn(TestComponentData.getComponent());
     }
 
+    private static Component componentWithId(long componentId) {
+        var component = TestComponentData.getComponent();
+        component.setId(componentId);
+        return component;
+    }
+
+    private static ProductComponent entry(Product product, Component component, int quantity) {
+        return ProductComponent.builder()
+                .product(product)
+                .component(component)
+                .quantity(quantity)
+                .build();
+    }
+
+    private static ComponentAddDto componentToAdd(long componentId, int quantity) {
+        var dto = new ComponentAddDto();
+        dto.setComponentId(componentId);
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
     private void mockProductService() {
         when(productService.getItem(anyLong())).thenReturn(TestProductData.getProduct());
     }
@@ -452,4 +1024,12 @@ class ProductComponentServiceTests {
                 .build();
         return Optional.of(productComponent);
     }
+
+    private ProductComponent getVersionedProductComponent(long version) {
+        return ProductComponent.builder()
+                .product(TestProductData.getProduct())
+                .component(TestComponentData.getComponent())
+                .version(version)
+                .build();
+    }
 }
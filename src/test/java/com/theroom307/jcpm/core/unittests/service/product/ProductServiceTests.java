@@ -2,8 +2,16 @@ package com.theroom307.jcpm.core.unittests.service.product;
 
 import com.theroom307.jcpm.core.controller.exception.BadRequestException;
 import com.theroom307.jcpm.core.controller.exception.ItemNotFoundException;
+import com.theroom307.jcpm.core.controller.exception.PreconditionFailedException;
+import com.theroom307.jcpm.core.data.dto.ItemSuggestion;
+import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
+import com.theroom307.jcpm.core.data.dto.SearchableItem;
+import com.theroom307.jcpm.core.data.dto.wrapper.ItemCursor;
 import com.theroom307.jcpm.core.data.model.Product;
 import com.theroom307.jcpm.core.data.repository.ProductRepository;
+import com.theroom307.jcpm.core.service.ItemChangedEvent;
+import com.theroom307.jcpm.core.service.cache.CacheProperties;
+import com.theroom307.jcpm.core.service.cache.CacheRegistry;
 import com.theroom307.jcpm.core.service.impl.ProductServiceImpl;
 import com.theroom307.jcpm.core.utils.constant.ExpectedErrorMessage;
 import org.junit.jupiter.api.Tag;
@@ -13,19 +21,31 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.theroom307.jcpm.core.TestTypes.UNIT_TEST;
 import static com.theroom307.jcpm.core.utils.data.TestProductData.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,20 +59,26 @@ class ProductServiceTests {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CacheRegistry caches = new CacheRegistry(new CacheProperties());
+
     private final int pageNumber = 0;
     private final int pageSize = 10;
     private final Pageable pageable = Pageable.ofSize(pageSize).withPage(pageNumber);
 
     @Test
     void getProducts_whenOneProductExists_shouldReturnPageWithOneProduct() {
-        Page<Product> pageWithOneProduct = new PageImpl<>(
-                List.of(getProduct()),
+        Page<ProductResponseDto> pageWithOneProduct = new PageImpl<>(
+                List.of(getProductResponse()),
                 pageable,
                 1);
 
-        when(productRepository.findAll(pageable)).thenReturn(pageWithOneProduct);
+        when(productRepository.findProjectedBy(pageable, ProductResponseDto.class)).thenReturn(pageWithOneProduct);
 
-        var actualResult = productService.getItems(pageNumber, pageSize);
+        var actualResult = productService.getItems(pageNumber, pageSize, ProductResponseDto.class);
 
         assertThat(actualResult)
                 .as("The service should return a page with one expected product")
@@ -61,10 +87,10 @@ class ProductServiceTests {
 
     @Test
     void getProducts_whenNoProductsExist_shouldReturnEmptyPage() {
-        Page<Product> emptyPage = Page.empty(pageable);
-        when(productRepository.findAll(pageable)).thenReturn(emptyPage);
+        Page<ProductResponseDto> emptyPage = Page.empty(pageable);
+        when(productRepository.findProjectedBy(pageable, ProductResponseDto.class)).thenReturn(emptyPage);
 
-        var actualResult = productService.getItems(pageNumber, pageSize);
+        var actualResult = productService.getItems(pageNumber, pageSize, ProductResponseDto.class);
 
         assertThat(actualResult)
                 .as("The service should return an empty page")
@@ -73,14 +99,164 @@ class ProductServiceTests {
 
     @Test
     void getProducts_whenRepositoryReturnsNull_shouldReturnEmptyPage() {
-        when(productRepository.findAll(pageable)).thenReturn(null); // JPA may return null when there are no products
+        when(productRepository.findProjectedBy(pageable, ProductResponseDto.class)).thenReturn(null); // JPA may return null when there are no products
 
-        var actualResult = productService.getItems(pageNumber, pageSize);
+        var actualResult = productService.getItems(pageNumber, pageSize, ProductResponseDto.class);
         assertThat(actualResult)
                 .as("The service should return an empty page")
                 .isEqualTo(Page.empty(pageable));
     }
 
+    @Test
+    void getProductSlice_shouldNotRequestTotal() {
+        Slice<ProductResponseDto> sliceWithOneProduct = new SliceImpl<>(List.of(getProductResponse()), pageable, false);
+
+        when(productRepository.findSliceProjectedBy(pageable, ProductResponseDto.class)).thenReturn(sliceWithOneProduct);
+
+        var actualResult = productService.getItemSlice(pageNumber, pageSize, ProductResponseDto.class);
+
+        assertThat(actualResult)
+                .as("The service should return a slice with one expected product")
+                .isEqualTo(sliceWithOneProduct);
+        verify(productRepository, never()).findProjectedBy(pageable, ProductResponseDto.class);
+    }
+
+    @Test
+    void searchProducts_indexBuilt_shouldReturnRankedPage() {
+        var ringProduct = getProductResponse().withId(1L).withName("Gold ring");
+        var chainProduct = getProductResponse().withId(2L).withName("Gold chain");
+        var searchableProducts = new SliceImpl<>(List.of(
+                new SearchableItem(1L, "Gold ring", "gold"),
+                new SearchableItem(2L, "Gold chain", null),
+                new SearchableItem(3L, "Silver ring", null)));
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(eq(0L), any(), eq(SearchableItem.class)))
+                .thenReturn(searchableProducts);
+        when(productRepository.findProjectedByIdIn(List.of(1L, 2L), ProductResponseDto.class))
+                .thenReturn(List.of(chainProduct, ringProduct));
+
+        productService.buildSearchIndex();
+        var actualResult = productService.searchItems("gold", pageNumber, pageSize, ProductResponseDto.class);
+
+        assertThat(actualResult.getContent())
+                .as("The product mentioning 'gold' twice should come first")
+                .containsExactly(ringProduct, chainProduct);
+        assertThat(actualResult.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void searchProducts_indexNotBuilt_shouldSearchRepository() {
+        Page<ProductResponseDto> pageWithOneProduct = new PageImpl<>(List.of(getProductResponse()), pageable, 1);
+        when(productRepository.findProjectedByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+                "gold", "gold", pageable, ProductResponseDto.class))
+                .thenReturn(pageWithOneProduct);
+
+        assertThat(productService.searchItems("gold", pageNumber, pageSize, ProductResponseDto.class))
+                .isEqualTo(pageWithOneProduct);
+    }
+
+    @Test
+    void createProduct_shouldAddProductToSearchIndex() {
+        var createdProduct = getProduct();
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(eq(0L), any(), eq(SearchableItem.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(productRepository.save(any())).thenReturn(createdProduct);
+        when(productRepository.findProjectedByIdIn(List.of(createdProduct.getId()), ProductResponseDto.class))
+                .thenReturn(List.of(getProductResponse()));
+
+        productService.buildSearchIndex();
+        productService.createItem(getProductToCreate());
+
+        assertThat(productService.searchItems(createdProduct.getName(), pageNumber, pageSize, ProductResponseDto.class))
+                .containsExactly(getProductResponse());
+    }
+
+    @Test
+    void createProducts_shouldSaveAllAndIndexThem() {
+        var ring = getProduct();
+        var chain = getProduct();
+        chain.setId(ring.getId() + 1);
+        chain.setName("Silver chain");
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(eq(0L), any(), eq(SearchableItem.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+        when(productRepository.saveAll(List.of(ring, chain))).thenReturn(List.of(ring, chain));
+
+        productService.buildSearchIndex();
+        var ids = productService.createItems(List.of(ring, chain));
+
+        assertThat(ids).containsExactly(ring.getId(), chain.getId());
+        verify(productRepository).flush();
+        assertThat(productService.suggestItems("silv", 10))
+                .containsExactly(new ItemSuggestion(chain.getId(), "Silver chain"));
+    }
+
+    @Test
+    void editProduct_whileSearchIndexIsBuilt_shouldNotBeOverwrittenByTheBuild() throws InterruptedException {
+        var editor = new AtomicReference<Thread>();
+        var editedProduct = new Product();
+        editedProduct.setName("Silver ring");
+        editedProduct.setDescription("Edited while the index was built.");
+
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(eq(0L), any(), eq(SearchableItem.class)))
+                .thenAnswer(invocation -> {
+                    // the product is edited after the batch has been read, but before it is indexed
+                    editor.set(new Thread(() -> productService.editItem(1L, editedProduct, null)));
+                    editor.get().start();
+                    while (editor.get().getState() != Thread.State.BLOCKED
+                           && editor.get().getState() != Thread.State.TERMINATED) {
+                        Thread.onSpinWait();
+                    }
+                    return new SliceImpl<>(List.of(new SearchableItem(1L, "Gold ring", null)));
+                });
+
+        productService.buildSearchIndex();
+        editor.get().join();
+
+        assertThat(productService.suggestItems("silv", 10))
+                .containsExactly(new ItemSuggestion(1L, "Silver ring"));
+        assertThat(productService.suggestItems("gol", 10)).isEmpty();
+        assertThat(productService.searchItems("gold", pageNumber, pageSize, ProductResponseDto.class)).isEmpty();
+    }
+
+    @Test
+    void suggestProducts_indexBuilt_shouldSuggestFromIndex() {
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(eq(0L), any(), eq(SearchableItem.class)))
+                .thenReturn(new SliceImpl<>(List.of(
+                        new SearchableItem(1L, "Gold ring", null),
+                        new SearchableItem(2L, "Silver ring", null))));
+
+        productService.buildSearchIndex();
+
+        assertThat(productService.suggestItems("gol", 10))
+                .containsExactly(new ItemSuggestion(1L, "Gold ring"));
+        verify(productRepository, never())
+                .findProjectedByNameStartingWithIgnoreCaseOrderByNameAsc(any(), any(), any());
+    }
+
+    @Test
+    void suggestProducts_indexNotBuilt_shouldSearchRepository() {
+        var suggestions = List.of(new ItemSuggestion(1L, "Gold ring"));
+        when(productRepository.findProjectedByNameStartingWithIgnoreCaseOrderByNameAsc(
+                "gol", PageRequest.ofSize(10), ItemSuggestion.class))
+                .thenReturn(suggestions);
+
+        assertThat(productService.suggestItems("gol", 10)).isEqualTo(suggestions);
+    }
+
+    @Test
+    void getProducts_withCursor_shouldSeekAfterCursorId() {
+        Slice<ProductResponseDto> sliceWithOneProduct = new SliceImpl<>(List.of(getProductResponse()), PageRequest.ofSize(pageSize), false);
+
+        when(productRepository.findProjectedByIdGreaterThanOrderByIdAsc(42L, PageRequest.ofSize(pageSize), ProductResponseDto.class))
+                .thenReturn(sliceWithOneProduct);
+
+        var actualResult = productService.getItems(new ItemCursor(42L), pageSize, ProductResponseDto.class);
+
+        assertThat(actualResult)
+                .as("The service should return the slice following the cursor")
+                .isEqualTo(sliceWithOneProduct);
+    }
+
     @Test
     void getProduct_whenProductExists_shouldReturnProduct() {
         var product = getProduct();
@@ -91,6 +267,98 @@ class ProductServiceTests {
                 .isEqualTo(product);
     }
 
+    @Test
+    void getProduct_calledTwice_shouldLoadProductFromRepositoryOnce() {
+        var product = getProduct();
+
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+
+        productService.getItem(product.getId());
+
+        assertThat(productService.getItem(product.getId()))
+                .isEqualTo(product);
+        verify(productRepository, times(1)).findById(product.getId());
+        assertThat(caches.getStats().get("products").hits())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void editProduct_shouldEvictCachedProduct() {
+        var product = getProduct();
+        var editedProduct = new Product();
+        editedProduct.setName("New Product Name");
+
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product));
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        productService.getItem(product.getId());
+        productService.editItem(product.getId(), editedProduct, null);
+        productService.getItem(product.getId());
+
+        verify(productRepository, times(2)).findById(product.getId());
+    }
+
+    @Test
+    void deleteProduct_shouldEvictCachedProduct() {
+        var product = getProduct();
+
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product), Optional.empty());
+        when(productRepository.deleteByIdAndVersion(product.getId(), null)).thenReturn(1);
+
+        productService.getItem(product.getId());
+        productService.deleteItem(product.getId(), null);
+
+        assertThatThrownBy(() -> productService.getItem(product.getId()))
+                .isInstanceOf(ItemNotFoundException.class);
+        verify(productRepository, never()).findProjectedById(anyLong(), any());
+    }
+
+    @Test
+    void editProduct_shouldChangeItemsVersion() {
+        var editedProduct = new Product();
+        editedProduct.setName("New Product Name");
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        var before = productService.getItemsVersion();
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, null);
+
+        assertThat(productService.getItemsVersion()).isNotEqualTo(before);
+        assertThat(productService.getItemsVersion()).isEqualTo(productService.getItemsVersion());
+    }
+
+    @Test
+    void editProduct_shouldPublishItemChangedEvent() {
+        var editedProduct = new Product();
+        editedProduct.setName("New Product Name");
+
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, null);
+
+        verify(eventPublisher).publishEvent(new ItemChangedEvent(Product.class, VALID_PRODUCT_ID));
+    }
+
+    @Test
+    void getProductProjection_whenProductExists_shouldReturnResponseDto() {
+        var productResponse = getProductResponse();
+
+        when(productRepository.findProjectedById(VALID_PRODUCT_ID, ProductResponseDto.class)).thenReturn(Optional.of(productResponse));
+
+        assertThat(productService.getItem(VALID_PRODUCT_ID, ProductResponseDto.class))
+                .isEqualTo(productResponse);
+    }
+
+    @Test
+    void getProductProjection_whenProductDoesNotExist_shouldThrowItemNotFoundException() {
+        var productId = VALID_PRODUCT_ID;
+
+        when(productRepository.findProjectedById(productId, ProductResponseDto.class)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.getItem(productId, ProductResponseDto.class))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage(ExpectedErrorMessage.productNotFound(productId));
+    }
+
     @Test
     void getProduct_whenProductDoesNotExist_shouldThrowItemNotFoundException() {
         var productId = VALID_PRODUCT_ID;
@@ -116,8 +384,9 @@ class ProductServiceTests {
     @Test
     void deleteProduct_shouldDeleteProductFromRepository() {
         var productId = VALID_PRODUCT_ID;
-        productService.deleteItem(productId);
-        verify(productRepository).deleteById(productId);
+        productService.deleteItem(productId, null);
+        verify(productRepository).deleteByIdAndVersion(productId, null);
+        verify(productRepository, never()).deleteById(anyLong());
     }
 
     @Test
@@ -125,11 +394,11 @@ class ProductServiceTests {
         var editedProduct = new Product();
         editedProduct.setName("New Product Name");
 
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(getProduct()));
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        productService.editItem(VALID_PRODUCT_ID, editedProduct);
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, null);
 
-        verify(productRepository).updateNameById("New Product Name", VALID_PRODUCT_ID);
+        verify(productRepository).updateById(eq("New Product Name"), isNull(), any(ZonedDateTime.class), eq(VALID_PRODUCT_ID), isNull());
     }
 
     @Test
@@ -137,11 +406,11 @@ class ProductServiceTests {
         var editedProduct = new Product();
         editedProduct.setDescription("New product description.");
 
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(getProduct()));
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        productService.editItem(VALID_PRODUCT_ID, editedProduct);
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, null);
 
-        verify(productRepository).updateDescriptionById("New product description.", VALID_PRODUCT_ID);
+        verify(productRepository).updateById(isNull(), eq("New product description."), any(ZonedDateTime.class), eq(VALID_PRODUCT_ID), isNull());
     }
 
     @Test
@@ -150,12 +419,13 @@ class ProductServiceTests {
         editedProduct.setName("New Product Name");
         editedProduct.setDescription("New product description.");
 
-        when(productRepository.findById(anyLong())).thenReturn(Optional.of(getProduct()));
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
 
-        productService.editItem(VALID_PRODUCT_ID, editedProduct);
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, null);
 
-        verify(productRepository).updateNameById("New Product Name", VALID_PRODUCT_ID);
-        verify(productRepository).updateDescriptionById("New product description.", VALID_PRODUCT_ID);
+        verify(productRepository).updateById(eq("New Product Name"), eq("New product description."), any(ZonedDateTime.class), eq(VALID_PRODUCT_ID), isNull());
+        verify(productRepository, never()).findById(anyLong());
+        verify(productRepository, never()).findProjectedById(anyLong(), any());
     }
 
     @Test
@@ -163,18 +433,95 @@ class ProductServiceTests {
         var notExistingProductId = VALID_PRODUCT_ID;
         var anyProduct = getProduct();
 
-        when(productRepository.findById(notExistingProductId)).thenReturn(Optional.empty());
+        when(productRepository.updateById(any(), any(), any(), eq(notExistingProductId), any())).thenReturn(0);
 
-        assertThatThrownBy(() -> productService.editItem(notExistingProductId, anyProduct))
+        assertThatThrownBy(() -> productService.editItem(notExistingProductId, anyProduct, null))
                 .isInstanceOf(ItemNotFoundException.class)
                 .hasMessage(ExpectedErrorMessage.productNotFound(notExistingProductId));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void deleteProducts_shouldDeleteWithOneStatementAndEvictThem() {
+        var product = getProduct();
+        when(productRepository.findById(product.getId())).thenReturn(Optional.of(product), Optional.empty());
+        when(productRepository.deleteByIdIn(List.of(product.getId(), 99L))).thenReturn(1);
+
+        productService.getItem(product.getId());
+        assertThat(productService.deleteItems(List.of(product.getId(), 99L))).isEqualTo(1);
+
+        assertThatThrownBy(() -> productService.getItem(product.getId()))
+                .isInstanceOf(ItemNotFoundException.class);
+        verify(productRepository, never()).findProjectedById(anyLong(), any());
+    }
+
+    @Test
+    void deleteProduct_expectedVersion_shouldDeleteOnlyThatVersion() {
+        when(productRepository.deleteByIdAndVersion(VALID_PRODUCT_ID, 3L)).thenReturn(1);
+
+        productService.deleteItem(VALID_PRODUCT_ID, 3L);
+
+        verify(productRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void deleteProduct_outdatedVersion_shouldThrowPreconditionFailedException() {
+        when(productRepository.deleteByIdAndVersion(VALID_PRODUCT_ID, 3L)).thenReturn(0);
+        when(productRepository.existsById(VALID_PRODUCT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> productService.deleteItem(VALID_PRODUCT_ID, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.productVersionMismatch(VALID_PRODUCT_ID, 3L));
+    }
+
+    @Test
+    void editProduct_expectedVersion_shouldPassVersionToUpdate() {
+        var editedProduct = new Product();
+        editedProduct.setName("New Product Name");
+
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(1);
+
+        productService.editItem(VALID_PRODUCT_ID, editedProduct, 3L);
+
+        verify(productRepository).updateById(eq("New Product Name"), isNull(), any(ZonedDateTime.class), eq(VALID_PRODUCT_ID), eq(3L));
+    }
+
+    @Test
+    void editProduct_outdatedVersion_shouldThrowPreconditionFailedException() {
+        var editedProduct = new Product();
+        editedProduct.setName("New Product Name");
+
+        when(productRepository.updateById(any(), any(), any(), anyLong(), any())).thenReturn(0);
+        when(productRepository.existsById(VALID_PRODUCT_ID)).thenReturn(true);
+
+        assertThatThrownBy(() -> productService.editItem(VALID_PRODUCT_ID, editedProduct, 3L))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessage(ExpectedErrorMessage.productVersionMismatch(VALID_PRODUCT_ID, 3L));
+    }
+
+    @Test
+    void getProductMetadata_shouldReturnMetadataFromRepository() {
+        var metadata = getProductMetadata();
+        when(productRepository.findMetadataById(VALID_PRODUCT_ID)).thenReturn(Optional.of(metadata));
+
+        assertThat(productService.getItemMetadata(VALID_PRODUCT_ID)).isEqualTo(metadata);
+        verify(productRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getProductMetadata_notExistingProduct_shouldThrowItemNotFoundException() {
+        when(productRepository.findMetadataById(VALID_PRODUCT_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> productService.getItemMetadata(VALID_PRODUCT_ID))
+                .isInstanceOf(ItemNotFoundException.class)
+                .hasMessage(ExpectedErrorMessage.productNotFound(VALID_PRODUCT_ID));
     }
 
     @Test
     void editProduct_missingProductNameAndDescription_shouldThrowBadRequest() {
         var product = new Product();
 
-        assertThatThrownBy(() -> productService.editItem(VALID_PRODUCT_ID, product))
+        assertThatThrownBy(() -> productService.editItem(VALID_PRODUCT_ID, product, null))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessage("New value for the product name or description must be provided");
     }
@@ -185,7 +532,7 @@ class ProductServiceTests {
         var product = new Product();
         product.setName(blankProductName);
 
-        assertThatThrownBy(() -> productService.editItem(VALID_PRODUCT_ID, product))
+        assertThatThrownBy(() -> productService.editItem(VALID_PRODUCT_ID, product, null))
                 .isInstanceOf(BadRequestException.class)
                 .hasMessage("Product name cannot be blank");
     }
@@ -19,7 +19,7 @@ public class ExpectedErrorMessage {
     }
 
     public static String quantityIsRequired() {
-        return "'quantity' is required";
+        return "Either 'quantity' or 'delta' is required";
     }
 
     public static String componentNameIsRequired() {
@@ -52,6 +52,31 @@ public class ExpectedErrorMessage {
         return "Page must not be negative";
     }
 
+    public static String invalidCursor() {
+        return "Invalid cursor";
+    }
+
+    public static String invalidIfMatch() {
+        return "Invalid If-Match header";
+    }
+
+    public static String productVersionMismatch(long productId, long version) {
+        return versionMismatch(Item.PRODUCT, productId, version);
+    }
+
+    public static String componentVersionMismatch(long componentId, long version) {
+        return versionMismatch(Item.COMPONENT, componentId, version);
+    }
+
+    private static String versionMismatch(Item item, long id, long version) {
+        return String.format("%s '%s' does not match the expected version %s", item, id, version);
+    }
+
+    public static String productComponentVersionMismatch(long productId, long componentId, long version) {
+        return String.format("%s '%s' in %s '%s' does not match the expected version %s",
+                Item.COMPONENT, componentId, Item.PRODUCT.toLowerCase(), productId, version);
+    }
+
     public static String quantityMustBeGreaterThanZero() {
         return "Quantity must be greater than zero";
     }
@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.utils.data;
 
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
 import com.theroom307.jcpm.core.data.dto.ComponentRequestDto;
 import com.theroom307.jcpm.core.data.dto.ComponentResponseDto;
 import com.theroom307.jcpm.core.data.model.Component;
@@ -31,10 +32,15 @@ public class TestComponentData {
                 "component name",
                 "component description",
                 "2023-03-12T18:23:01Z",
-                "2023-03-12T18:24:59Z"
+                "2023-03-12T18:24:59Z",
+                0
         );
     }
 
+    public static ItemMetadata getComponentMetadata() {
+        return new ItemMetadata(0L, getComponent().getModified());
+    }
+
     public static ComponentRequestDto getComponentRequest() {
         return new ComponentRequestDto(
                 "component name",
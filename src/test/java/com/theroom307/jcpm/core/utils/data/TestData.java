@@ -1,11 +1,22 @@
 package com.theroom307.jcpm.core.utils.data;
 
+import com.theroom307.jcpm.core.data.dto.CollectionMetadata;
+import com.theroom307.jcpm.core.data.dto.CollectionVersion;
+
 import static com.theroom307.jcpm.core.utils.data.TestComponentData.VALID_COMPONENT_ID;
 
 public class TestData {
 
     public static final int DEFAULT_COMPONENT_QUANTITY = 1;
 
+    public static CollectionMetadata getEmptyCollectionMetadata() {
+        return new CollectionMetadata(0L, null, null);
+    }
+
+    public static CollectionVersion getCollectionVersion() {
+        return new CollectionVersion(0L, 0L);
+    }
+
     /**
      * Creates a JSON payload for adding a component with default component ID
      */
@@ -61,6 +72,14 @@ public class TestData {
     /**
      * Creates a JSON payload without quantity (for testing validation)
      */
+    public static String getAdjustQuantityRequestBody(int delta) {
+        return String.format("""
+                {
+                    "delta": %s
+                }
+                """, delta);
+    }
+
     public static String getInvalidRequestWithoutQuantity() {
         return """
                 {
@@ -1,5 +1,6 @@
 package com.theroom307.jcpm.core.utils.data;
 
+import com.theroom307.jcpm.core.data.dto.ItemMetadata;
 import com.theroom307.jcpm.core.data.dto.ProductRequestDto;
 import com.theroom307.jcpm.core.data.dto.ProductResponseDto;
 import com.theroom307.jcpm.core.data.model.Product;
@@ -35,6 +36,10 @@ public class TestProductData {
         );
     }
 
+    public static ItemMetadata getProductMetadata() {
+        return new ItemMetadata(0L, getProduct().getModified());
+    }
+
     public static ProductRequestDto getProductRequest() {
         return new ProductRequestDto(
                 "product name",